@@ -0,0 +1,49 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
+import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide descubrirCasilla en el peor caso: un clic en el centro que abre una región de ceros.
+ * Con densidad 0 la región es el tablero entero. Cada invocación usa un tablero recién
+ * generado (la generación queda fuera de la medición).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+public class DescubrirBenchmark {
+
+    @Param({"100", "1000", "4096"})
+    int lado;
+
+    @Param({"0.0", "0.05", "0.12"})
+    double densidad;
+
+    private SplittableRandom random;
+    private Tablero tablero;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        random = new SplittableRandom(42);
+    }
+
+    @Setup(Level.Iteration)
+    public void nuevoTablero() {
+        int centro = lado / 2;
+        // La zona segura garantiza que el clic del centro sea un cero
+        tablero = new Tablero(lado, lado, (int) (lado * lado * densidad), random, centro, centro);
+    }
+
+    @Benchmark
+    public int descubrirRegion() throws CasillaYaDescubiertaException, CoordenadaInvalidaException {
+        tablero.descubrirCasilla(lado / 2, lado / 2);
+        return tablero.getUltimasAbiertas();
+    }
+}
@@ -0,0 +1,52 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide la generación de un tablero: colocación de minas (los números se calculan al leerlos),
+ * la creación de un tablero diferido y el primer clic que coloca sus minas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GeneracionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int lado;
+
+    @Param({"0.12", "0.20", "0.80"})
+    double densidad;
+
+    private int minas;
+    private SplittableRandom random;
+
+    @Setup
+    public void preparar() {
+        minas = (int) (lado * lado * densidad);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public Tablero generar() {
+        return new Tablero(lado, lado, minas, random);
+    }
+
+    // Lo que cuesta new Juego(...): solo reservar las celdas
+    @Benchmark
+    public Tablero crearDiferido() {
+        return Tablero.diferido(lado, lado, minas, random);
+    }
+
+    @Benchmark
+    public Tablero primerClic() {
+        Tablero tablero = Tablero.diferido(lado, lado, minas, random);
+        tablero.intentarDescubrir(lado / 2, lado / 2);
+        return tablero;
+    }
+}
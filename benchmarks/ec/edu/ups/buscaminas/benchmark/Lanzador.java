@@ -0,0 +1,22 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de los benchmarks. Siempre activa el perfilador de GC para reportar
+ * la tasa de asignación (gc.alloc.rate.norm = bytes por operación).
+ * Acepta las mismas opciones que org.openjdk.jmh.Main, ej. un filtro: Lanzador Descubrir
+ */
+public class Lanzador {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import ec.edu.ups.buscaminas.modelo.TableroCompartido;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide cuánto tardan 'hilos' jugadores en descubrir juntos todas las casillas seguras de un
+ * TableroCompartido, cada uno recorriendo el tablero desde una fila distinta. Con más núcleos
+ * que hilos el tiempo debería bajar casi en proporción.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class MultijugadorBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    int hilos;
+
+    private static final int LADO = 1000;
+    private Tablero origen;
+    private TableroCompartido tablero;
+    private ExecutorService ejecutor;
+
+    @Setup(Level.Trial)
+    public void crearEjecutor() {
+        origen = new Tablero(LADO, LADO, LADO * LADO / 5, new SplittableRandom(42));
+        ejecutor = Executors.newFixedThreadPool(hilos);
+    }
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        tablero = new TableroCompartido(origen, hilos);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ejecutor.shutdown();
+    }
+
+    @Benchmark
+    public long resolver() throws Exception {
+        Future<?>[] jugadores = new Future<?>[hilos];
+        for (int j = 0; j < hilos; j++) {
+            final int jugador = j;
+            jugadores[j] = ejecutor.submit(() -> {
+                int desde = jugador * (LADO / hilos);
+                for (int k = 0; k < LADO; k++) {
+                    int f = (desde + k) % LADO;
+                    for (int c = 0; c < LADO; c++) {
+                        if (!tablero.tieneMina(f * LADO + c)) tablero.descubrir(jugador, f, c);
+                    }
+                }
+            });
+        }
+        for (Future<?> jugador : jugadores) jugador.get();
+        return tablero.getSegurasPorDescubrir();
+    }
+}
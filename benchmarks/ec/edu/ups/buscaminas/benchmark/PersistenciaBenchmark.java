@@ -0,0 +1,63 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
+import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.modelo.Juego;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide guardarJuego y cargarJuego sobre un archivo temporal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PersistenciaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int lado;
+
+    @Param({"0.12", "0.20"})
+    double densidad;
+
+    private Juego juego;
+    private Juego destino;
+    private Path archivo;
+
+    @Setup
+    public void preparar() throws IOException, CasillaYaDescubiertaException, CoordenadaInvalidaException {
+        juego = new Juego(lado, lado, (int) (lado * lado * densidad), 42L);
+        // Una partida empezada: algunas casillas descubiertas y una bandera
+        for (int i = 0; i < lado; i++) {
+            if (!juego.getTablero().getCasilla(i, i).esMina() && !juego.getTablero().getCasilla(i, i).isDescubierta()) {
+                juego.descubrirCasilla(i, i);
+            }
+        }
+        juego.alternarBandera(0, lado - 1);
+        destino = new Juego(1, 1, 0);
+        archivo = Files.createTempFile("buscaminas-bench", ".dat");
+        juego.guardarJuego(archivo.toString());
+    }
+
+    @TearDown
+    public void limpiar() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+
+    @Benchmark
+    public void guardar() throws IOException {
+        juego.guardarJuego(archivo.toString());
+    }
+
+    @Benchmark
+    public Object cargar() throws IOException, ClassNotFoundException {
+        destino.cargarJuego(archivo.toString());
+        return destino.getTablero();
+    }
+}
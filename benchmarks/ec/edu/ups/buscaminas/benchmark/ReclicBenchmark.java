@@ -0,0 +1,43 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
+import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compara un clic repetido sobre una casilla ya descubierta (lo más común en el tráfico de bots)
+ * con la API de excepciones y con la de códigos de resultado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ReclicBenchmark {
+    private Tablero tablero;
+
+    @Setup(Level.Trial)
+    public void preparar() throws CasillaYaDescubiertaException, CoordenadaInvalidaException {
+        tablero = new Tablero(100, 100, 1000, new SplittableRandom(42), 50, 50);
+        tablero.descubrirCasilla(50, 50);
+    }
+
+    @Benchmark
+    public int conExcepcion() throws CoordenadaInvalidaException {
+        try {
+            tablero.descubrirCasilla(50, 50);
+            return 0;
+        } catch (CasillaYaDescubiertaException e) {
+            return 1;
+        }
+    }
+
+    @Benchmark
+    public int conCodigo() {
+        return tablero.intentarDescubrir(50, 50);
+    }
+}
@@ -0,0 +1,57 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
+import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import ec.edu.ups.buscaminas.vista.VistaConsola;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide VistaConsola.mostrarTablero con la salida estándar redirigida a un flujo nulo,
+ * así solo se cuenta el armado del texto y no la terminal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RenderizadoBenchmark {
+
+    @Param({"10", "100", "500"})
+    int lado;
+
+    @Param({"0.12", "0.20"})
+    double densidad;
+
+    @Param({"false", "true"})
+    boolean mostrarMinas;
+
+    private Tablero tablero;
+    private VistaConsola vista;
+    private PrintStream salidaOriginal;
+
+    @Setup
+    public void preparar() throws CasillaYaDescubiertaException, CoordenadaInvalidaException {
+        int centro = lado / 2;
+        tablero = new Tablero(lado, lado, (int) (lado * lado * densidad), new SplittableRandom(42), centro, centro);
+        tablero.descubrirCasilla(centro, centro);
+        salidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        vista = new VistaConsola();
+    }
+
+    @TearDown
+    public void restaurar() {
+        System.setOut(salidaOriginal);
+    }
+
+    @Benchmark
+    public void mostrarTablero() {
+        vista.mostrarTablero(tablero, mostrarMinas);
+    }
+}
@@ -0,0 +1,40 @@
+package ec.edu.ups.buscaminas.benchmark;
+
+import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
+import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide verificarVictoria sobre una partida a medias, tal como se llama tras cada jugada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VictoriaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int lado;
+
+    @Param({"0.12", "0.20"})
+    double densidad;
+
+    private Tablero tablero;
+
+    @Setup
+    public void preparar() throws CasillaYaDescubiertaException, CoordenadaInvalidaException {
+        int centro = lado / 2;
+        tablero = new Tablero(lado, lado, (int) (lado * lado * densidad), new SplittableRandom(42), centro, centro);
+        tablero.descubrirCasilla(centro, centro);
+    }
+
+    @Benchmark
+    public boolean verificarVictoria() {
+        return tablero.verificarVictoria();
+    }
+}
@@ -0,0 +1,61 @@
+package ec.edu.ups.buscaminas.clasificacion;
+
+/**
+ * Totales de un jugador sobre todas sus partidas registradas.
+ */
+public final class EstadisticasJugador {
+    private long partidas;
+    private long ganadas;
+    private long jugadas;
+    private long tiempoTotalMicros;
+    // Solo partidas ganadas; Long.MAX_VALUE si aún no ganó ninguna
+    private long mejorTiempoMicros = Long.MAX_VALUE;
+
+    EstadisticasJugador() {
+    }
+
+    EstadisticasJugador(EstadisticasJugador otra) {
+        this(otra.partidas, otra.ganadas, otra.jugadas, otra.tiempoTotalMicros, otra.mejorTiempoMicros);
+    }
+
+    EstadisticasJugador(long partidas, long ganadas, long jugadas, long tiempoTotalMicros, long mejorTiempoMicros) {
+        this.partidas = partidas;
+        this.ganadas = ganadas;
+        this.jugadas = jugadas;
+        this.tiempoTotalMicros = tiempoTotalMicros;
+        this.mejorTiempoMicros = mejorTiempoMicros;
+    }
+
+    void sumar(ResultadoPartida resultado) {
+        partidas++;
+        jugadas += resultado.getJugadas();
+        tiempoTotalMicros += resultado.getDuracionMicros();
+        if (resultado.isGanada()) {
+            ganadas++;
+            mejorTiempoMicros = Math.min(mejorTiempoMicros, resultado.getDuracionMicros());
+        }
+    }
+
+    public long getPartidas() { return partidas; }
+    public long getGanadas() { return ganadas; }
+    public long getJugadas() { return jugadas; }
+    public long getTiempoTotalMicros() { return tiempoTotalMicros; }
+
+    /**
+     * Tiempo de la partida ganada más rápida, o -1 si no ganó ninguna.
+     */
+    public long getMejorTiempoMicros() {
+        return ganadas == 0 ? -1 : mejorTiempoMicros;
+    }
+
+    public double getTasaVictoria() {
+        return partidas == 0 ? 0 : (double) ganadas / partidas;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d partidas, %.2f%% ganadas, %.1f jugadas/partida, mejor tiempo %s", partidas,
+                getTasaVictoria() * 100, partidas == 0 ? 0 : (double) jugadas / partidas,
+                ganadas == 0 ? "-" : String.format("%.3f s", mejorTiempoMicros / 1e6));
+    }
+}
@@ -0,0 +1,407 @@
+package ec.edu.ups.buscaminas.clasificacion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historial de partidas terminadas, embebido y local, con índices en memoria para la
+ * clasificación (las N partidas ganadas más rápidas por configuración de tablero) y las
+ * estadísticas de cada jugador. Usa tres archivos:
+ * <pre>
+ * archivo             "BUSP", versión (2), reservado (2), y un registro de 48 bytes por partida:
+ *                     jugador (4), semilla (8), filas (4), columnas (4), minas (4),
+ *                     duración en µs (8), jugadas (4), ganada (1), reservado (3), fecha (8)
+ * archivo.jugadores   un nombre por línea; el número de línea es el id del registro
+ * archivo.indice      foto de los índices y cuántos registros cubre
+ * </pre>
+ * Solo se agregan datos al final: nada se reescribe. Al abrir se carga la foto del índice y
+ * se indexan solo los registros escritos después (si la foto falta o está dañada, todos), así
+ * que arrancar no depende del tamaño del historial. Un registro a medias al final (cierre
+ * inesperado) se descarta.
+ * <p>
+ * Los registros se acumulan en un buffer y se escriben al llenarse, en sincronizar() o al
+ * cerrar; las consultas responden desde memoria. Todos los métodos son seguros entre hilos.
+ */
+public class RegistroPartidas implements Closeable {
+    private static final int MAGIA = 0x42555350; // "BUSP"
+    private static final int MAGIA_INDICE = 0x42555349; // "BUSI"
+    private static final short VERSION = 1;
+    private static final int CABECERA = 8;
+    static final int TAMANO_REGISTRO = 48;
+    private static final int BUFFER = 1024 * TAMANO_REGISTRO;
+
+    private final Path archivoJugadores;
+    private final Path archivoIndice;
+    private final int maxPorClasificacion;
+    private final FileChannel canal;
+    private final BufferedWriter salidaJugadores;
+    private final ByteBuffer pendientes = ByteBuffer.allocate(BUFFER);
+    private long finArchivo;
+
+    private final List<String> nombres = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<EstadisticasJugador> estadisticas = new ArrayList<>();
+    private final Map<Configuracion, Clasificacion> clasificaciones = new HashMap<>();
+    // Clave reutilizable para buscar sin crear objetos
+    private final Configuracion sonda = new Configuracion(0, 0, 0);
+    private long registros;
+    private long reindexados;
+
+    /**
+     * Abre (o crea) el historial.
+     * @param maxPorClasificacion partidas que guarda la clasificación de cada configuración.
+     */
+    public RegistroPartidas(Path archivo, int maxPorClasificacion) throws IOException {
+        if (maxPorClasificacion < 1) throw new IllegalArgumentException("La clasificación debe tener al menos un puesto.");
+        this.archivoJugadores = archivo.resolveSibling(archivo.getFileName() + ".jugadores");
+        this.archivoIndice = archivo.resolveSibling(archivo.getFileName() + ".indice");
+        this.maxPorClasificacion = maxPorClasificacion;
+
+        leerJugadores();
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long enArchivo = prepararArchivo();
+            long cubiertos = leerIndice(enArchivo);
+            reindexar(cubiertos, enArchivo);
+            registros = enArchivo;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+        salidaJugadores = Files.newBufferedWriter(archivoJugadores, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // Nombres de los jugadores; una última línea sin terminar (cierre inesperado) se descarta
+    private void leerJugadores() throws IOException {
+        if (!Files.exists(archivoJugadores)) return;
+        byte[] bytes = Files.readAllBytes(archivoJugadores);
+        int fin = bytes.length;
+        while (fin > 0 && bytes[fin - 1] != '\n') fin--;
+        if (fin < bytes.length) {
+            try (FileChannel jugadores = FileChannel.open(archivoJugadores, StandardOpenOption.WRITE)) {
+                jugadores.truncate(fin);
+            }
+        }
+        String[] lineas = new String(bytes, 0, fin, StandardCharsets.UTF_8).split("\n", -1);
+        // La última es la cadena vacía después del último salto de línea
+        for (int i = 0; i < lineas.length - 1; i++) agregarNombre(lineas[i]);
+    }
+
+    private int agregarNombre(String nombre) {
+        int id = nombres.size();
+        nombres.add(nombre);
+        ids.put(nombre, id);
+        estadisticas.add(new EstadisticasJugador());
+        return id;
+    }
+
+    /**
+     * Escribe la cabecera de un archivo nuevo o la valida, y descarta un registro a medias al final.
+     * @return registros completos en el archivo.
+     */
+    private long prepararArchivo() throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+        if (canal.size() == 0) {
+            cabecera.putInt(MAGIA).putShort(VERSION).putShort((short) 0).flip();
+            while (cabecera.hasRemaining()) canal.write(cabecera, cabecera.position());
+            finArchivo = CABECERA;
+            return 0;
+        }
+        while (cabecera.hasRemaining()) {
+            if (canal.read(cabecera, cabecera.position()) < 0) throw new IOException("Historial de partidas incompleto.");
+        }
+        cabecera.flip();
+        if (cabecera.getInt() != MAGIA) throw new IOException("El archivo no es un historial de partidas.");
+        short version = cabecera.getShort();
+        if (version != VERSION) throw new IOException("Versión de historial no soportada: " + version);
+
+        long enArchivo = (canal.size() - CABECERA) / TAMANO_REGISTRO;
+        finArchivo = CABECERA + enArchivo * TAMANO_REGISTRO;
+        if (canal.size() > finArchivo) canal.truncate(finArchivo);
+        return enArchivo;
+    }
+
+    /**
+     * Carga la foto de los índices si es válida para este archivo.
+     * @return registros que cubre (0 si no se pudo usar: los índices quedan vacíos).
+     */
+    private long leerIndice(long enArchivo) {
+        if (!Files.exists(archivoIndice)) return 0;
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivoIndice)))) {
+            if (entrada.readInt() != MAGIA_INDICE || entrada.readShort() != VERSION
+                    || entrada.readInt() != maxPorClasificacion) return 0;
+            long cubiertos = entrada.readLong();
+            int jugadores = entrada.readInt();
+            if (cubiertos > enArchivo || jugadores > nombres.size()) return 0;
+            for (int id = 0; id < jugadores; id++) {
+                estadisticas.set(id, new EstadisticasJugador(entrada.readLong(), entrada.readLong(),
+                        entrada.readLong(), entrada.readLong(), entrada.readLong()));
+            }
+            int configuraciones = entrada.readInt();
+            for (int i = 0; i < configuraciones; i++) {
+                Configuracion configuracion = new Configuracion(entrada.readInt(), entrada.readInt(), entrada.readInt());
+                Clasificacion clasificacion = new Clasificacion(maxPorClasificacion);
+                int cantidad = entrada.readInt();
+                if (cantidad > maxPorClasificacion) throw new IOException("Índice dañado.");
+                for (int k = 0; k < cantidad; k++) {
+                    int id = entrada.readInt();
+                    if (id < 0 || id >= jugadores) throw new IOException("Índice dañado.");
+                    clasificacion.insertar(new ResultadoPartida(nombres.get(id), entrada.readLong(),
+                            configuracion.filas, configuracion.columnas, configuracion.minas,
+                            entrada.readLong(), entrada.readInt(), true, entrada.readLong()));
+                }
+                clasificaciones.put(configuracion, clasificacion);
+            }
+            return cubiertos;
+        } catch (IOException | RuntimeException e) {
+            // Foto dañada o de otra versión: se reconstruye desde el historial
+            clasificaciones.clear();
+            for (int id = 0; id < estadisticas.size(); id++) estadisticas.set(id, new EstadisticasJugador());
+            return 0;
+        }
+    }
+
+    // Indexa los registros [desde, hasta) del archivo, leyéndolo por bloques
+    private void reindexar(long desde, long hasta) throws IOException {
+        ByteBuffer bloque = ByteBuffer.allocate(BUFFER);
+        long registro = desde;
+        while (registro < hasta) {
+            bloque.clear();
+            bloque.limit((int) Math.min(bloque.capacity(), (hasta - registro) * TAMANO_REGISTRO));
+            long posicion = CABECERA + registro * TAMANO_REGISTRO;
+            while (bloque.hasRemaining()) {
+                if (canal.read(bloque, posicion + bloque.position()) < 0) throw new IOException("Historial de partidas incompleto.");
+            }
+            bloque.flip();
+            while (bloque.hasRemaining()) {
+                int id = bloque.getInt();
+                if (id < 0 || id >= nombres.size()) throw new IOException("Registro de partida dañado: " + registro);
+                long semilla = bloque.getLong();
+                int filas = bloque.getInt();
+                int columnas = bloque.getInt();
+                int minas = bloque.getInt();
+                long duracion = bloque.getLong();
+                int jugadas = bloque.getInt();
+                boolean ganada = bloque.get() != 0;
+                bloque.position(bloque.position() + 3);
+                long fecha = bloque.getLong();
+                indexar(id, new ResultadoPartida(nombres.get(id), semilla, filas, columnas, minas,
+                        duracion, jugadas, ganada, fecha));
+                registro++;
+            }
+        }
+        reindexados = hasta - desde;
+    }
+
+    private void indexar(int id, ResultadoPartida resultado) {
+        estadisticas.get(id).sumar(resultado);
+        if (!resultado.isGanada()) return;
+        Clasificacion clasificacion = clasificaciones.get(sonda.fijar(resultado.getFilas(), resultado.getColumnas(), resultado.getMinas()));
+        if (clasificacion == null) {
+            clasificacion = new Clasificacion(maxPorClasificacion);
+            clasificaciones.put(new Configuracion(resultado.getFilas(), resultado.getColumnas(), resultado.getMinas()), clasificacion);
+        }
+        if (clasificacion.admite(resultado.getDuracionMicros())) clasificacion.insertar(resultado);
+    }
+
+    /**
+     * Agrega una partida al historial y a los índices.
+     */
+    public synchronized void registrar(ResultadoPartida resultado) throws IOException {
+        Integer id = ids.get(resultado.getJugador());
+        if (id == null) {
+            // El nombre se escribe antes que cualquier registro que lo use
+            String nombre = resultado.getJugador().replace('\n', ' ').replace('\r', ' ');
+            id = ids.get(nombre);
+            if (id == null) {
+                salidaJugadores.write(nombre);
+                salidaJugadores.write('\n');
+                salidaJugadores.flush();
+                id = agregarNombre(nombre);
+            }
+            if (!nombre.equals(resultado.getJugador())) ids.put(resultado.getJugador(), id);
+        }
+        if (pendientes.remaining() < TAMANO_REGISTRO) vaciar();
+        pendientes.putInt(id).putLong(resultado.getSemilla()).putInt(resultado.getFilas())
+                .putInt(resultado.getColumnas()).putInt(resultado.getMinas()).putLong(resultado.getDuracionMicros())
+                .putInt(resultado.getJugadas()).put((byte) (resultado.isGanada() ? 1 : 0))
+                .put((byte) 0).putShort((short) 0).putLong(resultado.getFecha());
+        registros++;
+        indexar(id, resultado);
+    }
+
+    private void vaciar() throws IOException {
+        pendientes.flip();
+        while (pendientes.hasRemaining()) finArchivo += canal.write(pendientes, finArchivo);
+        pendientes.clear();
+    }
+
+    /**
+     * Escribe los registros pendientes y los fuerza al disco.
+     */
+    public synchronized void sincronizar() throws IOException {
+        vaciar();
+        canal.force(false);
+    }
+
+    /**
+     * Las 'n' partidas ganadas más rápidas de la configuración (las más antiguas primero en
+     * caso de empate), como mucho maxPorClasificacion.
+     */
+    public synchronized List<ResultadoPartida> mejores(int filas, int columnas, int minas, int n) {
+        Clasificacion clasificacion = clasificaciones.get(sonda.fijar(filas, columnas, minas));
+        if (clasificacion == null) return List.of();
+        return List.of(Arrays.copyOf(clasificacion.mejores, Math.min(n, clasificacion.cantidad)));
+    }
+
+    /**
+     * Estadísticas del jugador, o null si no tiene partidas registradas.
+     */
+    public synchronized EstadisticasJugador estadisticas(String jugador) {
+        Integer id = ids.get(jugador);
+        return id == null ? null : new EstadisticasJugador(estadisticas.get(id));
+    }
+
+    public synchronized long getCantidad() {
+        return registros;
+    }
+
+    /**
+     * Registros que hubo que indexar al abrir porque la foto del índice no los cubría.
+     */
+    public long getReindexados() {
+        return reindexados;
+    }
+
+    /**
+     * Escribe los registros pendientes y una foto de los índices que los cubre. Se escribe en un
+     * archivo temporal que luego reemplaza al anterior.
+     */
+    public synchronized void guardarIndice() throws IOException {
+        sincronizar();
+        Path temporal = archivoIndice.resolveSibling(archivoIndice.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGIA_INDICE);
+            salida.writeShort(VERSION);
+            salida.writeInt(maxPorClasificacion);
+            salida.writeLong(registros);
+            salida.writeInt(estadisticas.size());
+            for (EstadisticasJugador jugador : estadisticas) {
+                salida.writeLong(jugador.getPartidas());
+                salida.writeLong(jugador.getGanadas());
+                salida.writeLong(jugador.getJugadas());
+                salida.writeLong(jugador.getTiempoTotalMicros());
+                salida.writeLong(jugador.getGanadas() == 0 ? Long.MAX_VALUE : jugador.getMejorTiempoMicros());
+            }
+            salida.writeInt(clasificaciones.size());
+            for (Map.Entry<Configuracion, Clasificacion> entrada : clasificaciones.entrySet()) {
+                salida.writeInt(entrada.getKey().filas);
+                salida.writeInt(entrada.getKey().columnas);
+                salida.writeInt(entrada.getKey().minas);
+                Clasificacion clasificacion = entrada.getValue();
+                salida.writeInt(clasificacion.cantidad);
+                for (int k = 0; k < clasificacion.cantidad; k++) {
+                    ResultadoPartida resultado = clasificacion.mejores[k];
+                    salida.writeInt(ids.get(resultado.getJugador()));
+                    salida.writeLong(resultado.getSemilla());
+                    salida.writeLong(resultado.getDuracionMicros());
+                    salida.writeInt(resultado.getJugadas());
+                    salida.writeLong(resultado.getFecha());
+                }
+            }
+        }
+        Files.move(temporal, archivoIndice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Escribe lo pendiente, guarda la foto del índice y cierra los archivos.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            guardarIndice();
+        } finally {
+            canal.close();
+            salidaJugadores.close();
+        }
+    }
+
+    /**
+     * Filas, columnas y minas de un tablero: la clave de cada clasificación.
+     */
+    private static final class Configuracion {
+        int filas;
+        int columnas;
+        int minas;
+
+        Configuracion(int filas, int columnas, int minas) {
+            fijar(filas, columnas, minas);
+        }
+
+        Configuracion fijar(int filas, int columnas, int minas) {
+            this.filas = filas;
+            this.columnas = columnas;
+            this.minas = minas;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            return otro instanceof Configuracion c && c.filas == filas && c.columnas == columnas && c.minas == minas;
+        }
+
+        @Override
+        public int hashCode() {
+            return (filas * 31 + columnas) * 31 + minas;
+        }
+    }
+
+    /**
+     * Las partidas ganadas más rápidas de una configuración, ordenadas por duración. Una
+     * partida que no mejora a la última (el caso común) se descarta con una comparación.
+     */
+    private static final class Clasificacion {
+        final ResultadoPartida[] mejores;
+        int cantidad;
+
+        Clasificacion(int capacidad) {
+            mejores = new ResultadoPartida[capacidad];
+        }
+
+        boolean admite(long duracion) {
+            return cantidad < mejores.length || duracion < mejores[cantidad - 1].getDuracionMicros();
+        }
+
+        // Inserta después de las de igual duración: a igual tiempo queda primero la más antigua
+        void insertar(ResultadoPartida resultado) {
+            int desde = 0;
+            int hasta = cantidad;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (mejores[medio].getDuracionMicros() <= resultado.getDuracionMicros()) desde = medio + 1;
+                else hasta = medio;
+            }
+            if (cantidad < mejores.length) cantidad++;
+            System.arraycopy(mejores, desde, mejores, desde + 1, cantidad - 1 - desde);
+            mejores[desde] = resultado;
+        }
+    }
+}
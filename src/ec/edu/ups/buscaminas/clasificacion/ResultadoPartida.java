@@ -0,0 +1,49 @@
+package ec.edu.ups.buscaminas.clasificacion;
+
+/**
+ * Una partida terminada: quién la jugó, con qué tablero, cuánto tardó y cómo terminó.
+ */
+public final class ResultadoPartida {
+    private final String jugador;
+    private final long semilla;
+    private final int filas;
+    private final int columnas;
+    private final int minas;
+    private final long duracionMicros;
+    private final int jugadas;
+    private final boolean ganada;
+    private final long fecha;
+
+    /**
+     * @param semilla semilla del tablero (0 si no se conoce).
+     * @param fecha momento en que terminó, en milisegundos desde 1970.
+     */
+    public ResultadoPartida(String jugador, long semilla, int filas, int columnas, int minas,
+                            long duracionMicros, int jugadas, boolean ganada, long fecha) {
+        this.jugador = jugador;
+        this.semilla = semilla;
+        this.filas = filas;
+        this.columnas = columnas;
+        this.minas = minas;
+        this.duracionMicros = duracionMicros;
+        this.jugadas = jugadas;
+        this.ganada = ganada;
+        this.fecha = fecha;
+    }
+
+    public String getJugador() { return jugador; }
+    public long getSemilla() { return semilla; }
+    public int getFilas() { return filas; }
+    public int getColumnas() { return columnas; }
+    public int getMinas() { return minas; }
+    public long getDuracionMicros() { return duracionMicros; }
+    public int getJugadas() { return jugadas; }
+    public boolean isGanada() { return ganada; }
+    public long getFecha() { return fecha; }
+
+    @Override
+    public String toString() {
+        return String.format("%s %dx%d/%d %s en %.3f s, %d jugadas (semilla %d)", jugador, filas, columnas, minas,
+                ganada ? "ganada" : "perdida", duracionMicros / 1e6, jugadas, semilla);
+    }
+}
@@ -1,9 +1,21 @@
 package ec.edu.ups.buscaminas.controlador;
 
+import ec.edu.ups.buscaminas.clasificacion.EstadisticasJugador;
+import ec.edu.ups.buscaminas.clasificacion.RegistroPartidas;
+import ec.edu.ups.buscaminas.clasificacion.ResultadoPartida;
 import ec.edu.ups.buscaminas.excepciones.*;
+import ec.edu.ups.buscaminas.metricas.Metricas;
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
 import ec.edu.ups.buscaminas.modelo.Juego;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.ResultadoJugada;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import ec.edu.ups.buscaminas.solver.Pista;
+import ec.edu.ups.buscaminas.solver.Solucionador;
+import ec.edu.ups.buscaminas.vista.Coordenadas;
 import ec.edu.ups.buscaminas.vista.VistaConsola;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Componente CONTROLADOR del patrón MVC.
@@ -11,12 +23,39 @@ import java.io.IOException;
  * Gestiona el flujo del programa y el manejo de excepciones.
  */
 public class ControladorJuego {
+    // Bitácora de jugadas para recuperar la partida tras un cierre inesperado
+    private static final String ARCHIVO_BITACORA = "buscaminas.bitacora";
+    // Deshacer/rehacer: hasta 1M de enteros (4 MB) en memoria y el resto en disco
+    private static final int HISTORIAL_EN_MEMORIA = 1 << 20;
+    private static final String ARCHIVO_HISTORIAL = "buscaminas.historial";
+
     private Juego modelo;
     private VistaConsola vista;
+    // El controlador es un cliente más del motor headless; el delta se reutiliza en cada jugada
+    private MotorJuego motor;
+    private final DeltaJugadas delta = new DeltaJugadas();
+    // Se crea al pedir la primera pista y se mantiene al día con el delta de cada jugada;
+    // si se carga o recupera otra partida cambia el tablero y se vuelve a crear
+    private Solucionador solucionador;
+    // Historial de partidas terminadas (opcional): duración y jugadas de la partida en curso
+    private RegistroPartidas registro;
+    private String jugador;
+    private long inicioPartida = System.nanoTime();
+    private int jugadas;
 
     public ControladorJuego(Juego modelo, VistaConsola vista) {
         this.modelo = modelo;
         this.vista = vista;
+        this.motor = new MotorJuego(modelo);
+        activarHistorial();
+    }
+
+    /**
+     * Registra cada partida terminada en 'registro' a nombre de 'jugador'.
+     */
+    public void setRegistro(RegistroPartidas registro, String jugador) {
+        this.registro = registro;
+        this.jugador = jugador;
     }
 
     /**
@@ -38,10 +77,10 @@ public class ControladorJuego {
 
             switch (opcion) {
                 case 1: // Descubrir
-                    procesarAccion(true);
+                    procesarAccion(MotorJuego.DESCUBRIR);
                     break;
                 case 2: // Bandera
-                    procesarAccion(false);
+                    procesarAccion(MotorJuego.BANDERA);
                     break;
                 case 3: // Guardar
                     try {
@@ -54,14 +93,70 @@ public class ControladorJuego {
                 case 4: // Cargar
                     try {
                         modelo.cargarJuego("buscaminas.dat");
+                        reiniciarCronometro();
                         vista.mostrarMensaje("Juego cargado. El tablero se ha actualizado.");
                     } catch (Exception e) {
                         vista.mostrarMensaje("Error al cargar (puede que el archivo no exista): " + e.getMessage());
                     }
                     break;
                 case 5:
+                    try {
+                        modelo.cerrar();
+                    } catch (IOException e) {
+                        vista.mostrarMensaje("Error de I/O al cerrar: " + e.getMessage());
+                    }
                     salir = true;
                     break;
+                case 6: // Recuperar desde la bitácora
+                    try {
+                        Juego recuperado = Juego.recuperar(ARCHIVO_BITACORA, 1);
+                        modelo.cerrar();
+                        modelo = recuperado;
+                        motor = new MotorJuego(modelo);
+                        activarHistorial();
+                        reiniciarCronometro();
+                        vista.mostrarMensaje("Partida recuperada desde la bitácora.");
+                    } catch (IOException e) {
+                        vista.mostrarMensaje("No se pudo recuperar la partida: " + e.getMessage());
+                    }
+                    break;
+                case 7: // Mover la vista
+                    procesarDesplazamiento();
+                    break;
+                case 8: // Ir a coordenada
+                    try {
+                        int[] destino = convertirCoordenada(vista.pedirCoordenada());
+                        if (destino[0] >= modelo.getTablero().getFilas() || destino[1] < 0
+                                || destino[1] >= modelo.getTablero().getColumnas())
+                            throw new CoordenadaInvalidaException("Coordenada fuera de rango.");
+                        vista.centrarVista(destino[0], destino[1]);
+                    } catch (CoordenadaInvalidaException e) {
+                        vista.mostrarMensaje("Error de Lógica: " + e.getMessage());
+                    }
+                    break;
+                case 9: // Minimapa
+                    vista.mostrarMinimapa(modelo.getTablero());
+                    break;
+                case 10: // Pista
+                    mostrarPista();
+                    break;
+                case 11: // Resolver automáticamente (solo jugadas seguras)
+                    resolverSeguras();
+                    break;
+                case 12: // Acorde
+                    procesarAccion(MotorJuego.ACORDE);
+                    break;
+                case 13: // Deshacer
+                case 14: // Rehacer
+                    procesarHistorial(opcion == 14);
+                    break;
+                case 15: // Métricas
+                    vista.mostrarMensaje(Metricas.isActivas() ? Metricas.resumen()
+                            : "Las métricas están desactivadas (inicie con --metricas).");
+                    break;
+                case 16: // Clasificación
+                    mostrarClasificacion();
+                    break;
                 default:
                     vista.mostrarMensaje("Opción no válida.");
             }
@@ -73,59 +168,240 @@ public class ControladorJuego {
                 vista.mostrarMensaje("    ¡FELICIDADES! HAS COMPLETADO EL CAMPO    ");
                 vista.mostrarMensaje("*************************************************");
                 modelo.setJuegoTerminado(true);
+                registrarResultado(true);
             }
         }
     }
 
     /**
-     * Procesa la lógica de coordenadas y maneja las excepciones específicas.
-     * @param esDescubrir true si la acción es revelar, false si es poner bandera.
+     * Procesa la lógica de coordenadas y aplica la jugada a través del MotorJuego;
+     * el resultado llega como código (ResultadoJugada) y no como excepción.
+     * @param tipo MotorJuego.DESCUBRIR, MotorJuego.BANDERA o MotorJuego.ACORDE.
      */
-    private void procesarAccion(boolean esDescubrir) {
+    private void procesarAccion(byte tipo) {
         String coord = vista.pedirCoordenada();
         try {
             int[] indices = convertirCoordenada(coord);
             int f = indices[0];
             int c = indices[1];
+            // En tableros grandes la vista sigue a la jugada para que se vea el resultado
+            if (f < modelo.getTablero().getFilas() && c >= 0 && c < modelo.getTablero().getColumnas()) {
+                vista.asegurarVisible(f, c);
+            }
+
+            // La bitácora se activa con la primera jugada (cada jugada se escribe al momento)
+            if (!modelo.tieneBitacora()) {
+                modelo.activarBitacora(ARCHIVO_BITACORA, 1);
+            }
 
-            if (esDescubrir) {
-                boolean exploto = modelo.getTablero().descubrirCasilla(f, c);
-                if (exploto) {
-                    modelo.setJuegoTerminado(true);
+            int resultado = motor.aplicar(tipo, f, c, delta);
+            if (solucionador != null) solucionador.actualizar(delta);
+            if (resultado == ResultadoJugada.OK || resultado == ResultadoJugada.MINA) jugadas++;
+            switch (resultado) {
+                case ResultadoJugada.MINA:
                     vista.mostrarTablero(modelo.getTablero(), true); // Revelamos las minas
                     vista.mostrarMensaje("\n*************************************************");
                     vista.mostrarMensaje("       BOOM! HAS PISADO UNA MINA :(      ");
                     vista.mostrarMensaje("*************************************************");
-                }
-            } else {
-                modelo.getTablero().alternarBandera(f, c);
+                    registrarResultado(false);
+                    break;
+                case ResultadoJugada.FUERA_DE_RANGO:
+                    vista.mostrarMensaje("Error de Lógica: " + ResultadoJugada.describir(resultado));
+                    break;
+                case ResultadoJugada.YA_DESCUBIERTA:
+                    // Poner bandera en una casilla descubierta simplemente no hace nada
+                    if (tipo == MotorJuego.DESCUBRIR) {
+                        vista.mostrarMensaje("Error de Lógica: " + ResultadoJugada.describir(resultado));
+                    }
+                    break;
+                case ResultadoJugada.SIN_EFECTO:
+                    vista.mostrarMensaje("Acorde sin efecto: la casilla debe ser un número descubierto "
+                            + "con tantas banderas vecinas como su valor.");
+                    break;
+                default:
+                    break;
             }
 
-        } catch (CoordenadaInvalidaException | CasillaYaDescubiertaException e) {
+        } catch (CoordenadaInvalidaException e) {
             // Manejo de nuestras excepciones personalizadas
             vista.mostrarMensaje("Error de Lógica: " + e.getMessage());
-        } catch (Exception e) {
-            // Manejo genérico para errores de formato
-            vista.mostrarMensaje("Entrada inválida. Formato esperado: LetraNumero (Ej: A5)");
+        } catch (IOException e) {
+            vista.mostrarMensaje("Error de I/O en la bitácora: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deshace o rehace la última jugada con el motor.
+     */
+    private void procesarHistorial(boolean rehacer) {
+        try {
+            int resultado = rehacer ? motor.rehacer(delta) : motor.deshacer(delta);
+            if (resultado == ResultadoJugada.SIN_EFECTO) {
+                vista.mostrarMensaje(rehacer ? "No hay jugadas para rehacer." : "No hay jugadas para deshacer.");
+                return;
+            }
+            // Cada jugada del historial contó como una jugada de la partida
+            jugadas = rehacer ? jugadas + 1 : Math.max(0, jugadas - 1);
+            // El solver solo avanza: tras volver atrás se reconstruye en la próxima pista
+            solucionador = null;
+            if (resultado == ResultadoJugada.MINA) {
+                vista.mostrarTablero(modelo.getTablero(), true);
+                vista.mostrarMensaje("Se rehizo la jugada que pisó una mina.");
+            }
+        } catch (IOException e) {
+            vista.mostrarMensaje("Error de I/O en el historial: " + e.getMessage());
+        }
+    }
+
+    private void activarHistorial() {
+        try {
+            modelo.activarHistorial(HISTORIAL_EN_MEMORIA, ARCHIVO_HISTORIAL);
+        } catch (IOException e) {
+            vista.mostrarMensaje("No se pudo activar deshacer/rehacer: " + e.getMessage());
         }
     }
 
     /**
-     * Convierte la cadena "A5" a índices de matriz [0, 4].
+     * Muestra la siguiente jugada sugerida por el solver sin aplicarla.
+     */
+    private void mostrarPista() {
+        Pista pista = obtenerSolucionador().pista();
+        if (pista == null) {
+            vista.mostrarMensaje("No hay jugadas por sugerir.");
+            return;
+        }
+        Tablero tablero = modelo.getTablero();
+        int f = pista.getIndice() / tablero.getColumnas();
+        int c = pista.getIndice() % tablero.getColumnas();
+        String casilla = Coordenadas.etiquetaFila(f) + (c + 1);
+        vista.asegurarVisible(f, c);
+        if (pista.getTipo() == MotorJuego.BANDERA) {
+            vista.mostrarMensaje("Pista: " + casilla + " es una mina, márquela con bandera.");
+        } else if (pista.isSegura()) {
+            vista.mostrarMensaje("Pista: " + casilla + " es segura, descúbrala.");
+        } else {
+            vista.mostrarMensaje(String.format("Pista: no hay casillas seguras; %s tiene %.0f%% de probabilidad de mina.",
+                    casilla, pista.getProbabilidadMina() * 100));
+        }
+    }
+
+    /**
+     * Descubre todas las casillas que el solver puede demostrar seguras; nunca adivina.
+     */
+    private void resolverSeguras() {
+        try {
+            if (!modelo.tieneBitacora()) {
+                modelo.activarBitacora(ARCHIVO_BITACORA, 1);
+            }
+            int jugadas = obtenerSolucionador().resolver(motor, false, Integer.MAX_VALUE);
+            this.jugadas += jugadas;
+            vista.mostrarMensaje(jugadas == 0 ? "No hay casillas seguras por descubrir; hace falta adivinar."
+                    : "Se descubrieron " + jugadas + " casillas seguras.");
+        } catch (IOException e) {
+            vista.mostrarMensaje("Error de I/O en la bitácora: " + e.getMessage());
+        }
+    }
+
+    private void reiniciarCronometro() {
+        inicioPartida = System.nanoTime();
+        jugadas = 0;
+    }
+
+    /**
+     * Agrega la partida que acaba de terminar al historial, si hay uno.
+     */
+    private void registrarResultado(boolean ganada) {
+        if (registro == null) return;
+        Tablero tablero = modelo.getTablero();
+        Long semilla = modelo.getSemilla();
+        try {
+            registro.registrar(new ResultadoPartida(jugador, semilla != null ? semilla : 0, tablero.getFilas(),
+                    tablero.getColumnas(), tablero.getTotalMinas(), (System.nanoTime() - inicioPartida) / 1000,
+                    jugadas, ganada, System.currentTimeMillis()));
+            registro.sincronizar();
+        } catch (IOException e) {
+            vista.mostrarMensaje("No se pudo registrar la partida: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Muestra las 10 mejores partidas de la configuración actual y las estadísticas del jugador.
+     */
+    private void mostrarClasificacion() {
+        if (registro == null) {
+            vista.mostrarMensaje("El historial de partidas está desactivado (inicie con --registro).");
+            return;
+        }
+        Tablero tablero = modelo.getTablero();
+        List<ResultadoPartida> mejores = registro.mejores(tablero.getFilas(), tablero.getColumnas(), tablero.getTotalMinas(), 10);
+        StringBuilder texto = new StringBuilder(String.format("Mejores tiempos en %dx%d con %d minas:%n",
+                tablero.getFilas(), tablero.getColumnas(), tablero.getTotalMinas()));
+        if (mejores.isEmpty()) texto.append("  (sin partidas ganadas)").append(System.lineSeparator());
+        for (int i = 0; i < mejores.size(); i++) {
+            ResultadoPartida resultado = mejores.get(i);
+            texto.append(String.format("%3d. %-20s %10.3f s %8d jugadas%n", i + 1, resultado.getJugador(),
+                    resultado.getDuracionMicros() / 1e6, resultado.getJugadas()));
+        }
+        EstadisticasJugador estadisticas = registro.estadisticas(jugador);
+        texto.append(jugador).append(": ").append(estadisticas != null ? estadisticas : "sin partidas registradas");
+        vista.mostrarMensaje(texto.toString());
+    }
+
+    private Solucionador obtenerSolucionador() {
+        if (solucionador == null || solucionador.getTablero() != modelo.getTablero()) {
+            solucionador = new Solucionador(modelo.getTablero());
+        }
+        return solucionador;
+    }
+
+    /**
+     * Interpreta "D", "S15", etc.: W/A/S/D mueven la vista arriba/izquierda/abajo/derecha.
+     * Sin número se mueve una página (el alto o el ancho de la vista).
+     */
+    private void procesarDesplazamiento() {
+        String entrada = vista.pedirDesplazamiento();
+        if (entrada.isEmpty() || "WASD".indexOf(entrada.charAt(0)) < 0) {
+            vista.mostrarMensaje("Dirección inválida. Use W, A, S o D (ej. D o S15).");
+            return;
+        }
+        char direccion = entrada.charAt(0);
+        int cantidad;
+        try {
+            cantidad = entrada.length() > 1 ? Integer.parseInt(entrada.substring(1).trim())
+                    : (direccion == 'W' || direccion == 'S' ? vista.getAltoVista() : vista.getAnchoVista());
+        } catch (NumberFormatException e) {
+            vista.mostrarMensaje("La cantidad de casillas no es válida.");
+            return;
+        }
+        switch (direccion) {
+            case 'W': vista.desplazarVista(-cantidad, 0); break;
+            case 'S': vista.desplazarVista(cantidad, 0); break;
+            case 'A': vista.desplazarVista(0, -cantidad); break;
+            default:  vista.desplazarVista(0, cantidad);
+        }
+    }
+
+    /**
+     * Convierte la cadena "A5" (o "AB120" en tableros grandes) a índices de matriz [0, 4].
+     * Las letras iniciales indican la fila y los dígitos finales la columna.
      */
     private int[] convertirCoordenada(String coord) throws CoordenadaInvalidaException {
         if (coord == null || coord.length() < 2) 
             throw new CoordenadaInvalidaException("La coordenada es muy corta.");
-        
-        char letra = coord.charAt(0);
-        String numStr = coord.substring(1);
-        
-        // Operación ASCII: 'A' - 'A' = 0, 'B' - 'A' = 1, etc.
-        int fila = letra - 'A';
-        
+
+        // Separamos el prefijo de letras del sufijo numérico
+        int corte = 0;
+        while (corte < coord.length() && Character.isLetter(coord.charAt(corte))) corte++;
+        if (corte == 0 || corte == coord.length())
+            throw new CoordenadaInvalidaException("Formato esperado: LetrasNumero (Ej: A5, AB12).");
+
+        int fila = Coordenadas.indiceFila(coord.substring(0, corte));
+        if (fila < 0)
+            throw new CoordenadaInvalidaException("La fila no es válida.");
+
         int col;
         try {
-            col = Integer.parseInt(numStr) - 1; // Restamos 1 porque el array empieza en 0
+            col = Integer.parseInt(coord.substring(corte)) - 1; // Restamos 1 porque el array empieza en 0
         } catch (NumberFormatException e) {
             throw new CoordenadaInvalidaException("El número de columna no es válido.");
         }
@@ -3,9 +3,11 @@ package ec.edu.ups.buscaminas.excepciones;
 /**
  * Excepción personalizada para validar la lógica del juego.
  * Se lanza cuando el usuario intenta seleccionar una casilla que ya ha sido revelada previamente.
+ * No guarda traza de pila: señala una situación normal del juego y no un error del programa,
+ * así que crearla cuesta lo mismo que un objeto cualquiera.
  */
 public class CasillaYaDescubiertaException extends Exception {
     public CasillaYaDescubiertaException(String mensaje) {
-        super(mensaje);
+        super(mensaje, null, false, false);
     }
 }
\ No newline at end of file
@@ -4,9 +4,11 @@ package ec.edu.ups.buscaminas.excepciones;
  * Excepción personalizada para el manejo de entradas.
  * Se utiliza cuando el usuario ingresa coordenadas fuera del rango del tablero (ej: Z99)
  * o con un formato incorrecto.
+ * No guarda traza de pila: señala una situación normal del juego y no un error del programa,
+ * así que crearla cuesta lo mismo que un objeto cualquiera.
  */
 public class CoordenadaInvalidaException extends Exception {
     public CoordenadaInvalidaException(String mensaje) {
-        super(mensaje);
+        super(mensaje, null, false, false);
     }
 }
\ No newline at end of file
@@ -1,23 +1,193 @@
 package ec.edu.ups.buscaminas.main;
 
+import ec.edu.ups.buscaminas.clasificacion.RegistroPartidas;
 import ec.edu.ups.buscaminas.controlador.ControladorJuego;
+import ec.edu.ups.buscaminas.metricas.ExportadorMetricas;
+import ec.edu.ups.buscaminas.metricas.Metricas;
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
 import ec.edu.ups.buscaminas.modelo.Juego;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import ec.edu.ups.buscaminas.simulacion.EstrategiaAleatoria;
+import ec.edu.ups.buscaminas.simulacion.SimuladorPartidas;
+import ec.edu.ups.buscaminas.servidor.ServidorSesiones;
+import ec.edu.ups.buscaminas.solver.GeneradorSinAdivinar;
 import ec.edu.ups.buscaminas.vista.VistaConsola;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Punto de entrada de la aplicación.
  * Se encarga de ensamblar las dependencias del patrón MVC.
  */
 public class Main {
-    public static void main(String[] args) {
+    // Con --metricas el resumen se vuelca a este archivo cada 10 segundos
+    private static final String ARCHIVO_METRICAS = "buscaminas.metricas";
+    private static final long PERIODO_METRICAS_MILLIS = 10_000;
+    // Con --registro cada partida terminada se agrega a este historial (clasificación de 100 puestos)
+    private static final String ARCHIVO_PARTIDAS = "buscaminas.partidas";
+    private static final int PUESTOS_CLASIFICACION = 100;
+    private static final String USO = String.join(System.lineSeparator(),
+            "Uso: Main [--diferencial] [--sin-adivinar] [--metricas] [--registro] [filas columnas minas [archivo]]",
+            "     Main [--sin-adivinar] [--registro] --simular partidas filas columnas minas [hilos [semilla]]",
+            "     Main --servidor puerto [directorio [minutosInactividad]]");
+
+    /**
+     * Uso: Main [--diferencial] [--sin-adivinar] [--metricas] [--registro] [filas columnas minas [archivo]]. Sin argumentos se juega
+     * el tablero clásico de 10x10.
+     * Con 'archivo' el tablero se proyecta en ese archivo (se crea si no existe) en lugar del heap.
+     * Con --diferencial solo se redibujan las filas que cambian (requiere una terminal ANSI).
+     * Con --sin-adivinar el tablero se resuelve sin adivinar y la partida empieza con el centro descubierto.
+     * Con --metricas se miden las jugadas, el dibujo y el guardado (opción 15 del menú y archivo
+     * buscaminas.metricas); también emite eventos de JFR si hay una grabación activa.
+     * Con --registro las partidas terminadas (también las simuladas) se guardan en buscaminas.partidas,
+     * con clasificación por tablero y estadísticas por jugador (opción 16 del menú).
+     * Main [--sin-adivinar] --simular partidas filas columnas minas [hilos [semilla]] juega partidas sin
+     * consola con la estrategia aleatoria y muestra las estadísticas.
+     * Main --servidor puerto [directorio [minutosInactividad]] atiende partidas por socket en localhost
+     * (ver ServidorSesiones).
+     */
+    public static void main(String[] args) throws IOException {
+        boolean diferencial = false;
+        boolean sinAdivinar = false;
+        boolean metricas = false;
+        boolean registrar = false;
+        while (args.length > 0 && (args[0].equals("--diferencial") || args[0].equals("--sin-adivinar")
+                || args[0].equals("--metricas") || args[0].equals("--registro"))) {
+            if (args[0].equals("--diferencial")) diferencial = true;
+            else if (args[0].equals("--sin-adivinar")) sinAdivinar = true;
+            else if (args[0].equals("--registro")) registrar = true;
+            else metricas = true;
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        ExportadorMetricas exportador = null;
+        if (metricas) {
+            Metricas.activar(true);
+            exportador = new ExportadorMetricas(Path.of(ARCHIVO_METRICAS), PERIODO_METRICAS_MILLIS);
+        }
+        if (args.length >= 2 && args[0].equals("--servidor")) {
+            servir(args, exportador);
+            return;
+        }
+        RegistroPartidas registro = registrar ? new RegistroPartidas(Path.of(ARCHIVO_PARTIDAS), PUESTOS_CLASIFICACION) : null;
+        try {
+            if (args.length >= 5 && args[0].equals("--simular")) {
+                simular(args, sinAdivinar, registro);
+            } else {
+                jugar(args, diferencial, sinAdivinar, registro);
+            }
+        } finally {
+            if (registro != null) registro.close();
+            if (exportador != null) exportador.close();
+        }
+    }
+
+    // Un número mal escrito o un tablero imposible en los argumentos: se muestra el uso en lugar de la traza
+    private static void argumentoNoValido(IllegalArgumentException e) {
+        System.err.println("Argumento no válido: " + e.getMessage());
+        System.err.println(USO);
+    }
+
+    private static void jugar(String[] args, boolean diferencial, boolean sinAdivinar, RegistroPartidas registro)
+            throws IOException {
         // Instanciación de componentes
-        Juego modelo = new Juego();
+        Juego modelo;
+        try {
+            modelo = crearModelo(args, sinAdivinar);
+        } catch (IllegalArgumentException e) {
+            argumentoNoValido(e);
+            return;
+        }
         VistaConsola vista = new VistaConsola();
+        vista.setRedibujoParcial(diferencial);
         
         // Inyección de dependencias en el controlador
         ControladorJuego controlador = new ControladorJuego(modelo, vista);
+        if (registro != null) controlador.setRegistro(registro, System.getProperty("user.name"));
         
         // Inicio del flujo de la aplicación
         controlador.iniciarJuego();
     }
-}
\ No newline at end of file
+
+    private static Juego crearModelo(String[] args, boolean sinAdivinar) throws IOException {
+        Juego modelo;
+        if (args.length >= 4) {
+            Path archivo = Path.of(args[3]);
+            modelo = new Juego(Files.exists(archivo)
+                    ? Tablero.abrirMapeado(archivo)
+                    : Tablero.crearMapeado(archivo, Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                                           Integer.parseInt(args[2]), new Random()));
+        } else if (sinAdivinar) {
+            int filas = args.length >= 3 ? Integer.parseInt(args[0]) : 10;
+            int columnas = args.length >= 3 ? Integer.parseInt(args[1]) : 10;
+            int minas = args.length >= 3 ? Integer.parseInt(args[2]) : 10;
+            modelo = new Juego(new GeneradorSinAdivinar(filas, columnas, minas, filas / 2, columnas / 2)
+                    .generar(new Random().nextLong(), 0).construir());
+            // El tablero solo garantiza que no hay que adivinar a partir de este primer clic
+            new MotorJuego(modelo).aplicar(MotorJuego.DESCUBRIR, filas / 2, columnas / 2, new DeltaJugadas());
+        } else if (args.length >= 3) {
+            modelo = new Juego(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        } else {
+            modelo = new Juego();
+        }
+        return modelo;
+    }
+
+    private static void servir(String[] args, ExportadorMetricas exportador) throws IOException {
+        Path directorio = Path.of(args.length >= 3 ? args[2] : "sesiones");
+        ServidorSesiones servidor;
+        try {
+            long minutos = args.length >= 4 ? Long.parseLong(args[3]) : 10;
+            servidor = new ServidorSesiones(new InetSocketAddress("localhost", Integer.parseInt(args[1])),
+                    directorio, minutos * 60_000, 0);
+        } catch (IllegalArgumentException e) {
+            if (exportador != null) exportador.close();
+            argumentoNoValido(e);
+            return;
+        } catch (IOException | RuntimeException e) {
+            if (exportador != null) exportador.close();
+            throw e;
+        }
+        // El servidor corre hasta que se termina el proceso (Ctrl-C): recién ahí se guardan las sesiones
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> cerrarServidor(servidor, exportador), "buscaminas-cierre"));
+        servidor.iniciar();
+        System.out.println("Servidor de partidas en el puerto " + servidor.getPuerto() + ", sesiones en " + directorio);
+    }
+
+    private static void cerrarServidor(ServidorSesiones servidor, ExportadorMetricas exportador) {
+        try {
+            servidor.close();
+        } catch (IOException e) {
+            System.err.println("No se pudieron guardar todas las sesiones: " + e.getMessage());
+        } finally {
+            try {
+                if (exportador != null) exportador.close();
+            } catch (IOException e) {
+                System.err.println("No se pudieron escribir las métricas: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void simular(String[] args, boolean sinAdivinar, RegistroPartidas registro) {
+        int partidas;
+        int hilos;
+        long semilla;
+        SimuladorPartidas simulador;
+        try {
+            partidas = Integer.parseInt(args[1]);
+            hilos = args.length >= 6 ? Integer.parseInt(args[5]) : 0;
+            semilla = args.length >= 7 ? Long.parseLong(args[6]) : new Random().nextLong();
+            simulador = new SimuladorPartidas(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]), EstrategiaAleatoria::new, sinAdivinar);
+        } catch (IllegalArgumentException e) {
+            argumentoNoValido(e);
+            return;
+        }
+        System.out.println("Semilla: " + semilla);
+        System.out.println(simulador.ejecutar(semilla, partidas, hilos, registro));
+    }
+}
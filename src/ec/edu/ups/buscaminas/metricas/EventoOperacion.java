@@ -0,0 +1,28 @@
+package ec.edu.ups.buscaminas.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento de Java Flight Recorder por operación medida. Se emite solo con las métricas activas
+ * y una grabación de JFR que lo habilite (ej. -XX:StartFlightRecording).
+ */
+@Name("ec.edu.ups.buscaminas.Operacion")
+@Label("Operación de Buscaminas")
+@Category("Buscaminas")
+@StackTrace(false)
+final class EventoOperacion extends Event {
+    @Label("Operación")
+    String operacion;
+
+    @Label("Celdas")
+    int celdas;
+
+    @Label("Duración")
+    @Timespan(Timespan.NANOSECONDS)
+    long duracion;
+}
@@ -0,0 +1,57 @@
+package ec.edu.ups.buscaminas.metricas;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escribe Metricas.resumen() en un archivo cada cierto tiempo desde un hilo propio (daemon).
+ * Cada escritura va a un archivo temporal que luego reemplaza al anterior, así quien lo lea
+ * nunca ve un resumen a medias. Al cerrarlo se escribe una última vez.
+ */
+public class ExportadorMetricas implements Closeable {
+    private final Path archivo;
+    private final ScheduledExecutorService programador;
+
+    public ExportadorMetricas(Path archivo, long periodoMillis) {
+        this.archivo = archivo.toAbsolutePath();
+        this.programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "buscaminas-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleAtFixedRate(() -> {
+            try {
+                exportar();
+            } catch (IOException e) {
+                // Se reintenta en el próximo periodo
+            }
+        }, periodoMillis, periodoMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Escribe el resumen actual.
+     */
+    public void exportar() throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Files.writeString(temporal, Metricas.resumen(), StandardCharsets.UTF_8);
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        programador.shutdown();
+        try {
+            programador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exportar();
+    }
+}
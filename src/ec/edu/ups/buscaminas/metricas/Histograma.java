@@ -0,0 +1,79 @@
+package ec.edu.ups.buscaminas.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de valores no negativos al estilo HDR: cubetas de ancho exacto hasta 16 y, por
+ * encima, 16 subcubetas por cada potencia de dos (error relativo menor a 6,25%). Cubre todo el
+ * rango de long con 960 contadores fijos, así que registrar no crea objetos ni toma candados:
+ * solo incrementos atómicos.
+ */
+public final class Histograma {
+    private static final int BITS_SUB = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUB;
+    private static final int CUBETAS = (63 - BITS_SUB + 1) * SUBCUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long valor) {
+        if (valor < 0) valor = 0;
+        cubetas.incrementAndGet(cubeta(valor));
+        cantidad.increment();
+        suma.add(valor);
+        long actual;
+        while (valor > (actual = maximo.get()) && !maximo.compareAndSet(actual, valor)) {
+            // Otro hilo subió el máximo: se vuelve a comparar
+        }
+    }
+
+    public long getCantidad() { return cantidad.sum(); }
+    public long getMaximo() { return maximo.get(); }
+
+    public double getMedia() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    /**
+     * Valor bajo el cual está la fracción 'p' (0..1) de los registros, con la precisión de
+     * las cubetas (se devuelve el mayor valor de la cubeta, sin pasar del máximo visto).
+     */
+    public long percentil(double p) {
+        long n = cantidad.sum();
+        if (n == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(p * n));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                long mayor = i + 1 < CUBETAS ? limiteInferior(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(mayor, maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) cubetas.set(i, 0);
+        cantidad.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+
+    static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) return (int) valor;
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        return ((exponente - BITS_SUB + 1) << BITS_SUB) | (int) ((valor >>> (exponente - BITS_SUB)) & (SUBCUBETAS - 1));
+    }
+
+    static long limiteInferior(int cubeta) {
+        if (cubeta < SUBCUBETAS) return cubeta;
+        int exponente = (cubeta >>> BITS_SUB) + BITS_SUB - 1;
+        return (long) (SUBCUBETAS | (cubeta & (SUBCUBETAS - 1))) << (exponente - BITS_SUB);
+    }
+}
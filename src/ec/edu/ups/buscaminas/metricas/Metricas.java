@@ -0,0 +1,128 @@
+package ec.edu.ups.buscaminas.metricas;
+
+import jdk.jfr.EventType;
+
+/**
+ * Métricas de las operaciones calientes: cantidad de llamadas y latencia por operación, y
+ * celdas abiertas por jugada, en histogramas sin candados. Cada operación medida se escribe
+ * <pre>
+ * long inicio = Metricas.inicio();
+ * ... operación ...
+ * Metricas.registrar(Metricas.DESCUBRIR, inicio, celdasAbiertas);
+ * </pre>
+ * Desactivadas (por defecto), inicio() devuelve 0 sin leer el reloj y registrar() retorna de
+ * inmediato: el costo es leer un booleano y no se crea ningún objeto. Activadas, además se
+ * emite un EventoOperacion si hay una grabación de JFR que lo pida.
+ */
+public final class Metricas {
+    public static final int DESCUBRIR = 0;
+    public static final int BANDERA = 1;
+    public static final int ACORDE = 2;
+    public static final int VICTORIA = 3;
+    public static final int DIBUJAR = 4;
+    public static final int GUARDAR = 5;
+    public static final int CARGAR = 6;
+
+    private static final String[] NOMBRES = {
+            "descubrir", "bandera", "acorde", "victoria", "dibujar", "guardar", "cargar"};
+    private static final Histograma[] LATENCIAS = new Histograma[NOMBRES.length];
+    private static final Histograma[] CELDAS = new Histograma[NOMBRES.length];
+    private static final EventType TIPO_EVENTO = EventType.getEventType(EventoOperacion.class);
+
+    private static volatile boolean activas;
+
+    static {
+        for (int i = 0; i < NOMBRES.length; i++) {
+            LATENCIAS[i] = new Histograma();
+            CELDAS[i] = new Histograma();
+        }
+    }
+
+    private Metricas() {
+    }
+
+    public static void activar(boolean activar) {
+        activas = activar;
+    }
+
+    public static boolean isActivas() {
+        return activas;
+    }
+
+    /**
+     * Marca de tiempo para pasar a registrar(): System.nanoTime() con las métricas activas, 0 si no.
+     */
+    public static long inicio() {
+        return activas ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registra una operación que empezó en 'inicio' (0 = no medir).
+     */
+    public static void registrar(int operacion, long inicio) {
+        registrar(operacion, inicio, -1);
+    }
+
+    /**
+     * Registra una operación que empezó en 'inicio' (0 = no medir) y cambió 'celdas' casillas
+     * (-1 si no aplica).
+     */
+    public static void registrar(int operacion, long inicio, int celdas) {
+        if (inicio == 0) return;
+        long duracion = System.nanoTime() - inicio;
+        LATENCIAS[operacion].registrar(duracion);
+        if (celdas >= 0) CELDAS[operacion].registrar(celdas);
+        if (TIPO_EVENTO.isEnabled()) {
+            EventoOperacion evento = new EventoOperacion();
+            evento.operacion = NOMBRES[operacion];
+            evento.celdas = celdas;
+            evento.duracion = duracion;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Latencias en nanosegundos de una operación.
+     */
+    public static Histograma getLatencias(int operacion) {
+        return LATENCIAS[operacion];
+    }
+
+    /**
+     * Celdas cambiadas por llamada de una operación (descubrir, bandera y acorde).
+     */
+    public static Histograma getCeldas(int operacion) {
+        return CELDAS[operacion];
+    }
+
+    public static void reiniciar() {
+        for (int i = 0; i < NOMBRES.length; i++) {
+            LATENCIAS[i].reiniciar();
+            CELDAS[i].reiniciar();
+        }
+    }
+
+    /**
+     * Tabla de texto con las operaciones que tienen registros: llamadas, latencia media, p50,
+     * p99 y máxima en microsegundos, y celdas por llamada (media, p99, máxima).
+     */
+    public static String resumen() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format("%-10s %10s %10s %10s %10s %10s   %s%n",
+                "operación", "llamadas", "media µs", "p50 µs", "p99 µs", "máx µs", "celdas media/p99/máx"));
+        for (int i = 0; i < NOMBRES.length; i++) {
+            Histograma latencias = LATENCIAS[i];
+            if (latencias.getCantidad() == 0) continue;
+            texto.append(String.format("%-10s %10d %10.2f %10.2f %10.2f %10.2f", NOMBRES[i], latencias.getCantidad(),
+                    latencias.getMedia() / 1e3, latencias.percentil(0.5) / 1e3, latencias.percentil(0.99) / 1e3,
+                    latencias.getMaximo() / 1e3));
+            Histograma celdas = CELDAS[i];
+            if (celdas.getCantidad() > 0) {
+                texto.append(String.format("   %.1f/%d/%d", celdas.getMedia(), celdas.percentil(0.99), celdas.getMaximo()));
+            }
+            texto.append(System.lineSeparator());
+        }
+        if (!activas) texto.append("(métricas desactivadas)").append(System.lineSeparator());
+        return texto.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Archivo de tablero proyectado en memoria (MappedByteBuffer).
+ * Las celdas empaquetadas del Tablero viven directamente en el archivo: las jugadas
+ * escriben en las páginas proyectadas y el sistema operativo las lleva a disco cuando
+ * quiere. Abrir un tablero no lee ni copia las celdas, y su tamaño no cuenta para el heap.
+ * <pre>
+ *  offset  tamaño  contenido
+ *  0       4       "BUSM"
+ *  4       2       versión
+ *  6       2       estado: 1 = sincronizado (contadores válidos), 0 = en uso
+ *  8       4       filas
+ *  12      4       columnas
+ *  16      4       total de minas
+ *  20      4       casillas seguras por descubrir
+ *  24      4       banderas colocadas
+ *  28      4       reservado
+ *  32      n       celdas (1 byte por celda, mismo formato que en memoria)
+ * </pre>
+ * Si el proceso termina sin sincronizar, el estado queda "en uso" y los contadores se
+ * recalculan desde las celdas al abrir. Tras sincronizar o cerrar, la siguiente escritura
+ * vuelve a marcar el archivo "en uso" (ver enUso).
+ */
+final class ArchivoMapeado {
+    static final int MAGIA = 0x4255534D; // "BUSM"
+    static final short VERSION = 1;
+    static final int TAM_CABECERA = 32;
+
+    private static final short EN_USO = 0;
+    private static final short SINCRONIZADO = 1;
+    private static final int POS_ESTADO = 6;
+    private static final int POS_SEGURAS = 20;
+    private static final int POS_BANDERAS = 24;
+
+    private final Path ruta;
+    private final MappedByteBuffer mapa;
+    private final boolean sincronizadoAlAbrir;
+    // La cabecera dice SINCRONIZADO y todavía no hubo escrituras desde entonces
+    private boolean sincronizado;
+
+    private ArchivoMapeado(Path ruta, MappedByteBuffer mapa, boolean sincronizadoAlAbrir) {
+        this.ruta = ruta;
+        this.mapa = mapa;
+        this.sincronizadoAlAbrir = sincronizadoAlAbrir;
+        // Mientras esté abierto, un cierre abrupto debe forzar el recálculo de contadores
+        mapa.putShort(POS_ESTADO, EN_USO);
+        mapa.force(0, TAM_CABECERA);
+    }
+
+    /**
+     * Crea (o reemplaza) el archivo con todas las celdas en cero.
+     */
+    static ArchivoMapeado crear(Path ruta, int filas, int columnas, int totalMinas) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAM_CABECERA + (long) filas * columnas);
+            mapa.putInt(0, MAGIA).putShort(4, VERSION)
+                .putInt(8, filas).putInt(12, columnas).putInt(16, totalMinas);
+            return new ArchivoMapeado(ruta.toAbsolutePath(), mapa, false);
+        }
+    }
+
+    static ArchivoMapeado abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long tamano = canal.size();
+            if (tamano < TAM_CABECERA)
+                throw new StreamCorruptedException("El archivo no es un tablero proyectado.");
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+            if (mapa.getInt(0) != MAGIA)
+                throw new StreamCorruptedException("El archivo no es un tablero proyectado.");
+            if (mapa.getShort(4) != VERSION)
+                throw new StreamCorruptedException("Versión de tablero proyectado no soportada: " + mapa.getShort(4));
+            int filas = mapa.getInt(8);
+            int columnas = mapa.getInt(12);
+            if (filas <= 0 || columnas <= 0 || (long) filas * columnas > Tablero.MAX_CELDAS_MAPEADO
+                    || tamano != TAM_CABECERA + (long) filas * columnas)
+                throw new StreamCorruptedException("Dimensiones inválidas en el tablero proyectado.");
+            return new ArchivoMapeado(ruta.toAbsolutePath(), mapa, mapa.getShort(POS_ESTADO) == SINCRONIZADO);
+        }
+    }
+
+    /**
+     * Indica si el primer int del archivo corresponde a un tablero proyectado.
+     */
+    static boolean esMagia(int cabecera) {
+        return cabecera == MAGIA;
+    }
+
+    Path ruta() { return ruta; }
+    int filas() { return mapa.getInt(8); }
+    int columnas() { return mapa.getInt(12); }
+    int totalMinas() { return mapa.getInt(16); }
+    int seguras() { return mapa.getInt(POS_SEGURAS); }
+    int banderas() { return mapa.getInt(POS_BANDERAS); }
+
+    /**
+     * true si el archivo se cerró sincronizado y los contadores de la cabecera son confiables.
+     */
+    boolean sincronizadoAlAbrir() { return sincronizadoAlAbrir; }
+
+    /**
+     * Región de las celdas, respaldada por el archivo.
+     */
+    ByteBuffer celdas() {
+        return mapa.slice(TAM_CABECERA, filas() * columnas());
+    }
+
+    /**
+     * Guarda los contadores, marca el archivo como sincronizado y fuerza todas las páginas
+     * sucias a disco. La marca se mantiene hasta la siguiente escritura (ver enUso).
+     */
+    void sincronizar(int seguras, int banderas) {
+        mapa.putInt(POS_SEGURAS, seguras).putInt(POS_BANDERAS, banderas);
+        mapa.putShort(POS_ESTADO, SINCRONIZADO);
+        mapa.force();
+        sincronizado = true;
+    }
+
+    /**
+     * Debe llamarse antes de escribir en las celdas: si la cabecera dice "sincronizado",
+     * la vuelve a marcar "en uso" (solo se fuerza la cabecera), porque los contadores
+     * guardados dejarán de coincidir con las celdas.
+     */
+    void enUso() {
+        if (!sincronizado) return;
+        mapa.putShort(POS_ESTADO, EN_USO);
+        mapa.force(0, TAM_CABECERA);
+        sincronizado = false;
+    }
+}
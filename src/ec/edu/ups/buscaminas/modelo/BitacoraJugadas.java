@@ -0,0 +1,383 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Bitácora de jugadas de solo escritura al final (write-ahead log).
+ * Cada descubrir, bandera o acorde se guarda como un registro de tamaño fijo, así que el costo de
+ * persistir una jugada es de 8 bytes sin importar el tamaño del tablero. Junto a la bitácora
+ * se guardan dos instantáneas en el formato de FormatoTablero:
+ * <ul>
+ *   <li>{@code <archivo>.base}: el tablero al iniciar la bitácora (jugada 0).</li>
+ *   <li>{@code <archivo>.snap}: una instantánea periódica con la cantidad de jugadas que cubre,
+ *       para que recuperar la partida solo reproduzca las jugadas posteriores.</li>
+ * </ul>
+ * Reproducir desde la base hasta cualquier jugada permite repeticiones deterministas y deshacer.
+ * <pre>
+ * Cabecera (32 bytes): "BUSJ", versión (2), indicadores (2), filas, columnas, minas, semilla (8), reservado (4)
+ * Registro (8 bytes):  tipo (1), indicadores (1), reservado (2), índice de celda (4)
+ * </pre>
+ * El indicador MINAS_ANTES marca que, antes de esa jugada, las minas de un tablero diferido
+ * se colocaron sin zona excluida (alguien consultó el tablero antes del primer descubrir).
+ * FUERA_DEL_HISTORIAL marca una jugada que no cambió celdas y no se puede deshacer.
+ * <p>
+ * Deshacer y rehacer también son registros (tipos DESHACER y REHACER, sin índice): al reproducir
+ * se aplican con un HistorialJugadas armado con las jugadas anteriores. Si un deshacer llega a
+ * jugadas anteriores a la instantánea periódica, la reproducción parte de la base.
+ */
+public final class BitacoraJugadas implements Closeable {
+    public static final byte DESCUBRIR = 1;
+    public static final byte BANDERA = 2;
+    public static final byte ACORDE = 3;
+    static final byte DESHACER = 4;
+    static final byte REHACER = 5;
+
+    static final int MAGIA = 0x4255534A; // "BUSJ"
+    static final short VERSION = 2;
+    // Bitácoras anteriores a los registros de deshacer/rehacer: se leen igual
+    private static final short VERSION_SIN_REVERSIONES = 1;
+    static final int TAM_CABECERA = 32;
+    static final int TAM_REGISTRO = 8;
+
+    private static final short CON_SEMILLA = 1;
+    private static final byte MINAS_ANTES = 1;
+    private static final byte FUERA_DEL_HISTORIAL = 2;
+
+    // Resultado de revisarReversiones
+    private static final int SIN_REVERSIONES = 0;
+    private static final int CON_REVERSIONES = 1;
+    private static final int ANTES_DEL_INICIO = 2;
+    // Jugadas entre instantáneas si no se indica otra cosa
+    public static final int JUGADAS_POR_INSTANTANEA = 4096;
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final ByteBuffer lote;
+    private final int jugadasPorInstantanea;
+    private long jugadas;
+    // Jugadas registradas desde que se abrió que se pueden deshacer y rehacer
+    private long porDeshacer;
+    private long porRehacer;
+
+    private BitacoraJugadas(Path ruta, FileChannel canal, int registrosPorLote, int jugadasPorInstantanea, long jugadas) {
+        this.ruta = ruta;
+        this.canal = canal;
+        this.lote = ByteBuffer.allocateDirect(Math.max(1, registrosPorLote) * TAM_REGISTRO);
+        this.jugadasPorInstantanea = jugadasPorInstantanea;
+        this.jugadas = jugadas;
+    }
+
+    /**
+     * Inicia una bitácora nueva (reemplaza la anterior) para el estado actual del tablero.
+     * @param semilla semilla con la que se generó el tablero, o null si no se conoce.
+     * @param registrosPorLote cuántas jugadas se acumulan antes de escribirlas (1 = cada jugada).
+     */
+    public static BitacoraJugadas crear(Path ruta, Tablero tablero, Long semilla,
+                                        int registrosPorLote, int jugadasPorInstantanea) throws IOException {
+        escribirInstantanea(archivoBase(ruta), tablero, 0);
+        Files.deleteIfExists(archivoInstantanea(ruta));
+
+        FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer cabecera = ByteBuffer.allocate(TAM_CABECERA);
+        cabecera.putInt(MAGIA).putShort(VERSION).putShort(semilla != null ? CON_SEMILLA : 0)
+                .putInt(tablero.getFilas()).putInt(tablero.getColumnas()).putInt(tablero.getTotalMinas())
+                .putLong(semilla != null ? semilla : 0L).putInt(0);
+        cabecera.flip();
+        while (cabecera.hasRemaining()) canal.write(cabecera);
+        return new BitacoraJugadas(ruta, canal, registrosPorLote, jugadasPorInstantanea, 0);
+    }
+
+    /**
+     * Registra una jugada. Solo se escribe al disco cuando se completa el lote.
+     */
+    public void registrar(byte tipo, int indice) throws IOException {
+        registrar(tipo, indice, false, true);
+    }
+
+    /**
+     * Registra una jugada indicando si antes se colocaron las minas pendientes del tablero y si
+     * entró al historial de deshacer (cambió alguna celda).
+     */
+    void registrar(byte tipo, int indice, boolean minasAntes, boolean enHistorial) throws IOException {
+        escribir(tipo, (byte) ((minasAntes ? MINAS_ANTES : 0) | (enHistorial ? 0 : FUERA_DEL_HISTORIAL)), indice);
+        if (enHistorial) {
+            porDeshacer++;
+            porRehacer = 0;
+        }
+    }
+
+    /**
+     * Registra un deshacer o un rehacer.
+     * @return false, sin registrar nada, si la jugada revertida es anterior a esta bitácora
+     *         (o a su última apertura) y no se podría reproducir.
+     */
+    boolean registrarReversion(boolean rehacer) throws IOException {
+        if (rehacer ? porRehacer == 0 : porDeshacer == 0) return false;
+        escribir(rehacer ? REHACER : DESHACER, (byte) 0, 0);
+        porDeshacer += rehacer ? 1 : -1;
+        porRehacer += rehacer ? -1 : 1;
+        return true;
+    }
+
+    private void escribir(byte tipo, byte indicadores, int indice) throws IOException {
+        lote.put(tipo).put(indicadores).putShort((short) 0).putInt(indice);
+        jugadas++;
+        if (!lote.hasRemaining()) vaciar();
+    }
+
+    /**
+     * Escribe las jugadas pendientes del lote.
+     */
+    public void vaciar() throws IOException {
+        lote.flip();
+        while (lote.hasRemaining()) canal.write(lote);
+        lote.clear();
+    }
+
+    /**
+     * true si ya corresponde tomar una instantánea periódica.
+     */
+    public boolean requiereInstantanea() {
+        return jugadasPorInstantanea > 0 && jugadas % jugadasPorInstantanea == 0 && jugadas > 0;
+    }
+
+    /**
+     * Guarda una instantánea compacta del tablero actual que cubre todas las jugadas registradas.
+     * Se escribe en un archivo temporal y se renombra, así nunca queda una instantánea a medias.
+     */
+    public void tomarInstantanea(Tablero tablero) throws IOException {
+        vaciar();
+        canal.force(false);
+        escribirInstantanea(archivoInstantanea(ruta), tablero, jugadas);
+    }
+
+    public long getJugadas() {
+        return jugadas;
+    }
+
+    public Path getRuta() {
+        return ruta;
+    }
+
+    public int getRegistrosPorLote() {
+        return lote.capacity() / TAM_REGISTRO;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            vaciar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    /**
+     * Resultado de reproducir una bitácora.
+     */
+    public static final class Reproduccion {
+        private final Tablero tablero;
+        private final long jugadas;
+        private final boolean exploto;
+        private final Long semilla;
+
+        Reproduccion(Tablero tablero, long jugadas, boolean exploto, Long semilla) {
+            this.tablero = tablero;
+            this.jugadas = jugadas;
+            this.exploto = exploto;
+            this.semilla = semilla;
+        }
+
+        public Tablero getTablero() { return tablero; }
+        public long getJugadas() { return jugadas; }
+        public boolean isExploto() { return exploto; }
+        public Long getSemilla() { return semilla; }
+    }
+
+    /**
+     * Reconstruye el tablero tras las primeras 'hasta' jugadas (Long.MAX_VALUE = todas).
+     * Parte de la instantánea periódica si cubre a lo sumo esas jugadas; si no, de la base.
+     */
+    public static Reproduccion reproducir(Path ruta, long hasta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(TAM_CABECERA);
+            FormatoTablero.leerCompleto(canal, cabecera);
+            cabecera.flip();
+            if (cabecera.remaining() < TAM_CABECERA || cabecera.getInt() != MAGIA)
+                throw new StreamCorruptedException("El archivo no es una bitácora de Buscaminas.");
+            short version = cabecera.getShort();
+            if (version != VERSION && version != VERSION_SIN_REVERSIONES)
+                throw new StreamCorruptedException("Versión de bitácora no soportada.");
+            boolean conSemilla = (cabecera.getShort() & CON_SEMILLA) != 0;
+            cabecera.position(20);
+            Long semilla = conSemilla ? cabecera.getLong() : null;
+
+            // Un registro incompleto al final (caída a mitad de escritura) se descarta
+            long registros = (canal.size() - TAM_CABECERA) / TAM_REGISTRO;
+            long objetivo = Math.min(hasta, registros);
+
+            long desde = 0;
+            Tablero tablero = null;
+            int reversiones = SIN_REVERSIONES;
+            Path instantanea = archivoInstantanea(ruta);
+            if (Files.exists(instantanea)) {
+                long cubiertas = leerJugadasInstantanea(instantanea);
+                if (cubiertas <= objetivo) {
+                    reversiones = revisarReversiones(canal, cubiertas, objetivo);
+                    if (reversiones != ANTES_DEL_INICIO) {
+                        tablero = leerInstantanea(instantanea);
+                        desde = cubiertas;
+                    }
+                }
+            }
+            if (tablero == null) {
+                tablero = leerInstantanea(archivoBase(ruta));
+                reversiones = revisarReversiones(canal, 0, objetivo);
+            }
+            // Tablero diferido sin minas todavía: se colocan en el primer descubrir igual que al jugar
+            if (semilla != null) tablero.diferirMinasSiFaltan(new SplittableRandom(semilla));
+
+            // Solo hace falta guardar las celdas de cada jugada si después hay algo que revertir
+            HistorialJugadas historial = reversiones == SIN_REVERSIONES ? null : new HistorialJugadas(Integer.MAX_VALUE, null);
+            DeltaJugadas delta = historial == null ? null : new DeltaJugadas();
+            boolean exploto = false;
+            canal.position(TAM_CABECERA + desde * TAM_REGISTRO);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(512 * TAM_REGISTRO);
+            long aplicadas = desde;
+            while (aplicadas < objetivo) {
+                leerTramo(canal, buffer, objetivo - aplicadas);
+                while (buffer.remaining() >= TAM_REGISTRO) {
+                    byte tipo = buffer.get();
+                    byte indicadores = buffer.get();
+                    buffer.getShort();
+                    int indice = buffer.getInt();
+                    aplicadas++;
+                    if (tipo == DESHACER || tipo == REHACER) {
+                        Boolean mina = tipo == REHACER ? historial.rehacer(tablero, null) : historial.deshacer(tablero, null);
+                        if (mina != null && mina) exploto = tipo == REHACER;
+                        continue;
+                    }
+                    if ((indicadores & MINAS_ANTES) != 0) tablero.asegurarMinas();
+                    if (historial == null) {
+                        exploto |= tablero.aplicarJugada(tipo, indice);
+                        continue;
+                    }
+                    delta.limpiar();
+                    boolean mina = tablero.jugar(tipo, indice, delta) == ResultadoJugada.MINA;
+                    exploto |= mina;
+                    if ((indicadores & FUERA_DEL_HISTORIAL) == 0) {
+                        historial.registrar(tipo, delta.celdas(), 0, delta.getCantidadCeldas(), mina);
+                    }
+                }
+            }
+            return new Reproduccion(tablero, aplicadas, exploto, semilla);
+        }
+    }
+
+    /**
+     * Recorre los registros [desde, hasta) sin aplicarlos, contando lo que se puede deshacer y rehacer.
+     * @return SIN_REVERSIONES, CON_REVERSIONES, o ANTES_DEL_INICIO si algún deshacer o rehacer
+     *         alcanza una jugada anterior a 'desde'.
+     */
+    private static int revisarReversiones(FileChannel canal, long desde, long hasta) throws IOException {
+        long porDeshacer = 0;
+        long porRehacer = 0;
+        int resultado = SIN_REVERSIONES;
+        canal.position(TAM_CABECERA + desde * TAM_REGISTRO);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(512 * TAM_REGISTRO);
+        for (long leidos = desde; leidos < hasta; ) {
+            leerTramo(canal, buffer, hasta - leidos);
+            while (buffer.remaining() >= TAM_REGISTRO) {
+                byte tipo = buffer.get();
+                byte indicadores = buffer.get();
+                buffer.position(buffer.position() + 6);
+                leidos++;
+                if (tipo == DESHACER) {
+                    if (porDeshacer == 0) return ANTES_DEL_INICIO;
+                    porDeshacer--;
+                    porRehacer++;
+                    resultado = CON_REVERSIONES;
+                } else if (tipo == REHACER) {
+                    if (porRehacer == 0) return ANTES_DEL_INICIO;
+                    porRehacer--;
+                    porDeshacer++;
+                    resultado = CON_REVERSIONES;
+                } else if ((indicadores & FUERA_DEL_HISTORIAL) == 0) {
+                    porDeshacer++;
+                    porRehacer = 0;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Lee hasta 'registros' registros desde la posición actual y deja 'buffer' listo para leerlos
+    private static void leerTramo(FileChannel canal, ByteBuffer buffer, long registros) throws IOException {
+        buffer.clear();
+        long faltantes = registros * TAM_REGISTRO;
+        if (faltantes < buffer.capacity()) buffer.limit((int) faltantes);
+        FormatoTablero.leerCompleto(canal, buffer);
+        buffer.flip();
+    }
+
+    /**
+     * Reabre una bitácora existente para seguir agregando jugadas al final.
+     */
+    public static BitacoraJugadas abrir(Path ruta, int registrosPorLote, int jugadasPorInstantanea) throws IOException {
+        FileChannel canal = FileChannel.open(ruta, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        long registros = (canal.size() - TAM_CABECERA) / TAM_REGISTRO;
+        // Descarta un posible registro incompleto
+        canal.truncate(TAM_CABECERA + registros * TAM_REGISTRO);
+        canal.position(TAM_CABECERA + registros * TAM_REGISTRO);
+        return new BitacoraJugadas(ruta, canal, registrosPorLote, jugadasPorInstantanea, registros);
+    }
+
+    static Path archivoBase(Path ruta) {
+        return ruta.resolveSibling(ruta.getFileName() + ".base");
+    }
+
+    static Path archivoInstantanea(Path ruta) {
+        return ruta.resolveSibling(ruta.getFileName() + ".snap");
+    }
+
+    // Instantánea = jugadas cubiertas (8 bytes) + tablero en FormatoTablero
+    private static void escribirInstantanea(Path destino, Tablero tablero, long jugadas) throws IOException {
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer cubiertas = ByteBuffer.allocate(8).putLong(jugadas);
+            cubiertas.flip();
+            while (cubiertas.hasRemaining()) canal.write(cubiertas);
+            FormatoTablero.escribir(tablero, canal);
+            canal.force(false);
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long leerJugadasInstantanea(Path origen) throws IOException {
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            ByteBuffer cubiertas = ByteBuffer.allocate(8);
+            FormatoTablero.leerCompleto(canal, cubiertas);
+            cubiertas.flip();
+            if (cubiertas.remaining() < 8) throw new StreamCorruptedException("Instantánea incompleta.");
+            return cubiertas.getLong();
+        }
+    }
+
+    private static Tablero leerInstantanea(Path origen) throws IOException {
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            canal.position(8);
+            return FormatoTablero.leer(canal);
+        }
+    }
+}
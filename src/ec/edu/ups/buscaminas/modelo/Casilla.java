@@ -1,33 +1,31 @@
 package ec.edu.ups.buscaminas.modelo;
 
-import java.io.Serializable;
-
 /**
  * Clase Abstracta que representa la unidad base del tablero.
- * Implementa Serializable para permitir guardar el estado del objeto en un archivo binario.
+ * Es una vista ligera sobre el estado empaquetado del Tablero: no guarda datos propios,
+ * solo la referencia al tablero y el índice de la celda, por lo que leer o modificar
+ * una Casilla actúa directamente sobre el tablero.
  * Aplicamos ABSTRACCIÓN y HERENCIA aquí.
  */
-public abstract class Casilla implements Serializable {
+public abstract class Casilla {
     // Atributos encapsulados (protected para acceso desde subclases)
-    protected boolean descubierta;
-    protected boolean tieneBandera;
-    protected int minasAlrededor;
+    protected final Tablero tablero;
+    protected final int indice;
 
-    public Casilla() {
-        this.descubierta = false;
-        this.tieneBandera = false;
-        this.minasAlrededor = 0;
+    Casilla(Tablero tablero, int indice) {
+        this.tablero = tablero;
+        this.indice = indice;
     }
 
     // Getters y Setters para mantener el ENCAPSULAMIENTO
-    public boolean isDescubierta() { return descubierta; }
-    public void setDescubierta(boolean descubierta) { this.descubierta = descubierta; }
-    
-    public boolean isTieneBandera() { return tieneBandera; }
-    public void setTieneBandera(boolean tieneBandera) { this.tieneBandera = tieneBandera; }
+    public boolean isDescubierta() { return tablero.tieneBit(indice, Tablero.BIT_DESCUBIERTA); }
+    public void setDescubierta(boolean descubierta) { tablero.cambiarBit(indice, Tablero.BIT_DESCUBIERTA, descubierta); }
+
+    public boolean isTieneBandera() { return tablero.tieneBit(indice, Tablero.BIT_BANDERA); }
+    public void setTieneBandera(boolean tieneBandera) { tablero.cambiarBit(indice, Tablero.BIT_BANDERA, tieneBandera); }
 
-    public int getMinasAlrededor() { return minasAlrededor; }
-    public void setMinasAlrededor(int minas) { this.minasAlrededor = minas; }
+    public int getMinasAlrededor() { return tablero.numero(indice); }
+    public void setMinasAlrededor(int minas) { tablero.fijarNumero(indice, minas); }
 
     /**
      * Método abstracto para aplicar POLIMORFISMO.
@@ -36,9 +34,9 @@ public abstract class Casilla implements Serializable {
      * @return El caracter a imprimir.
      */
     public abstract String obtenerSimbolo(boolean mostrarMinas);
-    
+
     /**
      * Permite identificar el tipo de casilla sin usar 'instanceof', favoreciendo el polimorfismo.
      */
     public abstract boolean esMina();
-}
\ No newline at end of file
+}
@@ -4,16 +4,21 @@ package ec.edu.ups.buscaminas.modelo;
  * Subclase concreta para casillas seguras.
  */
 public class CasillaVacia extends Casilla {
-    
+
+    CasillaVacia(Tablero tablero, int indice) {
+        super(tablero, indice);
+    }
+
     @Override
     public String obtenerSimbolo(boolean mostrarMinas) {
-        if (tieneBandera) return "X";
+        if (isTieneBandera()) return "X";
         
         // Si no se ha descubierto, permanece oculta.
-        if (!descubierta) return "-";
+        if (!isDescubierta()) return "-";
         
         // Lógica específica: Si no hay minas alrededor, retornamos 'O' (espacio libre),
         // de lo contrario retornamos el número de minas vecinas.
+        int minasAlrededor = getMinasAlrededor();
         if (minasAlrededor == 0) return "O";
         
         return String.valueOf(minasAlrededor);
@@ -0,0 +1,166 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Motor de colocación de minas sin sesgo y sin reintentos.
+ * Trabaja sobre los índices de celda candidatos (todas menos la zona excluida) y elige
+ * exactamente las posiciones necesarias:
+ * <ul>
+ *   <li>Si se eligen pocas posiciones, usa un Fisher-Yates parcial sobre una permutación
+ *       implícita, guardando solo los intercambios en un mapa de enteros: O(k) tiempo y memoria.</li>
+ *   <li>Si se eligen muchas, usa muestreo secuencial (Knuth, algoritmo S): O(n) tiempo y O(1) memoria.</li>
+ * </ul>
+ * Cuando la densidad supera el 50% se eligen las celdas seguras en lugar de las minas,
+ * así el trabajo nunca depende de la densidad.
+ */
+final class ColocadorMinas {
+
+    // Por debajo de esta fracción de candidatos conviene el Fisher-Yates disperso
+    private static final int DIVISOR_DISPERSO = 16;
+
+    private ColocadorMinas() {
+    }
+
+    /**
+     * Marca 'minas' celdas con BIT_MINA; los demás bits de cada celda (ej. banderas puestas
+     * antes de colocar las minas) se conservan.
+     * @param excluidas índices de celda que nunca reciben mina, ordenados ascendentemente.
+     */
+    static void colocar(ByteBuffer celdas, int minas, int[] excluidas, RandomGenerator random) {
+        int candidatos = celdas.capacity() - excluidas.length;
+        if (minas > candidatos)
+            throw new IllegalArgumentException("No caben " + minas + " minas fuera de la zona segura.");
+
+        // Si hay más minas que huecos, elegimos los huecos y minamos el resto
+        boolean complemento = minas > candidatos / 2;
+        int elegir = complemento ? candidatos - minas : minas;
+        byte marca = complemento ? 0 : (byte) Tablero.BIT_MINA;
+
+        if (complemento) {
+            for (int i = 0; i < celdas.capacity(); i++) marcar(celdas, i, (byte) Tablero.BIT_MINA);
+            for (int excluida : excluidas) marcar(celdas, excluida, (byte) 0);
+        }
+
+        if (elegir < candidatos / DIVISOR_DISPERSO) {
+            fisherYatesDisperso(celdas, candidatos, elegir, excluidas, marca, random);
+        } else {
+            muestreoSecuencial(celdas, candidatos, elegir, excluidas, marca, random);
+        }
+    }
+
+    /**
+     * Fisher-Yates parcial: en el paso i se intercambia la posición i con una posición
+     * al azar en [i, n). Solo se guardan en el mapa las posiciones que ya no son la identidad.
+     */
+    private static void fisherYatesDisperso(ByteBuffer celdas, int n, int k, int[] excluidas,
+                                            byte marca, RandomGenerator random) {
+        MapaEnteros intercambios = new MapaEnteros(k);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int valorI = intercambios.obtener(i, i);
+            int valorJ = intercambios.obtener(j, j);
+            intercambios.poner(j, valorI);
+            marcar(celdas, aIndiceCelda(valorJ, excluidas), marca);
+        }
+    }
+
+    /**
+     * Algoritmo S de Knuth: recorre los candidatos una vez y elige cada uno con
+     * probabilidad (faltantes / restantes), lo que produce un subconjunto uniforme.
+     */
+    private static void muestreoSecuencial(ByteBuffer celdas, int n, int k, int[] excluidas,
+                                           byte marca, RandomGenerator random) {
+        int faltantes = k;
+        int siguienteExcluida = 0;
+        int celda = 0;
+        for (int i = 0; i < n && faltantes > 0; i++, celda++) {
+            // Saltamos las celdas excluidas (están ordenadas)
+            while (siguienteExcluida < excluidas.length && excluidas[siguienteExcluida] == celda) {
+                siguienteExcluida++;
+                celda++;
+            }
+            if (random.nextInt(n - i) < faltantes) {
+                marcar(celdas, celda, marca);
+                faltantes--;
+            }
+        }
+    }
+
+    // Pone el bit de mina de la celda en 'marca' (0 o BIT_MINA) sin tocar los demás bits
+    private static void marcar(ByteBuffer celdas, int indice, byte marca) {
+        celdas.put(indice, (byte) ((celdas.get(indice) & ~Tablero.BIT_MINA) | marca));
+    }
+
+    // Traduce el ordinal de candidato al índice real saltando las celdas excluidas
+    private static int aIndiceCelda(int ordinal, int[] excluidas) {
+        int indice = ordinal;
+        for (int excluida : excluidas) {
+            if (excluida <= indice) indice++;
+            else break;
+        }
+        return indice;
+    }
+
+    /**
+     * Índices de la zona 3x3 alrededor de (fila, col), recortada a los bordes y ordenada.
+     * Si no caben las minas fuera de la zona, se excluye solo la casilla central.
+     */
+    static int[] zonaSegura(int filas, int columnas, int minas, int fila, int col) {
+        int[] zona = new int[9];
+        int n = 0;
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                zona[n++] = f * columnas + c;
+            }
+        }
+        if (minas > filas * columnas - n) {
+            return new int[]{fila * columnas + col};
+        }
+        return Arrays.copyOf(zona, n);
+    }
+
+    /**
+     * Mapa int -> int con direccionamiento abierto, sin objetos por entrada.
+     */
+    private static final class MapaEnteros {
+        private final int[] claves;
+        private final int[] valores;
+        private final boolean[] usadas;
+        private final int mascara;
+
+        MapaEnteros(int esperadas) {
+            int capacidad = Integer.highestOneBit(Math.max(4, esperadas * 4) - 1) << 1;
+            claves = new int[capacidad];
+            valores = new int[capacidad];
+            usadas = new boolean[capacidad];
+            mascara = capacidad - 1;
+        }
+
+        int obtener(int clave, int porDefecto) {
+            int pos = mezclar(clave) & mascara;
+            while (usadas[pos]) {
+                if (claves[pos] == clave) return valores[pos];
+                pos = (pos + 1) & mascara;
+            }
+            return porDefecto;
+        }
+
+        void poner(int clave, int valor) {
+            int pos = mezclar(clave) & mascara;
+            while (usadas[pos] && claves[pos] != clave) {
+                pos = (pos + 1) & mascara;
+            }
+            usadas[pos] = true;
+            claves[pos] = clave;
+            valores[pos] = valor;
+        }
+
+        private static int mezclar(int x) {
+            x *= 0x9E3779B9;
+            return x ^ (x >>> 16);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.util.Arrays;
+
+/**
+ * Resultado compacto de un lote de jugadas de MotorJuego, pensado para reutilizarse
+ * entre lotes sin crear objetos:
+ * <ul>
+ *   <li>un código de ResultadoJugada por jugada;</li>
+ *   <li>los índices (fila * columnas + columna) de las celdas que cambiaron, agrupados por
+ *       jugada: las de la jugada j están en [getInicioCeldas(j), getFinCeldas(j));</li>
+ *   <li>el estado de la partida al terminar el lote.</li>
+ * </ul>
+ */
+public final class DeltaJugadas {
+    private int[] resultados = new int[16];
+    private int[] finCeldas = new int[16];
+    private int[] celdas = new int[64];
+    private int jugadas;
+    private int cantidadCeldas;
+    private boolean exploto;
+    private boolean gano;
+    private int segurasPorDescubrir;
+    private int banderasColocadas;
+
+    /**
+     * Vacía el delta para un nuevo lote (conserva la memoria reservada).
+     */
+    public void limpiar() {
+        jugadas = 0;
+        cantidadCeldas = 0;
+        exploto = false;
+        gano = false;
+    }
+
+    public int getJugadas() { return jugadas; }
+    public int getResultado(int jugada) { return resultados[jugada]; }
+    public int getInicioCeldas(int jugada) { return jugada == 0 ? 0 : finCeldas[jugada - 1]; }
+    public int getFinCeldas(int jugada) { return finCeldas[jugada]; }
+    public int getCantidadCeldas() { return cantidadCeldas; }
+    public int getCelda(int i) { return celdas[i]; }
+    public boolean isExploto() { return exploto; }
+    public boolean isGano() { return gano; }
+    public int getSegurasPorDescubrir() { return segurasPorDescubrir; }
+    public int getBanderasColocadas() { return banderasColocadas; }
+
+    /**
+     * Copia en 'destino' los índices de todas las celdas cambiadas.
+     * @return cantidad de índices copiados.
+     */
+    public int copiarCeldas(int[] destino) {
+        int n = Math.min(cantidadCeldas, destino.length);
+        System.arraycopy(celdas, 0, destino, 0, n);
+        return n;
+    }
+
+    // Arreglo interno de celdas, válido en [0, getCantidadCeldas())
+    int[] celdas() {
+        return celdas;
+    }
+
+    // Las celdas de la jugada actual deben agregarse antes de cerrarla con este método
+    void cerrarJugada(int resultado) {
+        if (jugadas == resultados.length) {
+            resultados = Arrays.copyOf(resultados, jugadas * 2);
+            finCeldas = Arrays.copyOf(finCeldas, jugadas * 2);
+        }
+        resultados[jugadas] = resultado;
+        finCeldas[jugadas] = cantidadCeldas;
+        jugadas++;
+        if (resultado == ResultadoJugada.MINA) exploto = true;
+    }
+
+    void agregarCelda(int indice) {
+        asegurarCapacidad(1);
+        celdas[cantidadCeldas++] = indice;
+    }
+
+    void agregarCeldas(int[] origen, int n) {
+        agregarCeldas(origen, 0, n);
+    }
+
+    void agregarCeldas(int[] origen, int desde, int n) {
+        asegurarCapacidad(n);
+        System.arraycopy(origen, desde, celdas, cantidadCeldas, n);
+        cantidadCeldas += n;
+    }
+
+    void cerrarLote(Tablero tablero) {
+        segurasPorDescubrir = tablero.getSegurasPorDescubrir();
+        banderasColocadas = tablero.getBanderasColocadas();
+        gano = !exploto && tablero.verificarVictoria();
+    }
+
+    private void asegurarCapacidad(int extra) {
+        if (cantidadCeldas + extra > celdas.length) {
+            celdas = Arrays.copyOf(celdas, (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max((long) celdas.length * 2, (long) cantidadCeldas + extra)));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import ec.edu.ups.buscaminas.modelo.legado.LectorLegado;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Formato binario compacto y versionado para guardar un Tablero.
+ * <pre>
+ *  offset  tamaño  contenido
+ *  0       4       "BUSC"
+ *  4       2       versión
+ *  6       2       reservado (0)
+ *  8       4       filas
+ *  12      4       columnas
+ *  16      4       total de minas
+ *  20      n/8     plano de minas        (1 bit por celda, orden fila por fila)
+ *  ...     n/8     plano de descubiertas
+ *  ...     n/8     plano de banderas
+ * </pre>
+ * Los números de proximidad no se guardan: se recalculan al cargar, así el archivo ocupa
+ * unos 3 bits por celda. Se escribe y lee con FileChannel y un ByteBuffer directo.
+ * Al cargar se aceptan también los .dat antiguos de ObjectOutputStream (migración) y
+ * los tableros proyectados de ArchivoMapeado, que se abren en su sitio.
+ */
+final class FormatoTablero {
+    static final int MAGIA = 0x42555343; // "BUSC"
+    static final short VERSION = 1;
+    static final int TAM_CABECERA = 20;
+
+    // Cabecera de un flujo de ObjectOutputStream (STREAM_MAGIC)
+    private static final short MAGIA_SERIALIZACION = (short) 0xACED;
+    private static final int TAM_BUFFER = 64 * 1024;
+    private static final int[] PLANOS = {Tablero.BIT_MINA, Tablero.BIT_DESCUBIERTA, Tablero.BIT_BANDERA};
+
+    private FormatoTablero() {
+    }
+
+    static void guardar(Tablero tablero, Path ruta) throws IOException {
+        // Un tablero diferido se guarda con sus minas ya colocadas
+        guardar(tablero, ruta, true);
+    }
+
+    /**
+     * Con 'colocarMinas' en false, un tablero diferido se guarda sin minas.
+     */
+    static void guardar(Tablero tablero, Path ruta, boolean colocarMinas) throws IOException {
+        if (colocarMinas) tablero.asegurarMinas();
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            escribir(tablero, canal);
+        }
+    }
+
+    /**
+     * Escribe el tablero en el canal a partir de su posición actual.
+     */
+    static void escribir(Tablero tablero, FileChannel canal) throws IOException {
+        ByteBuffer celdas = tablero.celdas();
+        int total = celdas.capacity();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TAM_BUFFER);
+        buffer.putInt(MAGIA).putShort(VERSION).putShort((short) 0)
+              .putInt(tablero.getFilas()).putInt(tablero.getColumnas()).putInt(tablero.getTotalMinas());
+
+        for (int bit : PLANOS) {
+            for (int i = 0; i < total; i += 8) {
+                if (!buffer.hasRemaining()) vaciar(buffer, canal);
+                buffer.put(empaquetar(celdas, i, bit));
+            }
+        }
+        vaciar(buffer, canal);
+    }
+
+    static Tablero cargar(Path ruta) throws IOException, ClassNotFoundException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(4);
+            leerCompleto(canal, cabecera);
+            cabecera.flip();
+            canal.position(0);
+
+            if (cabecera.remaining() >= 2 && cabecera.getShort(0) == MAGIA_SERIALIZACION) {
+                return migrar(LectorLegado.leer(Channels.newInputStream(canal)));
+            }
+            if (cabecera.remaining() == 4 && ArchivoMapeado.esMagia(cabecera.getInt(0))) {
+                return Tablero.abrirMapeado(ruta);
+            }
+            return leer(canal);
+        }
+    }
+
+    /**
+     * Lee un tablero en formato binario desde la posición actual del canal hasta el final.
+     */
+    static Tablero leer(FileChannel canal) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TAM_BUFFER);
+        long inicio = canal.position();
+        buffer.limit(TAM_CABECERA);
+        leerCompleto(canal, buffer);
+        buffer.flip();
+
+        if (buffer.remaining() < TAM_CABECERA || buffer.getInt() != MAGIA)
+            throw new StreamCorruptedException("El archivo no es una partida de Buscaminas.");
+        short version = buffer.getShort();
+        if (version != VERSION)
+            throw new StreamCorruptedException("Versión de partida no soportada: " + version);
+        buffer.getShort();
+        int filas = buffer.getInt();
+        int columnas = buffer.getInt();
+        int minas = buffer.getInt();
+        if (filas <= 0 || columnas <= 0 || (long) filas * columnas > Tablero.MAX_CELDAS)
+            throw new StreamCorruptedException("Dimensiones inválidas en la partida: " + filas + "x" + columnas);
+
+        int total = filas * columnas;
+        long esperado = TAM_CABECERA + 3L * bytesPorPlano(total);
+        if (canal.size() - inicio != esperado)
+            throw new StreamCorruptedException("Tamaño de partida inesperado: " + (canal.size() - inicio) + " bytes.");
+
+        byte[] celdas = new byte[total];
+        for (int bit : PLANOS) {
+            for (int i = 0; i < total; i += 8) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    leerCompleto(canal, buffer);
+                    buffer.flip();
+                }
+                desempaquetar(buffer.get(), celdas, i, bit);
+            }
+        }
+        return new Tablero(filas, columnas, minas, celdas);
+    }
+
+    static int bytesPorPlano(int celdas) {
+        return (celdas + 7) >>> 3;
+    }
+
+    // 8 celdas consecutivas -> 1 byte (la celda 'desde' va en el bit menos significativo)
+    private static byte empaquetar(ByteBuffer celdas, int desde, int bit) {
+        int hasta = Math.min(desde + 8, celdas.capacity());
+        int valor = 0;
+        for (int i = desde; i < hasta; i++) {
+            if ((celdas.get(i) & bit) != 0) valor |= 1 << (i - desde);
+        }
+        return (byte) valor;
+    }
+
+    private static void desempaquetar(byte valor, byte[] celdas, int desde, int bit) {
+        if (valor == 0) return;
+        int hasta = Math.min(desde + 8, celdas.length);
+        for (int i = desde; i < hasta; i++) {
+            if ((valor & (1 << (i - desde))) != 0) celdas[i] |= bit;
+        }
+    }
+
+    private static void vaciar(ByteBuffer buffer, FileChannel canal) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) canal.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Lee del canal hasta llenar el buffer o llegar al final del archivo (también lo usa
+     * BitacoraJugadas).
+     */
+    static void leerCompleto(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer) < 0) break;
+        }
+    }
+
+    /**
+     * Convierte un tablero del formato antiguo (matriz de objetos) al estado empaquetado.
+     */
+    private static Tablero migrar(ec.edu.ups.buscaminas.modelo.legado.Tablero antiguo) throws StreamCorruptedException {
+        ec.edu.ups.buscaminas.modelo.legado.Casilla[][] casillas = antiguo.getCasillas();
+        int filas = antiguo.getFilas();
+        int columnas = antiguo.getColumnas();
+        if (casillas == null || casillas.length != filas)
+            throw new StreamCorruptedException("Partida antigua incompleta.");
+
+        byte[] celdas = new byte[filas * columnas];
+        int minas = 0;
+        for (int f = 0; f < filas; f++) {
+            if (casillas[f] == null || casillas[f].length != columnas)
+                throw new StreamCorruptedException("Partida antigua incompleta.");
+            for (int c = 0; c < columnas; c++) {
+                ec.edu.ups.buscaminas.modelo.legado.Casilla casilla = casillas[f][c];
+                // Un archivo truncado o editado a mano puede dejar casillas sin objeto
+                if (casilla == null) throw new StreamCorruptedException("Partida antigua dañada.");
+                int estado = 0;
+                if (casilla.esMina()) {
+                    estado |= Tablero.BIT_MINA;
+                    minas++;
+                }
+                if (casilla.isDescubierta()) estado |= Tablero.BIT_DESCUBIERTA;
+                if (casilla.isTieneBandera()) estado |= Tablero.BIT_BANDERA;
+                celdas[f * columnas + c] = (byte) estado;
+            }
+        }
+        return new Tablero(filas, columnas, minas, celdas);
+    }
+}
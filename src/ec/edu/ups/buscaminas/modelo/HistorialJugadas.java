@@ -0,0 +1,224 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pila de deshacer/rehacer que guarda por jugada solo las celdas que cambió, nunca una copia
+ * del tablero. Todas las jugadas se guardan en un único int[]:
+ * <pre>
+ * registro = cabecera, índices de celda..., cabecera
+ * cabecera = cantidad de celdas (28 bits) | tipo (2 bits) &lt;&lt; 28 | exploto (1 bit) &lt;&lt; 30
+ * </pre>
+ * La cabecera se repite al final para poder recorrer la pila hacia atrás. Los registros en
+ * [inicio, cursor) se pueden deshacer y los de [cursor, fin) rehacer; una jugada nueva
+ * descarta lo que había para rehacer.
+ * <p>
+ * La memoria está acotada a 'maxEnteros'. Al superarla se sacan las jugadas más antiguas: si
+ * hay archivo de derrame se escriben al final de ese archivo (y se leen de vuelta al deshacer
+ * hasta ellas); si no, se pierden. El límite es blando al deshacer desde disco: lo que vuelve
+ * del archivo puede superarlo hasta la siguiente jugada.
+ */
+public final class HistorialJugadas implements Closeable {
+    private static final int BITS_CANTIDAD = 28;
+    private static final int MASCARA_CANTIDAD = (1 << BITS_CANTIDAD) - 1;
+    private static final int BIT_EXPLOTO = 1 << 30;
+    private static final int ENTEROS_POR_TRAMO = 1 << 14;
+
+    private final int maxEnteros;
+    private final Path derrame;
+    private FileChannel canal;
+    private final ByteBuffer tramo = ByteBuffer.allocate(ENTEROS_POR_TRAMO * 4);
+    private int[] datos = new int[256];
+    private int inicio;
+    private int cursor;
+    private int fin;
+    private long enDisco;
+
+    /**
+     * @param maxEnteros enteros que se guardan en memoria (4 bytes cada uno).
+     * @param derrame archivo para las jugadas más antiguas, o null para descartarlas.
+     */
+    public HistorialJugadas(int maxEnteros, Path derrame) {
+        if (maxEnteros < 3) throw new IllegalArgumentException("El historial necesita al menos 3 enteros.");
+        this.maxEnteros = maxEnteros;
+        this.derrame = derrame;
+    }
+
+    public boolean puedeDeshacer() {
+        return cursor > inicio || enDisco > 0;
+    }
+
+    public boolean puedeRehacer() {
+        return cursor < fin;
+    }
+
+    /**
+     * Jugadas guardadas en el archivo de derrame.
+     */
+    public long getJugadasEnDisco() {
+        return enDisco;
+    }
+
+    /**
+     * Enteros ocupados en memoria.
+     */
+    public int getEnterosEnMemoria() {
+        return fin - inicio;
+    }
+
+    /**
+     * Registra una jugada ya aplicada que cambió las celdas indices[desde .. hasta).
+     */
+    void registrar(byte tipo, int[] indices, int desde, int hasta, boolean exploto) throws IOException {
+        int cantidad = hasta - desde;
+        if (cantidad <= 0) return;
+        fin = cursor;
+        int cabecera = cantidad | (tipo << BITS_CANTIDAD) | (exploto ? BIT_EXPLOTO : 0);
+        asegurarEspacio(cantidad + 2);
+        datos[fin++] = cabecera;
+        System.arraycopy(indices, desde, datos, fin, cantidad);
+        fin += cantidad;
+        datos[fin++] = cabecera;
+        cursor = fin;
+
+        while (fin - inicio > maxEnteros && inicio < fin) {
+            int largo = (datos[inicio] & MASCARA_CANTIDAD) + 2;
+            if (derrame != null) escribirEnDisco(inicio, largo);
+            inicio += largo;
+        }
+        cursor = Math.max(cursor, inicio);
+    }
+
+    /**
+     * Deshace la última jugada sobre 'tablero' y copia sus celdas en 'delta' (si no es null).
+     * @return true si la jugada deshecha había descubierto una mina, false si no; null si no había nada.
+     */
+    Boolean deshacer(Tablero tablero, DeltaJugadas delta) throws IOException {
+        if (cursor == inicio && !leerDeDisco()) return null;
+        int cabecera = datos[cursor - 1];
+        int cantidad = cabecera & MASCARA_CANTIDAD;
+        int desde = cursor - 1 - cantidad;
+        tablero.revertirCeldas(tipoDe(cabecera), datos, desde, cursor - 1, false);
+        if (delta != null) delta.agregarCeldas(datos, desde, cantidad);
+        cursor = desde - 1;
+        return (cabecera & BIT_EXPLOTO) != 0;
+    }
+
+    /**
+     * Vuelve a aplicar la última jugada deshecha.
+     * @return true si la jugada descubre una mina, false si no; null si no había nada para rehacer.
+     */
+    Boolean rehacer(Tablero tablero, DeltaJugadas delta) {
+        if (cursor == fin) return null;
+        int cabecera = datos[cursor];
+        int cantidad = cabecera & MASCARA_CANTIDAD;
+        tablero.revertirCeldas(tipoDe(cabecera), datos, cursor + 1, cursor + 1 + cantidad, true);
+        if (delta != null) delta.agregarCeldas(datos, cursor + 1, cantidad);
+        cursor += cantidad + 2;
+        return (cabecera & BIT_EXPLOTO) != 0;
+    }
+
+    /**
+     * Vacía el historial (ej. al cargar otra partida).
+     */
+    public void limpiar() throws IOException {
+        inicio = cursor = fin = 0;
+        enDisco = 0;
+        if (canal != null) canal.truncate(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.close();
+            canal = null;
+            Files.deleteIfExists(derrame);
+        }
+    }
+
+    private static byte tipoDe(int cabecera) {
+        return (byte) ((cabecera >>> BITS_CANTIDAD) & 0x3);
+    }
+
+    // Deja lugar para 'n' enteros al final: primero compacta al comienzo y, si no alcanza, crece
+    private void asegurarEspacio(int n) {
+        if (fin + n <= datos.length) return;
+        int usados = fin - inicio;
+        int[] destino = datos;
+        if (usados + n > datos.length) {
+            destino = new int[(int) Math.min(Integer.MAX_VALUE - 8, Math.max((long) datos.length * 2, (long) usados + n))];
+        }
+        System.arraycopy(datos, inicio, destino, 0, usados);
+        datos = destino;
+        cursor -= inicio;
+        fin -= inicio;
+        inicio = 0;
+    }
+
+    private void escribirEnDisco(int desde, int largo) throws IOException {
+        if (canal == null) {
+            canal = FileChannel.open(derrame, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        long posicion = canal.size();
+        // Por tramos, así un flood fill de millones de celdas no necesita otro buffer del mismo tamaño
+        for (int hecho = 0; hecho < largo; ) {
+            int n = Math.min(ENTEROS_POR_TRAMO, largo - hecho);
+            tramo.clear();
+            tramo.asIntBuffer().put(datos, desde + hecho, n);
+            tramo.limit(n * 4);
+            while (tramo.hasRemaining()) posicion += canal.write(tramo, posicion);
+            hecho += n;
+        }
+        enDisco++;
+    }
+
+    /**
+     * Trae de vuelta desde el archivo la jugada más reciente que se derramó, delante de 'inicio'.
+     * @return false si no había jugadas en disco.
+     */
+    private boolean leerDeDisco() throws IOException {
+        if (enDisco == 0) return false;
+        long tamano = canal.size();
+        leer(tamano - 4, 1);
+        int largo = (tramo.getInt(0) & MASCARA_CANTIDAD) + 2;
+
+        if (inicio < largo) {
+            // Se corre el contenido hacia la derecha para hacer lugar adelante
+            int usados = fin - inicio;
+            int[] nuevo = datos.length >= usados + largo ? datos : new int[usados + largo];
+            System.arraycopy(datos, inicio, nuevo, largo, usados);
+            datos = nuevo;
+            cursor += largo - inicio;
+            fin += largo - inicio;
+            inicio = largo;
+        }
+        inicio -= largo;
+        long desde = tamano - largo * 4L;
+        for (int hecho = 0; hecho < largo; ) {
+            int n = Math.min(ENTEROS_POR_TRAMO, largo - hecho);
+            leer(desde + hecho * 4L, n);
+            tramo.asIntBuffer().get(datos, inicio + hecho, n);
+            hecho += n;
+        }
+        canal.truncate(desde);
+        enDisco--;
+        return true;
+    }
+
+    // Lee 'n' enteros desde 'posicion' al comienzo del tramo
+    private void leer(long posicion, int n) throws IOException {
+        tramo.clear();
+        tramo.limit(n * 4);
+        while (tramo.hasRemaining()) {
+            if (canal.read(tramo, posicion + tramo.position()) < 0) throw new IOException("Archivo de historial incompleto.");
+        }
+        tramo.flip();
+    }
+}
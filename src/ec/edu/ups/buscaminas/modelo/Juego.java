@@ -1,41 +1,312 @@
 package ec.edu.ups.buscaminas.modelo;
 
-import java.io.*;
+import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
+import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.metricas.Metricas;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Clase contenedora del estado del juego.
- * Encargada de la persistencia de datos (Guardar/Cargar).
+ * Encargada de la persistencia de datos (Guardar/Cargar) y, si se activa, de registrar
+ * cada jugada en una BitacoraJugadas para poder recuperar la partida tras un cierre inesperado
+ * y en un HistorialJugadas para poder deshacerla.
  */
 public class Juego {
     private Tablero tablero;
     private boolean juegoTerminado;
+    // Semilla con la que se generó el tablero (null si el tablero vino de un archivo)
+    private Long semilla;
+    private BitacoraJugadas bitacora;
+    private HistorialJugadas historial;
 
     public Juego() {
-        this.tablero = new Tablero();
+        this(10, 10, 10);
+    }
+
+    /**
+     * Crea una partida con un tablero de dimensiones y minas personalizadas.
+     */
+    public Juego(int filas, int columnas, int minas) {
+        this(filas, columnas, minas, new Random().nextLong());
+    }
+
+    /**
+     * Crea una partida reproducible: la misma semilla y el mismo primer clic generan siempre
+     * el mismo tablero. Las minas se colocan recién en el primer descubrir (ver Tablero.diferido),
+     * así que crear la partida es casi gratis y el primer clic nunca es mina.
+     */
+    public Juego(int filas, int columnas, int minas, long semilla) {
+        this.tablero = Tablero.diferido(filas, columnas, minas, new SplittableRandom(semilla));
+        this.semilla = semilla;
+        this.juegoTerminado = false;
+    }
+
+    /**
+     * Crea una partida sobre un tablero ya construido (ej. un tablero proyectado en archivo).
+     */
+    public Juego(Tablero tablero) {
+        this.tablero = tablero;
         this.juegoTerminado = false;
     }
 
     public Tablero getTablero() { return tablero; }
     public boolean isJuegoTerminado() { return juegoTerminado; }
     public void setJuegoTerminado(boolean terminado) { this.juegoTerminado = terminado; }
+    public Long getSemilla() { return semilla; }
+    public boolean tieneBitacora() { return bitacora != null; }
+    public HistorialJugadas getHistorial() { return historial; }
+
+    /**
+     * Descubre una casilla y, si hay bitácora activa, registra la jugada.
+     * @return true si el jugador descubrió una mina.
+     */
+    public boolean descubrirCasilla(int f, int c)
+            throws CasillaYaDescubiertaException, CoordenadaInvalidaException, IOException {
+        boolean exploto = tablero.descubrirCasilla(f, c);
+        anotarUltimasAbiertas(BitacoraJugadas.DESCUBRIR, tablero.indiceDe(f, c), exploto);
+        return exploto;
+    }
+
+    /**
+     * Versión sin excepciones de descubrirCasilla.
+     * @return un código de ResultadoJugada.
+     */
+    public int intentarDescubrir(int f, int c) throws IOException {
+        int resultado = tablero.intentarDescubrir(f, c);
+        if (resultado == ResultadoJugada.OK || resultado == ResultadoJugada.MINA) {
+            anotarUltimasAbiertas(BitacoraJugadas.DESCUBRIR, tablero.indiceDe(f, c), resultado == ResultadoJugada.MINA);
+        }
+        return resultado;
+    }
 
     /**
-     * Persistencia: Serialización de Objetos.
-     * Guarda el objeto 'Tablero' completo (y sus casillas) en un archivo binario.
+     * Acorde sobre un número descubierto y, si abrió algo y hay bitácora activa, registra la jugada.
+     * @return true si el acorde descubrió una mina.
+     */
+    public boolean acordeCasilla(int f, int c) throws CoordenadaInvalidaException, IOException {
+        boolean exploto = tablero.acordeCasilla(f, c);
+        anotarUltimasAbiertas(BitacoraJugadas.ACORDE, tablero.indiceDe(f, c), exploto);
+        return exploto;
+    }
+
+    /**
+     * Pone o quita una bandera y, si hay bitácora activa, registra la jugada.
+     */
+    public void alternarBandera(int f, int c) throws CoordenadaInvalidaException, IOException {
+        tablero.alternarBandera(f, c);
+        int indice = tablero.indiceDe(f, c);
+        // Sobre una casilla descubierta no cambia nada: va a la bitácora pero no al historial
+        anotar(BitacoraJugadas.BANDERA, indice, false, new int[]{indice}, 0, tablero.estaDescubierta(indice) ? 0 : 1);
+    }
+
+    private void anotarUltimasAbiertas(byte tipo, int indice, boolean exploto) throws IOException {
+        if (tablero.getUltimasAbiertas() > 0) {
+            anotar(tipo, indice, exploto, tablero.ultimasAbiertas(), 0, tablero.getUltimasAbiertas());
+        }
+    }
+
+    /**
+     * Registra en la bitácora y en el historial (si están activos) una jugada que ya se aplicó
+     * al tablero y cambió las celdas celdas[desde .. hasta).
+     */
+    void anotar(byte tipo, int indice, boolean exploto, int[] celdas, int desde, int hasta) throws IOException {
+        if (historial != null) historial.registrar(tipo, celdas, desde, hasta, exploto);
+        if (bitacora == null) return;
+        bitacora.registrar(tipo, indice, tablero.tomarMinasForzadas(), hasta > desde);
+        // No se toma instantánea de una partida perdida: la recuperación la detecta al reproducir
+        if (!exploto && bitacora.requiereInstantanea()) {
+            bitacora.tomarInstantanea(tablero);
+        }
+    }
+
+    /**
+     * Empieza a guardar las jugadas para deshacer/rehacer (reemplaza un historial anterior).
+     * @param maxEnteros memoria máxima del historial en enteros (4 bytes cada uno).
+     * @param archivoDerrame archivo para las jugadas más antiguas, o null para descartarlas.
+     */
+    public void activarHistorial(int maxEnteros, String archivoDerrame) throws IOException {
+        if (historial != null) historial.close();
+        historial = new HistorialJugadas(maxEnteros, archivoDerrame != null ? Path.of(archivoDerrame) : null);
+    }
+
+    /**
+     * Deshace la última jugada (descubrir, bandera o acorde). Si esa jugada había pisado una
+     * mina, la partida deja de estar terminada.
+     * @return ResultadoJugada.OK, o SIN_EFECTO si no hay historial o nada para deshacer.
+     */
+    public int deshacer() throws IOException {
+        return revertir(false, null);
+    }
+
+    /**
+     * Vuelve a aplicar la última jugada deshecha.
+     * @return ResultadoJugada.OK, MINA si la jugada rehecha pisa una mina, o SIN_EFECTO.
+     */
+    public int rehacer() throws IOException {
+        return revertir(true, null);
+    }
+
+    int revertir(boolean rehacer, DeltaJugadas delta) throws IOException {
+        if (historial == null) return ResultadoJugada.SIN_EFECTO;
+        Boolean exploto = rehacer ? historial.rehacer(tablero, delta) : historial.deshacer(tablero, delta);
+        if (exploto == null) return ResultadoJugada.SIN_EFECTO;
+        if (exploto) juegoTerminado = rehacer;
+        if (bitacora != null) {
+            if (bitacora.registrarReversion(rehacer)) {
+                if (!juegoTerminado && bitacora.requiereInstantanea()) bitacora.tomarInstantanea(tablero);
+            } else {
+                // La jugada revertida no está en la bitácora: se reinicia desde el tablero actual
+                activarBitacora(bitacora.getRuta().toString(), bitacora.getRegistrosPorLote());
+            }
+        }
+        return rehacer && exploto ? ResultadoJugada.MINA : ResultadoJugada.OK;
+    }
+
+    /**
+     * Empieza a registrar las jugadas en 'archivo' (reemplaza una bitácora anterior).
+     * @param registrosPorLote jugadas que se acumulan antes de escribir (1 = escribir cada jugada).
+     */
+    public void activarBitacora(String archivo, int registrosPorLote) throws IOException {
+        if (bitacora != null) bitacora.close();
+        bitacora = BitacoraJugadas.crear(Path.of(archivo), tablero, semilla, registrosPorLote,
+                BitacoraJugadas.JUGADAS_POR_INSTANTANEA);
+    }
+
+    /**
+     * Recupera una partida desde su bitácora (última instantánea + jugadas posteriores)
+     * y sigue registrando en el mismo archivo.
+     */
+    public static Juego recuperar(String archivo, int registrosPorLote) throws IOException {
+        Juego juego = reproducir(archivo, Long.MAX_VALUE);
+        juego.bitacora = BitacoraJugadas.abrir(Path.of(archivo), registrosPorLote,
+                BitacoraJugadas.JUGADAS_POR_INSTANTANEA);
+        return juego;
+    }
+
+    /**
+     * Reconstruye la partida tal como estaba tras las primeras 'jugadas' jugadas de la bitácora,
+     * sin modificarla (repeticiones deterministas).
+     */
+    public static Juego reproducir(String archivo, long jugadas) throws IOException {
+        BitacoraJugadas.Reproduccion reproduccion = BitacoraJugadas.reproducir(Path.of(archivo), jugadas);
+        Juego juego = new Juego(reproduccion.getTablero());
+        juego.semilla = reproduccion.getSemilla();
+        juego.juegoTerminado = reproduccion.isExploto();
+        return juego;
+    }
+
+    /**
+     * Abre una partida guardada con guardarJuego como un Juego nuevo. Si el tablero tiene una
+     * mina descubierta, la partida queda terminada.
+     */
+    public static Juego abrir(String archivo) throws IOException, ClassNotFoundException {
+        Juego juego = new Juego(FormatoTablero.cargar(Path.of(archivo)));
+        Tablero tablero = juego.tablero;
+        for (int i = 0, n = tablero.getFilas() * tablero.getColumnas(); i < n; i++) {
+            if (tablero.tieneMina(i) && tablero.estaDescubierta(i)) {
+                juego.juegoTerminado = true;
+                break;
+            }
+        }
+        return juego;
+    }
+
+    /**
+     * Abre una partida guardada con guardarDiferido. Si el tablero no tiene minas, 'semilla'
+     * las coloca en el primer descubrir, igual que en la partida original.
+     */
+    public static Juego abrir(String archivo, long semilla) throws IOException, ClassNotFoundException {
+        Juego juego = abrir(archivo);
+        juego.tablero.diferirMinasSiFaltan(new SplittableRandom(semilla));
+        juego.semilla = semilla;
+        return juego;
+    }
+
+    /**
+     * Persistencia: formato binario compacto (ver FormatoTablero).
+     * Guarda dimensiones y los planos de bits de minas, descubiertas y banderas.
      */
     public void guardarJuego(String archivo) throws IOException {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(archivo))) {
-            out.writeObject(tablero);
+        long inicio = Metricas.inicio();
+        try {
+            if (bitacora != null) bitacora.vaciar();
+            Path ruta = Path.of(archivo);
+            // Un tablero proyectado ya está en su archivo: guardar es solo forzar las páginas a disco
+            if (tablero.isMapeado() && tablero.getArchivoMapeado().equals(ruta.toAbsolutePath())) {
+                tablero.sincronizar();
+                return;
+            }
+            FormatoTablero.guardar(tablero, ruta);
+        } finally {
+            Metricas.registrar(Metricas.GUARDAR, inicio);
         }
     }
 
     /**
-     * Persistencia: Deserialización.
-     * Recupera el estado exacto del tablero desde el archivo.
+     * Como guardarJuego, pero si las minas todavía no se colocaron (nadie descubrió nada) el
+     * tablero se guarda sin ellas: abrir(archivo, semilla) las vuelve a diferir. Si las minas ya
+     * están o no se conoce la semilla, es igual a guardarJuego.
+     */
+    public void guardarDiferido(String archivo) throws IOException {
+        if (tablero.isMinasColocadas() || semilla == null || tablero.isMapeado()) {
+            guardarJuego(archivo);
+            return;
+        }
+        long inicio = Metricas.inicio();
+        try {
+            if (bitacora != null) bitacora.vaciar();
+            FormatoTablero.guardar(tablero, Path.of(archivo), false);
+        } finally {
+            Metricas.registrar(Metricas.GUARDAR, inicio);
+        }
+    }
+
+    /**
+     * Persistencia: recupera el estado exacto del tablero desde el archivo.
+     * También acepta partidas guardadas con la serialización de Java de versiones anteriores
+     * y tableros proyectados, que se abren en su sitio sin copiarlos a memoria.
+     * Si hay bitácora activa, se reinicia a partir del tablero cargado; el historial se vacía.
      */
     public void cargarJuego(String archivo) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(archivo))) {
-            this.tablero = (Tablero) in.readObject();
+        long inicio = Metricas.inicio();
+        // El tablero anterior (si es proyectado) se cierra antes de abrir el nuevo, que puede ser el mismo archivo
+        Tablero previo = tablero;
+        previo.cerrar();
+        try {
+            this.tablero = FormatoTablero.cargar(Path.of(archivo));
+        } catch (Exception e) {
+            // Sigue en juego el anterior: vuelve a quedar "en uso"
+            previo.sincronizar();
+            throw e;
+        } finally {
+            Metricas.registrar(Metricas.CARGAR, inicio);
+        }
+        this.semilla = null;
+        if (historial != null) historial.limpiar();
+        if (bitacora != null) {
+            BitacoraJugadas anterior = bitacora;
+            anterior.close();
+            bitacora = BitacoraJugadas.crear(anterior.getRuta(), tablero, null, anterior.getRegistrosPorLote(),
+                    BitacoraJugadas.JUGADAS_POR_INSTANTANEA);
+        }
+    }
+
+    /**
+     * Cierre ordenado de la partida: escribe las jugadas pendientes de la bitácora y,
+     * en modo proyectado, deja el archivo sincronizado.
+     */
+    public void cerrar() throws IOException {
+        tablero.cerrar();
+        if (historial != null) {
+            historial.close();
+            historial = null;
+        }
+        if (bitacora != null) {
+            bitacora.close();
+            bitacora = null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.io.IOException;
+
+/**
+ * Motor de juego sin interfaz (headless) sobre un Juego.
+ * Recibe lotes de jugadas codificadas como enteros, las aplica sin lanzar excepciones ni
+ * hacer entrada/salida de consola, y devuelve un DeltaJugadas con el resultado de cada
+ * jugada y las celdas que cambiaron. Lo usan el controlador de consola, los bots y las pruebas.
+ * <p>
+ * Una jugada ocupa un int: el tipo en los 4 bits altos y el índice de celda
+ * (fila * columnas + columna) en los 28 bajos, lo que alcanza para Tablero.MAX_CELDAS.
+ * Los tableros proyectados pueden ser más grandes: sus celdas desde MAX_INDICE_LOTE en
+ * adelante solo se juegan con aplicar(tipo, fila, col, delta), que no codifica la jugada.
+ * Si la partida tiene bitácora, cada jugada que cambió el tablero se registra en ella; si tiene
+ * historial, también en él para poder deshacerla.
+ */
+public final class MotorJuego {
+    public static final byte DESCUBRIR = BitacoraJugadas.DESCUBRIR;
+    public static final byte BANDERA = BitacoraJugadas.BANDERA;
+    public static final byte ACORDE = BitacoraJugadas.ACORDE;
+
+    private static final int BITS_INDICE = 28;
+    private static final int MASCARA_INDICE = (1 << BITS_INDICE) - 1;
+    // Índice reservado para coordenadas fuera del tablero
+    private static final int FUERA = MASCARA_INDICE;
+
+    /**
+     * Primer índice de celda que no cabe en una jugada codificada.
+     */
+    public static final int MAX_INDICE_LOTE = FUERA;
+
+    private final Juego juego;
+
+    public MotorJuego(Juego juego) {
+        this.juego = juego;
+    }
+
+    public Juego getJuego() { return juego; }
+
+    /**
+     * Codifica una jugada sobre un índice de celda.
+     * @throws IllegalArgumentException si el índice es negativo o no cabe en 28 bits
+     *         (celdas de tableros proyectados desde MAX_INDICE_LOTE).
+     */
+    public static int jugada(byte tipo, int indice) {
+        if (indice < 0 || indice >= MAX_INDICE_LOTE)
+            throw new IllegalArgumentException("Índice de celda no codificable en un lote: " + indice);
+        return codificar(tipo, indice);
+    }
+
+    /**
+     * Codifica una jugada por fila y columna; si la coordenada está fuera del tablero la
+     * jugada resultará en ResultadoJugada.FUERA_DE_RANGO.
+     * @throws IllegalArgumentException si la celda no cabe en una jugada codificada.
+     */
+    public int jugada(byte tipo, int fila, int col) {
+        int indice = indiceEn(juego.getTablero(), fila, col);
+        return indice < 0 ? codificar(tipo, FUERA) : jugada(tipo, indice);
+    }
+
+    private static int codificar(byte tipo, int indice) {
+        return (tipo << BITS_INDICE) | indice;
+    }
+
+    // Índice de (fila, col), o -1 si está fuera del tablero
+    private static int indiceEn(Tablero tablero, int fila, int col) {
+        boolean dentro = fila >= 0 && fila < tablero.getFilas() && col >= 0 && col < tablero.getColumnas();
+        return dentro ? fila * tablero.getColumnas() + col : -1;
+    }
+
+    public static byte tipoDe(int jugada) {
+        return (byte) (jugada >>> BITS_INDICE);
+    }
+
+    public static int indiceDe(int jugada) {
+        return jugada & MASCARA_INDICE;
+    }
+
+    /**
+     * Aplica una sola jugada. Admite cualquier celda del tablero, también las que no caben
+     * en una jugada codificada.
+     * @return el código de ResultadoJugada (también queda en 'delta').
+     */
+    public int aplicar(byte tipo, int fila, int col, DeltaJugadas delta) throws IOException {
+        delta.limpiar();
+        aplicarEn(tipo, indiceEn(juego.getTablero(), fila, col), delta);
+        delta.cerrarLote(juego.getTablero());
+        return delta.getResultado(0);
+    }
+
+    /**
+     * Aplica las jugadas jugadas[desde .. desde + cantidad) en orden. Tras una mina o una
+     * victoria, las jugadas restantes del lote devuelven ResultadoJugada.TERMINADO.
+     * @return el mismo 'delta', limpiado y con los resultados del lote.
+     */
+    public DeltaJugadas aplicar(int[] jugadas, int desde, int cantidad, DeltaJugadas delta) throws IOException {
+        delta.limpiar();
+        for (int i = desde; i < desde + cantidad; i++) {
+            aplicarUna(jugadas[i], delta);
+        }
+        delta.cerrarLote(juego.getTablero());
+        return delta;
+    }
+
+    /**
+     * Deshace la última jugada del historial de la partida; 'delta' recibe las celdas que volvieron
+     * a estar ocultas (o sin bandera).
+     * @return ResultadoJugada.OK, o SIN_EFECTO si no había nada para deshacer.
+     */
+    public int deshacer(DeltaJugadas delta) throws IOException {
+        return revertir(false, delta);
+    }
+
+    /**
+     * Vuelve a aplicar la última jugada deshecha.
+     * @return ResultadoJugada.OK, MINA si la jugada rehecha pisa una mina, o SIN_EFECTO.
+     */
+    public int rehacer(DeltaJugadas delta) throws IOException {
+        return revertir(true, delta);
+    }
+
+    private int revertir(boolean rehacer, DeltaJugadas delta) throws IOException {
+        delta.limpiar();
+        int resultado = juego.revertir(rehacer, delta);
+        delta.cerrarJugada(resultado);
+        delta.cerrarLote(juego.getTablero());
+        return resultado;
+    }
+
+    private void aplicarUna(int jugada, DeltaJugadas delta) throws IOException {
+        int indice = indiceDe(jugada);
+        aplicarEn(tipoDe(jugada), indice == FUERA ? -1 : indice, delta);
+    }
+
+    // 'indice' negativo: coordenada fuera del tablero
+    private void aplicarEn(byte tipo, int indice, DeltaJugadas delta) throws IOException {
+        Tablero tablero = juego.getTablero();
+        if (juego.isJuegoTerminado() || tablero.verificarVictoria()) {
+            delta.cerrarJugada(ResultadoJugada.TERMINADO);
+            return;
+        }
+        if (indice < 0) {
+            delta.cerrarJugada(ResultadoJugada.FUERA_DE_RANGO);
+            return;
+        }
+        int antes = delta.getCantidadCeldas();
+        int resultado = tablero.jugar(tipo, indice, delta);
+        if (resultado == ResultadoJugada.MINA) juego.setJuegoTerminado(true);
+        if (delta.getCantidadCeldas() > antes) {
+            juego.anotar(tipo, indice, resultado == ResultadoJugada.MINA, delta.celdas(), antes, delta.getCantidadCeldas());
+        }
+        delta.cerrarJugada(resultado);
+    }
+}
@@ -0,0 +1,44 @@
+package ec.edu.ups.buscaminas.modelo;
+
+/**
+ * Códigos de resultado de una jugada para las API sin excepciones (MotorJuego).
+ * Son enteros para poder guardarlos en arreglos primitivos sin crear objetos.
+ */
+public final class ResultadoJugada {
+    /** La jugada se aplicó. */
+    public static final int OK = 0;
+    /** Se descubrió una mina: partida perdida. */
+    public static final int MINA = 1;
+    /** La casilla ya estaba descubierta. */
+    public static final int YA_DESCUBIERTA = 2;
+    /** La coordenada no está dentro del tablero. */
+    public static final int FUERA_DE_RANGO = 3;
+    /** La casilla tiene bandera y no se descubre. */
+    public static final int CON_BANDERA = 4;
+    /** La jugada no cambió nada (ej. un acorde sobre un número sin sus banderas). */
+    public static final int SIN_EFECTO = 5;
+    /** La partida ya había terminado. */
+    public static final int TERMINADO = 6;
+    /** El tipo de jugada no es DESCUBRIR, BANDERA ni ACORDE. */
+    public static final int JUGADA_INVALIDA = 7;
+
+    private ResultadoJugada() {
+    }
+
+    /**
+     * Mensaje para mostrar al usuario, igual al de las excepciones equivalentes.
+     */
+    public static String describir(int resultado) {
+        switch (resultado) {
+            case OK: return "Jugada aplicada.";
+            case MINA: return "Se descubrió una mina.";
+            case YA_DESCUBIERTA: return "Esta casilla ya fue descubierta.";
+            case FUERA_DE_RANGO: return "Coordenada fuera de rango.";
+            case CON_BANDERA: return "La casilla tiene bandera.";
+            case SIN_EFECTO: return "La jugada no tuvo efecto.";
+            case TERMINADO: return "La partida ya terminó.";
+            case JUGADA_INVALIDA: return "Tipo de jugada no válido.";
+            default: return "Resultado desconocido: " + resultado;
+        }
+    }
+}
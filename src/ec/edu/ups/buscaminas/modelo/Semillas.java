@@ -0,0 +1,22 @@
+package ec.edu.ups.buscaminas.modelo;
+
+/**
+ * Derivación de semillas con la mezcla de splitmix64: a partir de una semilla base y un
+ * índice (partida, candidato, trozo) da semillas sin relación entre sí, que dependen solo
+ * de esos dos valores y no del orden ni del hilo en que se piden.
+ */
+public final class Semillas {
+
+    private Semillas() {
+    }
+
+    /**
+     * Semilla número 'i' derivada de 'semilla'.
+     */
+    public static long derivar(long semilla, long i) {
+        long z = semilla + (i + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -2,92 +2,389 @@ package ec.edu.ups.buscaminas.modelo;
 
 import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
 import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
-import java.io.Serializable;
+import ec.edu.ups.buscaminas.metricas.Metricas;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Clase que gestiona la lógica de la matriz del juego.
- * Contiene la estructura de datos principal (matriz de Casillas).
+ * El estado de cada celda se guarda empaquetado en un byte (mina, descubierta, bandera
+ * y número de minas vecinas) dentro de un buffer plano, en lugar de un objeto por celda.
+ * Los números se calculan bajo demanda, por regiones de 32x32, la primera vez que se leen.
+ * El buffer puede estar en el heap o proyectado desde un archivo (ver ArchivoMapeado).
+ * Las Casillas se crean bajo demanda como vistas sobre ese buffer.
  */
-public class Tablero implements Serializable {
-    private Casilla[][] casillas;
-    private final int FILAS = 10;
-    private final int COLUMNAS = 10;
-    private final int TOTAL_MINAS = 10;
+public class Tablero {
+    // Distribución de bits de cada celda
+    static final int MASCARA_NUMERO = 0x0F;
+    static final int BIT_MINA = 0x10;
+    static final int DESPLAZAMIENTO_MINA = 4;
+    static final int BIT_DESCUBIERTA = 0x20;
+    static final int BIT_BANDERA = 0x40;
+    // El número de la celda ya se calculó (ver contarRegion)
+    static final int BIT_CONTADO = 0x80;
+    // Lado de las regiones en que se calculan los números (potencia de dos)
+    private static final int LADO_REGION = 32;
 
+    // Límite de celdas admitido en memoria (10.000 x 10.000)
+    public static final int MAX_CELDAS = 100_000_000;
+
+    // Límite de celdas de un tablero proyectado: cabecera y celdas caben en un solo MappedByteBuffer
+    public static final int MAX_CELDAS_MAPEADO = Integer.MAX_VALUE - ArchivoMapeado.TAM_CABECERA;
+
+    // Símbolo ASCII de cada estado empaquetado; la segunda mitad es con mostrarMinas = true
+    private static final byte[] GLIFOS = construirGlifos();
+
+    private final ByteBuffer celdas;
+    // Archivo que respalda las celdas en modo proyectado; null si viven en el heap
+    private final ArchivoMapeado archivo;
+    // Cola reutilizable del flood fill; al terminar contiene las celdas abiertas en la última jugada
+    private int[] colaRegion;
+    private int ultimasAbiertas;
+    private final int filas;
+    private final int columnas;
+    private final int totalMinas;
+    // Contadores incrementales: permiten verificar la victoria en O(1)
+    private int segurasPorDescubrir;
+    private int banderasColocadas;
+    // Generador de las minas que aún no se colocaron (tableros diferidos); null si ya están
+    private RandomGenerator minasPendientes;
+    // Las minas se colocaron por una consulta y no por un descubrir (ver tomarMinasForzadas)
+    private boolean minasForzadas;
+    // Tres filas de sumas horizontales para contarRegion, reutilizadas
+    private int[][] sumas;
+
+    /**
+     * Tablero clásico de 10x10 con 10 minas.
+     */
     public Tablero() {
-        casillas = new Casilla[FILAS][COLUMNAS];
-        inicializarTablero();
+        this(10, 10, 10);
+    }
+
+    public Tablero(int filas, int columnas, int totalMinas) {
+        this(filas, columnas, totalMinas, new Random());
     }
 
     /**
-     * Configuración inicial: Llena el tablero de casillas vacías, luego inserta minas
-     * y finalmente calcula los números de proximidad.
+     * Tablero con un generador aleatorio inyectado: con una semilla fija
+     * (ej. new SplittableRandom(42)) se obtiene siempre el mismo tablero.
      */
-    private void inicializarTablero() {
-        for (int i = 0; i < FILAS; i++) {
-            for (int j = 0; j < COLUMNAS; j++) {
-                // Polimorfismo: Inicialmente todas son vacías
-                casillas[i][j] = new CasillaVacia();
-            }
+    public Tablero(int filas, int columnas, int totalMinas, RandomGenerator random) {
+        this(filas, columnas, totalMinas, random, -1, -1);
+    }
+
+    /**
+     * Tablero cuyo primer clic en (filaSegura, columnaSegura) nunca es mina: no se colocan
+     * minas en esa casilla ni en sus vecinas (solo en la casilla si el tablero está muy lleno).
+     * Con filaSegura = -1 no hay zona excluida.
+     */
+    public Tablero(int filas, int columnas, int totalMinas, RandomGenerator random, int filaSegura, int columnaSegura) {
+        this(filas, columnas, totalMinas, celdasVacias(filas, columnas, totalMinas), random);
+        colocarMinas(filaSegura < 0 || !dentroDeLimites(filaSegura, columnaSegura) ? -1 : indice(filaSegura, columnaSegura));
+    }
+
+    /**
+     * Reconstruye un tablero a partir de sus celdas (solo bits de mina, descubierta y bandera),
+     * como las lee FormatoTablero. Los contadores se recalculan; los números, al leerlos.
+     */
+    Tablero(int filas, int columnas, int totalMinas, byte[] celdas) {
+        if (celdas.length != filas * columnas)
+            throw new IllegalArgumentException("Las celdas no coinciden con las dimensiones.");
+        this.filas = filas;
+        this.columnas = columnas;
+        this.totalMinas = totalMinas;
+        this.celdas = ByteBuffer.wrap(celdas);
+        this.archivo = null;
+        recalcularContadores();
+    }
+
+    // Tablero sin descubrir ni banderas cuyas minas saldrán de 'minasPendientes'
+    private Tablero(int filas, int columnas, int totalMinas, byte[] celdas, RandomGenerator minasPendientes) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.totalMinas = totalMinas;
+        this.celdas = ByteBuffer.wrap(celdas);
+        this.archivo = null;
+        this.minasPendientes = minasPendientes;
+        this.segurasPorDescubrir = celdas.length - totalMinas;
+    }
+
+    /**
+     * Tablero diferido: solo guarda dimensiones, minas y el generador. Las minas se colocan en
+     * el primer descubrir, fuera de esa casilla y sus vecinas, así el primer clic nunca es
+     * mina. Crearlo no recorre las celdas y una partida que se reemplaza con cargarJuego no
+     * llega a generarse. Si antes se consulta dónde están las minas (tieneMina, getCasilla,
+     * guardar), se colocan en ese momento sin zona excluida.
+     */
+    public static Tablero diferido(int filas, int columnas, int totalMinas, RandomGenerator random) {
+        return new Tablero(filas, columnas, totalMinas, celdasVacias(filas, columnas, totalMinas), random);
+    }
+
+    private static byte[] celdasVacias(int filas, int columnas, int totalMinas) {
+        validarDimensiones(filas, columnas, totalMinas);
+        return new byte[filas * columnas];
+    }
+
+    /**
+     * Tablero respaldado por un archivo proyectado. Si 'random' no es null se generan minas
+     * nuevas; si es null se usan las celdas que ya están en el archivo.
+     */
+    private Tablero(ArchivoMapeado archivo, RandomGenerator random) {
+        this.filas = archivo.filas();
+        this.columnas = archivo.columnas();
+        this.totalMinas = archivo.totalMinas();
+        this.celdas = archivo.celdas();
+        this.archivo = archivo;
+        if (random != null) {
+            minasPendientes = random;
+            colocarMinas(-1);
+            segurasPorDescubrir = celdas.capacity() - totalMinas;
+            banderasColocadas = 0;
+        } else if (archivo.sincronizadoAlAbrir()) {
+            // Cierre limpio: los contadores de la cabecera son válidos y no se recorre el tablero
+            segurasPorDescubrir = archivo.seguras();
+            banderasColocadas = archivo.banderas();
+        } else {
+            recalcularContadores();
         }
-        colocarMinas();
-        calcularNumeros();
     }
 
     /**
-     * Coloca las minas aleatoriamente garantizando que sean exactamente 10.
+     * Crea un tablero nuevo cuyas celdas viven en 'ruta' (1 byte por celda + cabecera).
+     * Permite tableros más grandes que el heap disponible, hasta MAX_CELDAS_MAPEADO celdas.
+     */
+    public static Tablero crearMapeado(Path ruta, int filas, int columnas, int totalMinas,
+                                       RandomGenerator random) throws IOException {
+        validarDimensiones(filas, columnas, totalMinas, MAX_CELDAS_MAPEADO);
+        return new Tablero(ArchivoMapeado.crear(ruta, filas, columnas, totalMinas), random);
+    }
+
+    /**
+     * Abre un tablero proyectado existente sin leer sus celdas: el costo no depende del tamaño
+     * (salvo que el archivo no se haya cerrado bien, en cuyo caso se recalculan los contadores).
+     */
+    public static Tablero abrirMapeado(Path ruta) throws IOException {
+        return new Tablero(ArchivoMapeado.abrir(ruta), null);
+    }
+
+    public boolean isMapeado() {
+        return archivo != null;
+    }
+
+    /**
+     * Archivo que respalda el tablero, o null si el tablero vive en memoria.
      */
-    private void colocarMinas() {
-        Random random = new Random();
-        int minasColocadas = 0;
-        while (minasColocadas < TOTAL_MINAS) {
-            int f = random.nextInt(FILAS);
-            int c = random.nextInt(COLUMNAS);
-            
-            // Solo colocamos si no hay una mina previa en esa posición
-            if (!casillas[f][c].esMina()) {
-                // Reemplazamos la casilla vacía por una de tipo mina
-                casillas[f][c] = new CasillaMina();
-                minasColocadas++;
+    public Path getArchivoMapeado() {
+        return archivo == null ? null : archivo.ruta();
+    }
+
+    /**
+     * "Guardar" en modo proyectado: fuerza a disco las páginas modificadas y los contadores.
+     * No tiene efecto para tableros en memoria.
+     */
+    public void sincronizar() {
+        if (archivo != null) archivo.sincronizar(segurasPorDescubrir, banderasColocadas);
+    }
+
+    /**
+     * Sincroniza y deja el archivo marcado como cerrado correctamente, para que la próxima
+     * apertura no necesite recorrer las celdas. Si se sigue jugando sobre este tablero, la
+     * primera jugada vuelve a marcarlo "en uso". No tiene efecto para tableros en memoria.
+     */
+    public void cerrar() {
+        if (archivo != null) archivo.sincronizar(segurasPorDescubrir, banderasColocadas);
+    }
+
+    /**
+     * Comprueba las dimensiones y minas de un tablero en memoria sin crearlo.
+     * @throws IllegalArgumentException si no son válidas.
+     */
+    public static void validarDimensiones(int filas, int columnas, int totalMinas) {
+        validarDimensiones(filas, columnas, totalMinas, MAX_CELDAS);
+    }
+
+    private static void validarDimensiones(int filas, int columnas, int totalMinas, int maxCeldas) {
+        if (filas <= 0 || columnas <= 0 || (long) filas * columnas > maxCeldas)
+            throw new IllegalArgumentException("Dimensiones de tablero no válidas: " + filas + "x" + columnas);
+        if (totalMinas < 0 || totalMinas >= filas * columnas)
+            throw new IllegalArgumentException("Cantidad de minas no válida: " + totalMinas);
+    }
+
+    /**
+     * Coloca las minas pendientes; con indiceSeguro >= 0 no se ponen minas en esa casilla ni en
+     * sus vecinas. Las banderas ya puestas se conservan.
+     */
+    private void colocarMinas(int indiceSeguro) {
+        // Fisher-Yates parcial / muestreo secuencial: costo independiente de la densidad
+        int[] zonaSegura = indiceSeguro < 0 ? new int[0]
+                : ColocadorMinas.zonaSegura(filas, columnas, totalMinas, indiceSeguro / columnas, indiceSeguro % columnas);
+        ColocadorMinas.colocar(celdas, totalMinas, zonaSegura, minasPendientes);
+        minasPendientes = null;
+    }
+
+    /**
+     * Coloca ya las minas de un tablero diferido (sin zona excluida); no hace nada si ya están.
+     */
+    void asegurarMinas() {
+        if (minasPendientes == null) return;
+        colocarMinas(-1);
+        minasForzadas = true;
+    }
+
+    /**
+     * true (una sola vez) si asegurarMinas colocó las minas desde la última llamada: la
+     * bitácora lo anota porque al reproducir ese momento no se ve en las jugadas.
+     */
+    boolean tomarMinasForzadas() {
+        boolean forzadas = minasForzadas;
+        minasForzadas = false;
+        return forzadas;
+    }
+
+    public boolean isMinasColocadas() {
+        return minasPendientes == null;
+    }
+
+    /**
+     * Vuelve a diferir las minas si el tablero no tiene ninguna colocada (la instantánea de un
+     * tablero diferido), para que 'random' las coloque en el primer descubrir como la primera vez.
+     */
+    void diferirMinasSiFaltan(RandomGenerator random) {
+        if (totalMinas == 0 || minasPendientes != null) return;
+        for (int i = 0; i < celdas.capacity(); i++) {
+            if ((celdas.get(i) & (BIT_MINA | BIT_DESCUBIERTA)) != 0) return;
+        }
+        minasPendientes = random;
+        segurasPorDescubrir -= totalMinas;
+    }
+
+    // Estado de la celda con su número ya calculado
+    private int estadoContado(int indice) {
+        int estado = celdas.get(indice);
+        if ((estado & BIT_CONTADO) != 0) return estado;
+        contarRegion(indice);
+        return celdas.get(indice);
+    }
+
+    /**
+     * Calcula los números de la región de LADO_REGION x LADO_REGION que contiene a la celda
+     * (solo las celdas que aún no lo tienen) y los marca con BIT_CONTADO. Primero se obtiene,
+     * para cada fila, la suma horizontal de minas en ventanas de 3 columnas; luego el número
+     * de cada celda es la suma vertical de esas tres filas menos su propia mina. Se mantienen
+     * solo tres filas de sumas que se van rotando, sin comprobaciones de límites por celda.
+     * Las minas también guardan su número, lo que permite moverlas después sin recalcular.
+     */
+    private void contarRegion(int indice) {
+        asegurarMinas();
+        int fila = indice / columnas;
+        int col = indice - fila * columnas;
+        int fDesde = fila & -LADO_REGION;
+        int fHasta = Math.min(filas, fDesde + LADO_REGION);
+        int cDesde = col & -LADO_REGION;
+        int cHasta = Math.min(columnas, cDesde + LADO_REGION);
+        if (sumas == null) sumas = new int[3][LADO_REGION];
+        int[] anterior = sumas[0];
+        int[] actual = sumas[1];
+        int[] siguiente = sumas[2];
+        if (fDesde > 0) sumasHorizontales(fDesde - 1, cDesde, cHasta, anterior);
+        else Arrays.fill(anterior, 0);
+        sumasHorizontales(fDesde, cDesde, cHasta, actual);
+
+        for (int f = fDesde; f < fHasta; f++) {
+            if (f + 1 < filas) sumasHorizontales(f + 1, cDesde, cHasta, siguiente);
+            else Arrays.fill(siguiente, 0);
+            int base = f * columnas;
+            for (int c = cDesde; c < cHasta; c++) {
+                int estado = celdas.get(base + c);
+                if ((estado & BIT_CONTADO) != 0) continue;
+                int k = c - cDesde;
+                int minas = anterior[k] + actual[k] + siguiente[k] - ((estado >> DESPLAZAMIENTO_MINA) & 1);
+                celdas.put(base + c, (byte) ((estado & ~MASCARA_NUMERO) | minas | BIT_CONTADO));
             }
+            // Rotamos las filas de sumas
+            int[] libre = anterior;
+            anterior = actual;
+            actual = siguiente;
+            siguiente = libre;
+        }
+    }
+
+    // destino[c - cDesde] = minas en las columnas c-1, c y c+1 de la fila, para c en [cDesde, cHasta)
+    private void sumasHorizontales(int fila, int cDesde, int cHasta, int[] destino) {
+        int base = fila * columnas;
+        int izquierda = cDesde > 0 ? (celdas.get(base + cDesde - 1) >> DESPLAZAMIENTO_MINA) & 1 : 0;
+        int centro = (celdas.get(base + cDesde) >> DESPLAZAMIENTO_MINA) & 1;
+        for (int c = cDesde; c < cHasta; c++) {
+            int derecha = c + 1 < columnas ? (celdas.get(base + c + 1) >> DESPLAZAMIENTO_MINA) & 1 : 0;
+            destino[c - cDesde] = izquierda + centro + derecha;
+            izquierda = centro;
+            centro = derecha;
         }
     }
 
     /**
-     * Recorre el tablero para calcular cuántas minas rodean a cada casilla vacía.
+     * Suma 'delta' al número de las 8 vecinas de la celda (actualización incremental).
+     * Las que aún no tienen número no se tocan: lo calcularán con las minas ya movidas.
      */
-    private void calcularNumeros() {
-        for (int i = 0; i < FILAS; i++) {
-            for (int j = 0; j < COLUMNAS; j++) {
-                if (!casillas[i][j].esMina()) {
-                    int minas = contarMinasAdyacentes(i, j);
-                    casillas[i][j].setMinasAlrededor(minas);
-                }
+    private void ajustarVecinas(int fila, int col, int delta) {
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                if (f == fila && c == col) continue;
+                int indice = indice(f, c);
+                int estado = celdas.get(indice);
+                if ((estado & BIT_CONTADO) != 0) fijarNumero(indice, (estado & MASCARA_NUMERO) + delta);
             }
         }
     }
 
     /**
-     * Revisa las 8 casillas circundantes buscando minas.
+     * Mueve una mina de una casilla oculta a otra, actualizando solo los números de las
+     * vecinas de ambas casillas en lugar de recalcular el tablero completo.
      */
-    private int contarMinasAdyacentes(int fila, int col) {
-        int contador = 0;
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int f = fila + i;
-                int c = col + j;
-                // Validamos límites para evitar ArrayIndexOutOfBoundsException
-                if (dentroDeLimites(f, c) && casillas[f][c].esMina()) {
-                    contador++;
-                }
+    public void moverMina(int filaOrigen, int colOrigen, int filaDestino, int colDestino) {
+        if (!dentroDeLimites(filaOrigen, colOrigen) || !dentroDeLimites(filaDestino, colDestino))
+            throw new IllegalArgumentException("Coordenada fuera de rango.");
+        int origen = indice(filaOrigen, colOrigen);
+        int destino = indice(filaDestino, colDestino);
+        if (!tieneBit(origen, BIT_MINA) || tieneBit(destino, BIT_MINA))
+            throw new IllegalArgumentException("El origen debe tener mina y el destino no.");
+        if (tieneBit(origen, BIT_DESCUBIERTA) || tieneBit(destino, BIT_DESCUBIERTA))
+            throw new IllegalStateException("No se pueden mover minas de o hacia casillas descubiertas.");
+
+        marcarEnUso();
+        celdas.put(origen, (byte) (celdas.get(origen) & ~BIT_MINA));
+        ajustarVecinas(filaOrigen, colOrigen, -1);
+        celdas.put(destino, (byte) (celdas.get(destino) | BIT_MINA));
+        ajustarVecinas(filaDestino, colDestino, +1);
+    }
+
+    /**
+     * Reubicación del primer clic (como el Buscaminas clásico): si (f, c) tiene mina, la
+     * mueve a la primera casilla oculta sin mina en orden de lectura.
+     * @return true si hubo que mover la mina.
+     */
+    public boolean asegurarCasilla(int f, int c) throws CoordenadaInvalidaException {
+        if (!dentroDeLimites(f, c)) throw new CoordenadaInvalidaException("Coordenada fuera de rango.");
+        if (!tieneBit(indice(f, c), BIT_MINA)) return false;
+        for (int destino = 0; destino < celdas.capacity(); destino++) {
+            if ((celdas.get(destino) & (BIT_MINA | BIT_DESCUBIERTA)) == 0) {
+                moverMina(f, c, destino / columnas, destino % columnas);
+                return true;
             }
         }
-        return contador;
+        return false;
     }
 
     private boolean dentroDeLimites(int f, int c) {
-        return f >= 0 && f < FILAS && c >= 0 && c < COLUMNAS;
+        return f >= 0 && f < filas && c >= 0 && c < columnas;
+    }
+
+    private int indice(int f, int c) {
+        return f * columnas + c;
     }
 
     /**
@@ -95,70 +392,462 @@ public class Tablero implements Serializable {
      * @return true si el jugador descubrió una mina (Juego Perdido).
      */
     public boolean descubrirCasilla(int f, int c) throws CasillaYaDescubiertaException, CoordenadaInvalidaException {
-        if (!dentroDeLimites(f, c)) throw new CoordenadaInvalidaException("Coordenada fuera de rango.");
-        
-        Casilla casilla = casillas[f][c];
+        switch (intentarDescubrir(f, c)) {
+            case ResultadoJugada.FUERA_DE_RANGO:
+                throw new CoordenadaInvalidaException("Coordenada fuera de rango.");
+            case ResultadoJugada.YA_DESCUBIERTA:
+                throw new CasillaYaDescubiertaException("Esta casilla ya fue descubierta.");
+            case ResultadoJugada.MINA:
+                return true;
+            default:
+                return false;
+        }
+    }
 
-        if (casilla.isDescubierta()) throw new CasillaYaDescubiertaException("Esta casilla ya fue descubierta.");
-        
-        // Protección: Si tiene bandera, no permitimos descubrirla por accidente
-        if (casilla.isTieneBandera()) return false; 
+    /**
+     * Igual que descubrirCasilla pero sin excepciones, para bots y clientes que repiten
+     * clics a menudo: el resultado es un código de ResultadoJugada (OK, MINA, YA_DESCUBIERTA,
+     * FUERA_DE_RANGO o CON_BANDERA).
+     */
+    public int intentarDescubrir(int f, int c) {
+        if (!dentroDeLimites(f, c)) return ResultadoJugada.FUERA_DE_RANGO;
+        return jugar(BitacoraJugadas.DESCUBRIR, indice(f, c), null);
+    }
 
-        casilla.setDescubierta(true);
+    /**
+     * Núcleo de descubrirCasilla para una celda válida, oculta y sin bandera.
+     */
+    private boolean descubrir(int indice) {
+        marcarEnUso();
+        int estado = celdas.get(indice);
+        celdas.put(indice, (byte) (estado | BIT_DESCUBIERTA));
+
+        // Algoritmo de expansión (Flood Fill):
+        // Si es un 0 (sin minas cerca), abre automáticamente las vecinas.
+        // Para una casilla numérica solo registra la propia celda.
+        int abiertas = abrirAdyacentes(indice);
 
         // Si es mina, retornamos true para indicar Game Over
-        if (casilla.esMina()) return true; 
+        if ((estado & BIT_MINA) != 0) return true;
 
-        // Algoritmo de expansión recursiva (Flood Fill):
-        // Si es un 0 (sin minas cerca), abrimos automáticamente las vecinas.
-        if (casilla.getMinasAlrededor() == 0) {
-            abrirAdyacentes(f, c);
-        }
+        segurasPorDescubrir -= abiertas;
         return false;
     }
 
     /**
-     * Recursividad para abrir áreas vacías automáticamente.
+     * Aplica una jugada registrada en una BitacoraJugadas sin lanzar excepciones:
+     * las jugadas que no cambian nada (celda ya descubierta, fuera de rango) se ignoran.
+     * @return true si la jugada descubrió una mina.
+     */
+    boolean aplicarJugada(byte tipo, int indice) {
+        return jugar(tipo, indice, null) == ResultadoJugada.MINA;
+    }
+
+    /**
+     * Núcleo sin excepciones de las jugadas (usado por MotorJuego y la bitácora).
+     * Si 'delta' no es null, se le agregan las celdas que cambiaron.
+     * @return un código de ResultadoJugada.
      */
-    private void abrirAdyacentes(int fila, int col) {
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int f = fila + i;
-                int c = col + j;
-                if (dentroDeLimites(f, c) && !casillas[f][c].isDescubierta() && !casillas[f][c].esMina()) {
-                    casillas[f][c].setDescubierta(true);
-                    // Si la vecina también es 0, seguimos expandiendo (llamada recursiva)
-                    if (casillas[f][c].getMinasAlrededor() == 0) {
-                        abrirAdyacentes(f, c); 
+    int jugar(byte tipo, int indice, DeltaJugadas delta) {
+        long inicio = Metricas.inicio();
+        int resultado = aplicar(tipo, indice, delta);
+        if (inicio != 0) {
+            boolean cambio = resultado == ResultadoJugada.OK || resultado == ResultadoJugada.MINA;
+            switch (tipo) {
+                case BitacoraJugadas.DESCUBRIR:
+                    Metricas.registrar(Metricas.DESCUBRIR, inicio, cambio ? ultimasAbiertas : 0);
+                    break;
+                case BitacoraJugadas.BANDERA:
+                    Metricas.registrar(Metricas.BANDERA, inicio, cambio ? 1 : 0);
+                    break;
+                case BitacoraJugadas.ACORDE:
+                    Metricas.registrar(Metricas.ACORDE, inicio, cambio ? ultimasAbiertas : 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return resultado;
+    }
+
+    private int aplicar(byte tipo, int indice, DeltaJugadas delta) {
+        if (indice < 0 || indice >= celdas.capacity()) return ResultadoJugada.FUERA_DE_RANGO;
+        int estado = celdas.get(indice);
+        switch (tipo) {
+            case BitacoraJugadas.DESCUBRIR:
+                if ((estado & BIT_DESCUBIERTA) != 0) return ResultadoJugada.YA_DESCUBIERTA;
+                if ((estado & BIT_BANDERA) != 0) {
+                    ultimasAbiertas = 0;
+                    return ResultadoJugada.CON_BANDERA;
+                }
+                if (minasPendientes != null) colocarMinas(indice);
+                boolean exploto = descubrir(indice);
+                if (delta != null) delta.agregarCeldas(colaRegion, ultimasAbiertas);
+                return exploto ? ResultadoJugada.MINA : ResultadoJugada.OK;
+            case BitacoraJugadas.BANDERA:
+                if ((estado & BIT_DESCUBIERTA) != 0) return ResultadoJugada.YA_DESCUBIERTA;
+                alternar(indice);
+                if (delta != null) delta.agregarCelda(indice);
+                return ResultadoJugada.OK;
+            case BitacoraJugadas.ACORDE:
+                return acorde(indice, delta);
+            default:
+                return ResultadoJugada.JUGADA_INVALIDA;
+        }
+    }
+
+    /**
+     * Acorde: sobre un número descubierto con tantas banderas vecinas como su número,
+     * descubre todas las vecinas ocultas sin bandera. Las vecinas son las semillas de un
+     * único flood fill, así que las regiones de ceros que comparten se recorren una sola vez;
+     * las celdas abiertas quedan juntas en getUltimasAbiertas/copiarUltimasAbiertas.
+     */
+    private int acorde(int indice, DeltaJugadas delta) {
+        ultimasAbiertas = 0;
+        if ((celdas.get(indice) & (BIT_DESCUBIERTA | BIT_MINA)) != BIT_DESCUBIERTA) return ResultadoJugada.SIN_EFECTO;
+        int numero = estadoContado(indice) & MASCARA_NUMERO;
+        if (numero == 0) return ResultadoJugada.SIN_EFECTO;
+
+        int fila = indice / columnas;
+        int col = indice - fila * columnas;
+        int fDesde = Math.max(0, fila - 1), fHasta = Math.min(filas - 1, fila + 1);
+        int cDesde = Math.max(0, col - 1), cHasta = Math.min(columnas - 1, col + 1);
+        int banderas = 0;
+        for (int f = fDesde; f <= fHasta; f++) {
+            for (int c = cDesde; c <= cHasta; c++) {
+                if ((celdas.get(f * columnas + c) & BIT_BANDERA) != 0) banderas++;
+            }
+        }
+        if (banderas != numero) return ResultadoJugada.SIN_EFECTO;
+
+        marcarEnUso();
+        if (colaRegion == null) colaRegion = new int[64];
+        int semillas = 0;
+        int minasPisadas = 0;
+        for (int f = fDesde; f <= fHasta; f++) {
+            for (int c = cDesde; c <= cHasta; c++) {
+                int vecina = f * columnas + c;
+                int estadoVecina = celdas.get(vecina);
+                if ((estadoVecina & (BIT_DESCUBIERTA | BIT_BANDERA)) != 0) continue;
+                celdas.put(vecina, (byte) (estadoVecina | BIT_DESCUBIERTA));
+                if ((estadoVecina & BIT_MINA) != 0) minasPisadas++;
+                colaRegion[semillas++] = vecina;
+            }
+        }
+        if (semillas == 0) return ResultadoJugada.SIN_EFECTO;
+
+        int abiertas = expandir(semillas);
+        segurasPorDescubrir -= abiertas - minasPisadas;
+        if (delta != null) delta.agregarCeldas(colaRegion, abiertas);
+        return minasPisadas > 0 ? ResultadoJugada.MINA : ResultadoJugada.OK;
+    }
+
+    /**
+     * Acorde sobre (f, c): si es un número descubierto con tantas banderas vecinas como su
+     * valor, descubre en una sola pasada todas las vecinas ocultas sin bandera. Si no se
+     * cumple la condición no hace nada (getUltimasAbiertas() queda en 0).
+     * @return true si alguna vecina era mina (Juego Perdido).
+     */
+    public boolean acordeCasilla(int f, int c) throws CoordenadaInvalidaException {
+        if (!dentroDeLimites(f, c)) throw new CoordenadaInvalidaException("Coordenada fuera de rango.");
+        long inicio = Metricas.inicio();
+        boolean exploto = acorde(indice(f, c), null) == ResultadoJugada.MINA;
+        Metricas.registrar(Metricas.ACORDE, inicio, ultimasAbiertas);
+        return exploto;
+    }
+
+    /**
+     * Flood fill iterativo con una cola de enteros: abre la región de ceros que contiene
+     * a 'inicio' (ya descubierta) y su borde numérico. Cada celda entra a la cola una sola
+     * vez porque se marca como descubierta al encolarla, así que el costo es O(región)
+     * y no hay riesgo de StackOverflowError. Las celdas con bandera no se abren.
+     * @return cantidad de celdas abiertas, incluida 'inicio'.
+     */
+    private int abrirAdyacentes(int inicio) {
+        if (colaRegion == null) colaRegion = new int[64];
+        colaRegion[0] = inicio;
+        return expandir(1);
+    }
+
+    /**
+     * Flood fill desde las primeras 'semillas' celdas de colaRegion (ya marcadas como
+     * descubiertas); varias semillas comparten la misma cola y la misma marca de visitadas.
+     * @return cantidad de celdas abiertas, incluidas las semillas.
+     */
+    private int expandir(int semillas) {
+        int[] cola = colaRegion;
+        int cabeza = 0;
+        int fin = semillas;
+
+        while (cabeza < fin) {
+            int actual = cola[cabeza++];
+            // Borde numérico o mina: no se expande
+            if ((estadoContado(actual) & (MASCARA_NUMERO | BIT_MINA)) != 0) continue;
+
+            int fila = actual / columnas;
+            int col = actual - fila * columnas;
+            int fDesde = fila > 0 ? fila - 1 : 0;
+            int fHasta = fila < filas - 1 ? fila + 1 : fila;
+            int cDesde = col > 0 ? col - 1 : 0;
+            int cHasta = col < columnas - 1 ? col + 1 : col;
+
+            for (int f = fDesde; f <= fHasta; f++) {
+                int base = f * columnas;
+                for (int c = cDesde; c <= cHasta; c++) {
+                    int vecina = base + c;
+                    int estado = celdas.get(vecina);
+                    if ((estado & (BIT_DESCUBIERTA | BIT_MINA | BIT_BANDERA)) == 0) {
+                        celdas.put(vecina, (byte) (estado | BIT_DESCUBIERTA));
+                        if (fin == cola.length) {
+                            cola = Arrays.copyOf(cola, (int) Math.min((long) cola.length * 2, celdas.capacity()));
+                        }
+                        cola[fin++] = vecina;
                     }
                 }
             }
         }
+        colaRegion = cola;
+        ultimasAbiertas = fin;
+        return fin;
+    }
+
+    /**
+     * Cantidad de celdas que abrió el último descubrirCasilla (1 si no hubo expansión,
+     * 0 si la casilla tenía bandera).
+     */
+    public int getUltimasAbiertas() {
+        return ultimasAbiertas;
+    }
+
+    /**
+     * Copia en 'destino' los índices (fila * columnas + columna) de las celdas abiertas
+     * por el último descubrirCasilla.
+     * @return cantidad de índices copiados.
+     */
+    public int copiarUltimasAbiertas(int[] destino) {
+        int n = Math.min(ultimasAbiertas, destino.length);
+        if (n == 0) return 0;
+        System.arraycopy(colaRegion, 0, destino, 0, n);
+        return n;
     }
 
     public void alternarBandera(int f, int c) throws CoordenadaInvalidaException {
         if (!dentroDeLimites(f, c)) throw new CoordenadaInvalidaException("Coordenada fuera de rango.");
+        long inicio = Metricas.inicio();
+        int indice = indice(f, c);
+        alternar(indice);
+        Metricas.registrar(Metricas.BANDERA, inicio, tieneBit(indice, BIT_DESCUBIERTA) ? 0 : 1);
+    }
+
+    private void alternar(int indice) {
         // Solo permitimos poner bandera si está oculta
-        if (!casillas[f][c].isDescubierta()) {
-            casillas[f][c].setTieneBandera(!casillas[f][c].isTieneBandera());
+        if (!tieneBit(indice, BIT_DESCUBIERTA)) {
+            marcarEnUso();
+            celdas.put(indice, (byte) (celdas.get(indice) ^ BIT_BANDERA));
+            banderasColocadas += tieneBit(indice, BIT_BANDERA) ? 1 : -1;
         }
     }
 
+    /**
+     * Deshace (o rehace) las celdas que cambió una jugada, para HistorialJugadas:
+     * descubrir y acorde solo encienden BIT_DESCUBIERTA y bandera solo invierte BIT_BANDERA,
+     * así que basta con volver a cambiar esos bits en las mismas celdas.
+     */
+    void revertirCeldas(byte tipo, int[] indices, int desde, int hasta, boolean rehacer) {
+        if (tipo == BitacoraJugadas.BANDERA) {
+            for (int i = desde; i < hasta; i++) alternar(indices[i]);
+            return;
+        }
+        marcarEnUso();
+        int seguras = 0;
+        for (int i = desde; i < hasta; i++) {
+            int estado = celdas.get(indices[i]);
+            celdas.put(indices[i], (byte) (rehacer ? estado | BIT_DESCUBIERTA : estado & ~BIT_DESCUBIERTA));
+            if ((estado & BIT_MINA) == 0) seguras++;
+        }
+        segurasPorDescubrir += rehacer ? -seguras : seguras;
+    }
+
+    // En modo proyectado, la cabecera deja de decir "sincronizado" antes de cambiar celdas
+    private void marcarEnUso() {
+        if (archivo != null) archivo.enUso();
+    }
+
+    // Celdas abiertas por la última jugada, válidas en [0, getUltimasAbiertas())
+    int[] ultimasAbiertas() {
+        return colaRegion;
+    }
+
+    /**
+     * Índice lineal de la celda (fila * columnas + columna), el que usan las bitácoras.
+     */
+    public int indiceDe(int f, int c) {
+        return indice(f, c);
+    }
+
+    /*
+     * Consultas por índice sin crear vistas Casilla, para estrategias y bots que
+     * recorren muchas celdas por jugada.
+     */
+    public boolean estaDescubierta(int indice) { return tieneBit(indice, BIT_DESCUBIERTA); }
+    public boolean tieneBandera(int indice) { return tieneBit(indice, BIT_BANDERA); }
+    public boolean tieneMina(int indice) { return tieneBit(indice, BIT_MINA); }
+
+    /**
+     * Número de minas vecinas de una celda descubierta (sin sentido para celdas ocultas).
+     */
+    public int getMinasAlrededor(int indice) { return numero(indice); }
+
     /**
      * Condición de victoria: Ganamos si todas las casillas NO minadas están descubiertas.
+     * Se resuelve en O(1) gracias al contador de casillas seguras ocultas.
      */
     public boolean verificarVictoria() {
-        for (int i = 0; i < FILAS; i++) {
-            for (int j = 0; j < COLUMNAS; j++) {
-                if (!casillas[i][j].esMina() && !casillas[i][j].isDescubierta()) {
-                    return false; // Aún faltan casillas seguras por abrir
-                }
-            }
+        long inicio = Metricas.inicio();
+        boolean gano = segurasPorDescubrir == 0;
+        Metricas.registrar(Metricas.VICTORIA, inicio);
+        return gano;
+    }
+
+    /**
+     * Casillas seguras que aún faltan por descubrir.
+     */
+    public int getSegurasPorDescubrir() { return segurasPorDescubrir; }
+
+    public int getBanderasColocadas() { return banderasColocadas; }
+
+    /**
+     * Minas que quedan sin marcar según las banderas colocadas (puede ser negativo).
+     */
+    public int getMinasRestantes() { return totalMinas - banderasColocadas; }
+
+    /**
+     * Recalcula los contadores recorriendo el tablero una sola vez.
+     * Se usa al restaurar un tablero guardado.
+     */
+    private void recalcularContadores() {
+        int seguras = 0;
+        int banderas = 0;
+        for (int i = 0; i < celdas.capacity(); i++) {
+            int estado = celdas.get(i);
+            if ((estado & (BIT_MINA | BIT_DESCUBIERTA)) == 0) seguras++;
+            if ((estado & BIT_BANDERA) != 0) banderas++;
         }
-        return true;
+        segurasPorDescubrir = seguras;
+        banderasColocadas = banderas;
     }
 
+    public int getFilas() { return filas; }
+    public int getColumnas() { return columnas; }
+    public int getTotalMinas() { return totalMinas; }
+
+    /**
+     * Devuelve una vista de la celda; sus getters y setters leen y escriben en el tablero.
+     */
     public Casilla getCasilla(int f, int c) {
-        return casillas[f][c];
+        if (!dentroDeLimites(f, c)) throw new ArrayIndexOutOfBoundsException("Coordenada fuera de rango.");
+        int indice = indice(f, c);
+        if (tieneBit(indice, BIT_MINA)) return new CasillaMina(this, indice);
+        return new CasillaVacia(this, indice);
+    }
+
+    /**
+     * Escribe en 'destino' el símbolo de las columnas [desde, hasta) de la fila 'f', a partir de
+     * 'pos' y avanzando 'paso' bytes por celda. Mismas reglas que Casilla.obtenerSimbolo, pero
+     * cada símbolo sale de una tabla precalculada: no se crea ningún objeto.
+     */
+    public void escribirGlifos(int f, int desde, int hasta, boolean mostrarMinas, byte[] destino, int pos, int paso) {
+        if (mostrarMinas) asegurarMinas();
+        int base = f * columnas;
+        int mitad = mostrarMinas ? 0x80 : 0;
+        for (int c = desde; c < hasta; c++, pos += paso) {
+            int estado = celdas.get(base + c);
+            // Solo las descubiertas muestran su número
+            if ((estado & (BIT_DESCUBIERTA | BIT_CONTADO)) == BIT_DESCUBIERTA) estado = estadoContado(base + c);
+            destino[pos] = GLIFOS[mitad | (estado & 0x7F)];
+        }
+    }
+
+    /**
+     * Cuenta las casillas descubiertas y con bandera de cada bloque de altoBloque x anchoBloque
+     * en un solo recorrido. Los arreglos tienen un elemento por bloque, fila por fila
+     * (ceil(columnas / anchoBloque) bloques por fila). Sirve para resúmenes como un minimapa.
+     */
+    public void contarPorBloques(int altoBloque, int anchoBloque, int[] descubiertas, int[] banderas) {
+        int bloquesPorFila = (columnas + anchoBloque - 1) / anchoBloque;
+        Arrays.fill(descubiertas, 0);
+        Arrays.fill(banderas, 0);
+        for (int f = 0; f < filas; f++) {
+            int base = f * columnas;
+            int primerBloque = (f / altoBloque) * bloquesPorFila;
+            for (int c = 0; c < columnas; c++) {
+                int estado = celdas.get(base + c);
+                if ((estado & (BIT_DESCUBIERTA | BIT_BANDERA)) == 0) continue;
+                int bloque = primerBloque + c / anchoBloque;
+                if ((estado & BIT_DESCUBIERTA) != 0) descubiertas[bloque]++;
+                else banderas[bloque]++;
+            }
+        }
+    }
+
+    // Símbolo de un estado empaquetado (con su número ya calculado), para otros tableros del paquete
+    static byte glifo(int estado, boolean mostrarMinas) {
+        return GLIFOS[(mostrarMinas ? 0x80 : 0) | (estado & 0x7F)];
+    }
+
+    private static byte[] construirGlifos() {
+        byte[] glifos = new byte[256];
+        for (int i = 0; i < glifos.length; i++) {
+            boolean mostrarMinas = (i & 0x80) != 0;
+            boolean descubierta = (i & BIT_DESCUBIERTA) != 0;
+            boolean bandera = (i & BIT_BANDERA) != 0;
+            int numero = i & MASCARA_NUMERO;
+            char simbolo;
+            if ((i & BIT_MINA) != 0) {
+                simbolo = descubierta || mostrarMinas ? '*' : bandera ? 'X' : '-';
+            } else if (bandera) {
+                simbolo = 'X';
+            } else if (!descubierta) {
+                simbolo = '-';
+            } else {
+                simbolo = numero == 0 ? 'O' : (char) ('0' + Math.min(numero, 9));
+            }
+            glifos[i] = (byte) simbolo;
+        }
+        return glifos;
+    }
+
+    // Estado empaquetado completo, para la persistencia
+    ByteBuffer celdas() {
+        return celdas;
+    }
+
+    // Acceso a bits usado por las vistas Casilla
+    boolean tieneBit(int indice, int bit) {
+        if ((bit & BIT_MINA) != 0) asegurarMinas();
+        return (celdas.get(indice) & bit) != 0;
+    }
+
+    void cambiarBit(int indice, int bit, boolean valor) {
+        if (bit == BIT_DESCUBIERTA) asegurarMinas();
+        int antes = celdas.get(indice);
+        int despues = valor ? antes | bit : antes & ~bit;
+        if (antes == despues) return;
+        celdas.put(indice, (byte) despues);
+
+        // Mantiene los contadores aunque el cambio llegue desde una vista Casilla
+        if (bit == BIT_BANDERA) {
+            banderasColocadas += valor ? 1 : -1;
+        } else if (bit == BIT_DESCUBIERTA && (antes & BIT_MINA) == 0) {
+            segurasPorDescubrir += valor ? -1 : 1;
+        }
+    }
+
+    int numero(int indice) {
+        return estadoContado(indice) & MASCARA_NUMERO;
+    }
+
+    void fijarNumero(int indice, int minas) {
+        celdas.put(indice, (byte) ((celdas.get(indice) & ~MASCARA_NUMERO) | (minas & MASCARA_NUMERO) | BIT_CONTADO));
     }
-}
\ No newline at end of file
+}
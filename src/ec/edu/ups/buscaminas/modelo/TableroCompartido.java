@@ -0,0 +1,216 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tablero cooperativo para varios jugadores que juegan a la vez desde distintos hilos.
+ * Usa el mismo byte por celda que Tablero (con los números ya calculados) y cada cambio de
+ * una celda es un compareAndSet sobre ese byte, sin candados:
+ * <ul>
+ *   <li>Descubrir una celda es ganarle el CAS que pone BIT_DESCUBIERTA: cada celda la abre un
+ *       solo jugador y solo ese jugador la suma a su puntaje.</li>
+ *   <li>El flood fill de cada hilo reclama las vecinas con el mismo CAS. Si dos regiones se
+ *       solapan, cada celda queda en una sola cola, y un cero que reclamó otro hilo lo expande
+ *       ese hilo, así que la región termina abierta completa igual.</li>
+ *   <li>Poner una bandera también es un CAS: o la bandera llega antes y la celda no se abre,
+ *       o la celda se abre antes y la bandera se rechaza.</li>
+ * </ul>
+ * Los contadores globales son LongAdder y los de cada jugador ocupan su propia línea de
+ * caché, así los hilos no compiten más que por las celdas que tocan a la vez.
+ * Un jugador que descubre una mina queda eliminado; los demás siguen.
+ */
+public class TableroCompartido {
+    private static final VarHandle CELDA = MethodHandles.arrayElementVarHandle(byte[].class);
+    // Longs por jugador en 'marcadores': puntaje, explosiones y relleno hasta 128 bytes
+    private static final int PASO_JUGADOR = 16;
+    private static final int PUNTAJE = 0;
+    private static final int EXPLOSIONES = 1;
+
+    private final int filas;
+    private final int columnas;
+    private final int totalMinas;
+    private final int jugadores;
+    private final byte[] celdas;
+    private final int seguras;
+    private final LongAdder descubiertas = new LongAdder();
+    private final LongAdder banderas = new LongAdder();
+    private final AtomicLongArray marcadores;
+    // Cola del flood fill de cada hilo
+    private final ThreadLocal<int[]> colas = ThreadLocal.withInitial(() -> new int[64]);
+
+    /**
+     * Copia las minas, los números y lo ya jugado de 'origen' (que no se modifica).
+     */
+    public TableroCompartido(Tablero origen, int jugadores) {
+        if (jugadores < 1) throw new IllegalArgumentException("Debe haber al menos un jugador.");
+        origen.asegurarMinas();
+        this.filas = origen.getFilas();
+        this.columnas = origen.getColumnas();
+        this.totalMinas = origen.getTotalMinas();
+        this.jugadores = jugadores;
+        this.celdas = new byte[filas * columnas];
+        int minas = 0;
+        int abiertas = 0;
+        for (int i = 0; i < celdas.length; i++) {
+            int estado = origen.numero(i);
+            if (origen.tieneBit(i, Tablero.BIT_MINA)) {
+                estado |= Tablero.BIT_MINA;
+                minas++;
+            }
+            if (origen.tieneBit(i, Tablero.BIT_DESCUBIERTA)) {
+                estado |= Tablero.BIT_DESCUBIERTA;
+                if ((estado & Tablero.BIT_MINA) == 0) abiertas++;
+            }
+            if (origen.tieneBit(i, Tablero.BIT_BANDERA)) {
+                estado |= Tablero.BIT_BANDERA;
+                banderas.increment();
+            }
+            celdas[i] = (byte) (estado | Tablero.BIT_CONTADO);
+        }
+        this.seguras = celdas.length - minas;
+        this.descubiertas.add(abiertas);
+        this.marcadores = new AtomicLongArray(jugadores * PASO_JUGADOR);
+    }
+
+    /**
+     * Descubre (fila, columna) para 'jugador' y, si es un cero, su región.
+     * @return un código de ResultadoJugada; TERMINADO si el jugador ya explotó o el tablero
+     *         está resuelto.
+     */
+    public int descubrir(int jugador, int fila, int columna) {
+        if (!dentroDeLimites(fila, columna)) return ResultadoJugada.FUERA_DE_RANGO;
+        if (isEliminado(jugador) || isGanado()) return ResultadoJugada.TERMINADO;
+        int indice = fila * columnas + columna;
+
+        int estado;
+        do {
+            estado = (byte) CELDA.getVolatile(celdas, indice);
+            if ((estado & Tablero.BIT_DESCUBIERTA) != 0) return ResultadoJugada.YA_DESCUBIERTA;
+            if ((estado & Tablero.BIT_BANDERA) != 0) return ResultadoJugada.CON_BANDERA;
+        } while (!CELDA.compareAndSet(celdas, indice, (byte) estado, (byte) (estado | Tablero.BIT_DESCUBIERTA)));
+
+        if ((estado & Tablero.BIT_MINA) != 0) {
+            marcadores.incrementAndGet(jugador * PASO_JUGADOR + EXPLOSIONES);
+            return ResultadoJugada.MINA;
+        }
+        int abiertas = (estado & Tablero.MASCARA_NUMERO) == 0 ? expandir(indice) : 1;
+        marcadores.addAndGet(jugador * PASO_JUGADOR + PUNTAJE, abiertas);
+        descubiertas.add(abiertas);
+        return ResultadoJugada.OK;
+    }
+
+    /**
+     * Flood fill desde 'inicio' (un cero que este hilo ya descubrió). Solo se encolan las
+     * celdas cuyo CAS ganó este hilo.
+     * @return cantidad de celdas abiertas por este hilo, incluida 'inicio'.
+     */
+    private int expandir(int inicio) {
+        int[] cola = colas.get();
+        cola[0] = inicio;
+        int cabeza = 0;
+        int fin = 1;
+        while (cabeza < fin) {
+            int actual = cola[cabeza++];
+            if ((celdas[actual] & Tablero.MASCARA_NUMERO) != 0) continue;
+
+            int fila = actual / columnas;
+            int col = actual - fila * columnas;
+            int fDesde = fila > 0 ? fila - 1 : 0;
+            int fHasta = fila < filas - 1 ? fila + 1 : fila;
+            int cDesde = col > 0 ? col - 1 : 0;
+            int cHasta = col < columnas - 1 ? col + 1 : col;
+
+            for (int f = fDesde; f <= fHasta; f++) {
+                int base = f * columnas;
+                for (int c = cDesde; c <= cHasta; c++) {
+                    int vecina = base + c;
+                    if (reclamar(vecina)) {
+                        if (fin == cola.length) {
+                            cola = Arrays.copyOf(cola, Math.min(cola.length * 2, celdas.length));
+                            colas.set(cola);
+                        }
+                        cola[fin++] = vecina;
+                    }
+                }
+            }
+        }
+        return fin;
+    }
+
+    // Descubre una celda oculta, sin mina y sin bandera; false si otro la cambió primero
+    private boolean reclamar(int indice) {
+        while (true) {
+            int estado = (byte) CELDA.getVolatile(celdas, indice);
+            if ((estado & (Tablero.BIT_DESCUBIERTA | Tablero.BIT_MINA | Tablero.BIT_BANDERA)) != 0) return false;
+            if (CELDA.compareAndSet(celdas, indice, (byte) estado, (byte) (estado | Tablero.BIT_DESCUBIERTA))) return true;
+        }
+    }
+
+    /**
+     * Pone o quita una bandera en una casilla oculta.
+     * @return ResultadoJugada.OK, YA_DESCUBIERTA, FUERA_DE_RANGO o TERMINADO.
+     */
+    public int alternarBandera(int jugador, int fila, int columna) {
+        if (!dentroDeLimites(fila, columna)) return ResultadoJugada.FUERA_DE_RANGO;
+        if (isEliminado(jugador)) return ResultadoJugada.TERMINADO;
+        int indice = fila * columnas + columna;
+        int estado;
+        do {
+            estado = (byte) CELDA.getVolatile(celdas, indice);
+            if ((estado & Tablero.BIT_DESCUBIERTA) != 0) return ResultadoJugada.YA_DESCUBIERTA;
+        } while (!CELDA.compareAndSet(celdas, indice, (byte) estado, (byte) (estado ^ Tablero.BIT_BANDERA)));
+        if ((estado & Tablero.BIT_BANDERA) != 0) banderas.decrement(); else banderas.increment();
+        return ResultadoJugada.OK;
+    }
+
+    private boolean dentroDeLimites(int f, int c) {
+        return f >= 0 && f < filas && c >= 0 && c < columnas;
+    }
+
+    /**
+     * Casillas seguras que abrió el jugador.
+     */
+    public long getPuntaje(int jugador) {
+        return marcadores.get(jugador * PASO_JUGADOR + PUNTAJE);
+    }
+
+    public boolean isEliminado(int jugador) {
+        return marcadores.get(jugador * PASO_JUGADOR + EXPLOSIONES) > 0;
+    }
+
+    /**
+     * Todas las casillas seguras descubiertas. Mientras otros hilos juegan el valor puede
+     * llegar un poco tarde, nunca antes de tiempo.
+     */
+    public boolean isGanado() {
+        return descubiertas.sum() == seguras;
+    }
+
+    public long getSegurasPorDescubrir() { return seguras - descubiertas.sum(); }
+    public long getBanderasColocadas() { return banderas.sum(); }
+
+    public boolean estaDescubierta(int indice) { return ((byte) CELDA.getVolatile(celdas, indice) & Tablero.BIT_DESCUBIERTA) != 0; }
+    public boolean tieneBandera(int indice) { return ((byte) CELDA.getVolatile(celdas, indice) & Tablero.BIT_BANDERA) != 0; }
+    public boolean tieneMina(int indice) { return (celdas[indice] & Tablero.BIT_MINA) != 0; }
+    public int getMinasAlrededor(int indice) { return celdas[indice] & Tablero.MASCARA_NUMERO; }
+
+    /**
+     * Escribe los símbolos de las columnas [desde, hasta) de la fila 'f', como
+     * Tablero.escribirGlifos con paso 1. Con jugadas en curso es una foto aproximada.
+     */
+    public void escribirGlifos(int f, int desde, int hasta, boolean mostrarMinas, byte[] destino, int pos) {
+        int base = f * columnas;
+        for (int c = desde; c < hasta; c++) {
+            destino[pos++] = Tablero.glifo((byte) CELDA.getOpaque(celdas, base + c), mostrarMinas);
+        }
+    }
+
+    public int getFilas() { return filas; }
+    public int getColumnas() { return columnas; }
+    public int getTotalMinas() { return totalMinas; }
+    public int getJugadores() { return jugadores; }
+}
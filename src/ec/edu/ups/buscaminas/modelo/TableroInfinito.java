@@ -0,0 +1,393 @@
+package ec.edu.ups.buscaminas.modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Tablero "infinito": filas y columnas en todo el rango de int (también negativas), divididas
+ * en trozos de 64x64 celdas con el mismo byte por celda que Tablero. Las minas de cada trozo
+ * salen solo de (semilla, coordenadas del trozo), así que un trozo se genera al tocarlo por
+ * primera vez y siempre se vuelve a generar igual. Los números se calculan por trozo al leerlos,
+ * mirando el borde de los trozos vecinos (sin cargarlos: sus minas se regeneran).
+ * <p>
+ * En memoria quedan a lo sumo 'maxTrozos' trozos, los usados más recientemente. Al sacar uno,
+ * si el jugador lo cambió (descubiertas, banderas) se escribe en una ranura del archivo de
+ * derrame; si no, se descarta porque se puede regenerar. Así la memoria depende de la zona
+ * explorada y no del tamaño del tablero. Durante una jugada el límite puede superarse (un flood
+ * fill que cruza muchos trozos); se recorta al terminar cada llamada pública.
+ * <p>
+ * Las 3x3 casillas alrededor de (0, 0) nunca tienen mina: es el primer clic natural.
+ */
+public class TableroInfinito implements Closeable {
+    private static final int BITS_LADO = 6;
+    public static final int LADO_TROZO = 1 << BITS_LADO;
+    private static final int MASCARA_LADO = LADO_TROZO - 1;
+    private static final int CELDAS_TROZO = LADO_TROZO * LADO_TROZO;
+    // Con menos del 10% de minas las regiones de ceros podrían no terminar (percolación)
+    public static final int MIN_MINAS_POR_TROZO = CELDAS_TROZO / 10;
+    private static final int[] SIN_EXCLUIDAS = new int[0];
+
+    private final long semilla;
+    private final int minasPorTrozo;
+    private final int maxTrozos;
+    private final Path derrame;
+    private FileChannel canal;
+    // Trozos escritos en el archivo de derrame -> número de ranura
+    private final Map<Long, Integer> ranuras = new HashMap<>();
+    // En orden de uso: el primero es el candidato a salir
+    private final LinkedHashMap<Long, Trozo> trozos = new LinkedHashMap<>(16, 0.75f, true);
+    // Último trozo consultado: las jugadas tocan casi siempre el mismo
+    private long ultimaClave;
+    private Trozo ultimo;
+    // Minas de un trozo vecino regenerado para contar el borde, y minas con un anillo de vecinas
+    private final byte[] vecino = new byte[CELDAS_TROZO];
+    private final byte[] relleno = new byte[(LADO_TROZO + 2) * (LADO_TROZO + 2)];
+    // Cola del flood fill (fila << 32 | columna); al terminar tiene las celdas abiertas
+    private long[] cola = new long[64];
+    private int ultimasAbiertas;
+    private long descubiertas;
+    private long banderas;
+
+    private static final class Trozo {
+        final byte[] celdas;
+        // Ya tiene los números calculados
+        boolean contado;
+        // Cambió desde que se generó o se leyó del disco
+        boolean modificado;
+
+        Trozo(byte[] celdas, boolean contado) {
+            this.celdas = celdas;
+            this.contado = contado;
+        }
+    }
+
+    /**
+     * @param minasPorTrozo minas en cada trozo de 64x64 (al menos MIN_MINAS_POR_TROZO).
+     * @param maxTrozos trozos en memoria (4 KB cada uno).
+     * @param derrame archivo para los trozos modificados que salen de memoria (se borra al cerrar).
+     */
+    public TableroInfinito(long semilla, int minasPorTrozo, int maxTrozos, Path derrame) {
+        if (minasPorTrozo < MIN_MINAS_POR_TROZO || minasPorTrozo > CELDAS_TROZO - 9)
+            throw new IllegalArgumentException("Cantidad de minas por trozo no válida: " + minasPorTrozo);
+        if (maxTrozos < 1) throw new IllegalArgumentException("Debe caber al menos un trozo en memoria.");
+        this.semilla = semilla;
+        this.minasPorTrozo = minasPorTrozo;
+        this.maxTrozos = maxTrozos;
+        this.derrame = derrame;
+    }
+
+    /**
+     * Descubre (fila, columna) y, si es un cero, su región, cruzando los bordes de los trozos.
+     * @return un código de ResultadoJugada (OK, MINA, YA_DESCUBIERTA o CON_BANDERA).
+     */
+    public int descubrir(int fila, int columna) throws IOException {
+        ultimasAbiertas = 0;
+        Trozo trozo = trozo(fila, columna);
+        int local = local(fila, columna);
+        int estado = trozo.celdas[local];
+        if ((estado & Tablero.BIT_DESCUBIERTA) != 0) return ResultadoJugada.YA_DESCUBIERTA;
+        if ((estado & Tablero.BIT_BANDERA) != 0) return ResultadoJugada.CON_BANDERA;
+
+        trozo.celdas[local] = (byte) (estado | Tablero.BIT_DESCUBIERTA);
+        trozo.modificado = true;
+        cola[0] = posicion(fila, columna);
+        int resultado;
+        if ((estado & Tablero.BIT_MINA) != 0) {
+            ultimasAbiertas = 1;
+            resultado = ResultadoJugada.MINA;
+        } else {
+            expandir();
+            descubiertas += ultimasAbiertas;
+            resultado = ResultadoJugada.OK;
+        }
+        recortar();
+        return resultado;
+    }
+
+    /**
+     * Pone o quita una bandera en una casilla oculta.
+     * @return ResultadoJugada.OK, o YA_DESCUBIERTA si la casilla está descubierta.
+     */
+    public int alternarBandera(int fila, int columna) throws IOException {
+        Trozo trozo = trozo(fila, columna);
+        int local = local(fila, columna);
+        int estado = trozo.celdas[local];
+        if ((estado & Tablero.BIT_DESCUBIERTA) != 0) return ResultadoJugada.YA_DESCUBIERTA;
+        trozo.celdas[local] = (byte) (estado ^ Tablero.BIT_BANDERA);
+        trozo.modificado = true;
+        banderas += (estado & Tablero.BIT_BANDERA) != 0 ? -1 : 1;
+        recortar();
+        return ResultadoJugada.OK;
+    }
+
+    /**
+     * Flood fill desde cola[0] (ya descubierta) con una cola de posiciones: igual que en
+     * Tablero, cada celda entra una sola vez porque se marca al encolarla.
+     */
+    private void expandir() throws IOException {
+        long[] cola = this.cola;
+        int cabeza = 0;
+        int fin = 1;
+        while (cabeza < fin) {
+            long actual = cola[cabeza++];
+            int fila = filaDe(actual);
+            int columna = columnaDe(actual);
+            // Borde numérico: no se expande
+            if ((estadoContado(fila, columna) & Tablero.MASCARA_NUMERO) != 0) continue;
+
+            for (int df = -1; df <= 1; df++) {
+                long f = (long) fila + df;
+                if (f != (int) f) continue;
+                for (int dc = -1; dc <= 1; dc++) {
+                    long c = (long) columna + dc;
+                    if (c != (int) c) continue;
+                    Trozo trozo = trozo((int) f, (int) c);
+                    int local = local((int) f, (int) c);
+                    int estado = trozo.celdas[local];
+                    if ((estado & (Tablero.BIT_DESCUBIERTA | Tablero.BIT_MINA | Tablero.BIT_BANDERA)) == 0) {
+                        trozo.celdas[local] = (byte) (estado | Tablero.BIT_DESCUBIERTA);
+                        trozo.modificado = true;
+                        if (fin == cola.length) cola = Arrays.copyOf(cola, cola.length * 2);
+                        cola[fin++] = posicion((int) f, (int) c);
+                    }
+                }
+            }
+        }
+        this.cola = cola;
+        ultimasAbiertas = fin;
+    }
+
+    public boolean estaDescubierta(int fila, int columna) throws IOException {
+        boolean valor = (trozo(fila, columna).celdas[local(fila, columna)] & Tablero.BIT_DESCUBIERTA) != 0;
+        recortar();
+        return valor;
+    }
+
+    public boolean tieneBandera(int fila, int columna) throws IOException {
+        boolean valor = (trozo(fila, columna).celdas[local(fila, columna)] & Tablero.BIT_BANDERA) != 0;
+        recortar();
+        return valor;
+    }
+
+    public boolean tieneMina(int fila, int columna) throws IOException {
+        boolean valor = (trozo(fila, columna).celdas[local(fila, columna)] & Tablero.BIT_MINA) != 0;
+        recortar();
+        return valor;
+    }
+
+    /**
+     * Número de minas vecinas (sin sentido para celdas ocultas en el juego, pero siempre exacto).
+     */
+    public int getMinasAlrededor(int fila, int columna) throws IOException {
+        int minas = estadoContado(fila, columna) & Tablero.MASCARA_NUMERO;
+        recortar();
+        return minas;
+    }
+
+    /**
+     * Escribe en 'destino' el símbolo de las columnas [desde, hasta) de la fila, como
+     * Tablero.escribirGlifos con paso 1.
+     */
+    public void escribirGlifos(int fila, int desde, int hasta, boolean mostrarMinas, byte[] destino, int pos)
+            throws IOException {
+        for (int c = desde; c < hasta; c++) {
+            int estado = trozo(fila, c).celdas[local(fila, c)];
+            if ((estado & Tablero.BIT_DESCUBIERTA) != 0) estado = estadoContado(fila, c);
+            destino[pos++] = Tablero.glifo(estado, mostrarMinas);
+        }
+        recortar();
+    }
+
+    /**
+     * Celdas que abrió el último descubrir.
+     */
+    public int getUltimasAbiertas() {
+        return ultimasAbiertas;
+    }
+
+    /**
+     * Copia en 'destino' las posiciones (ver filaDe / columnaDe) abiertas por el último descubrir.
+     * @return cantidad de posiciones copiadas.
+     */
+    public int copiarUltimasAbiertas(long[] destino) {
+        int n = Math.min(ultimasAbiertas, destino.length);
+        System.arraycopy(cola, 0, destino, 0, n);
+        return n;
+    }
+
+    public static int filaDe(long posicion) { return (int) (posicion >> 32); }
+    public static int columnaDe(long posicion) { return (int) posicion; }
+
+    /**
+     * Casillas seguras descubiertas en total: el puntaje de la partida.
+     */
+    public long getDescubiertas() { return descubiertas; }
+    public long getBanderasColocadas() { return banderas; }
+    public int getTrozosEnMemoria() { return trozos.size(); }
+    public int getTrozosEnDisco() { return ranuras.size(); }
+
+    @Override
+    public void close() throws IOException {
+        trozos.clear();
+        ultimo = null;
+        if (canal != null) {
+            canal.close();
+            canal = null;
+            Files.deleteIfExists(derrame);
+        }
+    }
+
+    // ---------------------------------------------------------------- trozos
+
+    private static long posicion(int fila, int columna) {
+        return ((long) fila << 32) | (columna & 0xFFFFFFFFL);
+    }
+
+    private static int local(int fila, int columna) {
+        return (fila & MASCARA_LADO) << BITS_LADO | (columna & MASCARA_LADO);
+    }
+
+    private Trozo trozo(int fila, int columna) throws IOException {
+        // El desplazamiento aritmético redondea hacia abajo también en negativos
+        long clave = posicion(fila >> BITS_LADO, columna >> BITS_LADO);
+        if (ultimo != null && clave == ultimaClave) return ultimo;
+        Trozo trozo = trozos.get(clave);
+        if (trozo == null) {
+            trozo = cargarOGenerar(clave);
+            trozos.put(clave, trozo);
+        }
+        ultimaClave = clave;
+        ultimo = trozo;
+        return trozo;
+    }
+
+    private Trozo cargarOGenerar(long clave) throws IOException {
+        byte[] celdas = new byte[CELDAS_TROZO];
+        Integer ranura = ranuras.get(clave);
+        if (ranura == null) {
+            generarMinas(filaDe(clave), columnaDe(clave), celdas);
+            return new Trozo(celdas, false);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(celdas);
+        long desde = (long) ranura * CELDAS_TROZO;
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, desde + buffer.position()) < 0) throw new IOException("Archivo de trozos incompleto.");
+        }
+        // Los números se calculan para todo el trozo a la vez
+        return new Trozo(celdas, (celdas[0] & Tablero.BIT_CONTADO) != 0);
+    }
+
+    // Saca de memoria los trozos menos usados hasta volver al límite
+    private void recortar() throws IOException {
+        if (trozos.size() <= maxTrozos) return;
+        Iterator<Map.Entry<Long, Trozo>> it = trozos.entrySet().iterator();
+        while (trozos.size() > maxTrozos && it.hasNext()) {
+            Map.Entry<Long, Trozo> entrada = it.next();
+            if (entrada.getValue().modificado) escribir(entrada.getKey(), entrada.getValue());
+            it.remove();
+        }
+        ultimo = null;
+    }
+
+    private void escribir(long clave, Trozo trozo) throws IOException {
+        if (canal == null) {
+            canal = FileChannel.open(derrame, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        int ranura = ranuras.computeIfAbsent(clave, k -> ranuras.size());
+        ByteBuffer buffer = ByteBuffer.wrap(trozo.celdas);
+        long desde = (long) ranura * CELDAS_TROZO;
+        while (buffer.hasRemaining()) canal.write(buffer, desde + buffer.position());
+    }
+
+    /**
+     * Minas del trozo (filaTrozo, columnaTrozo) en 'destino' (que se limpia antes): dependen
+     * solo de la semilla y de las coordenadas del trozo.
+     */
+    private void generarMinas(int filaTrozo, int columnaTrozo, byte[] destino) {
+        Arrays.fill(destino, (byte) 0);
+        ColocadorMinas.colocar(ByteBuffer.wrap(destino), minasPorTrozo, excluidas(filaTrozo, columnaTrozo),
+                new SplittableRandom(Semillas.derivar(semilla, posicion(filaTrozo, columnaTrozo))));
+    }
+
+    // Celdas del trozo dentro de la zona segura 3x3 alrededor de (0, 0), ordenadas
+    private static int[] excluidas(int filaTrozo, int columnaTrozo) {
+        if (filaTrozo < -1 || filaTrozo > 0 || columnaTrozo < -1 || columnaTrozo > 0) return SIN_EXCLUIDAS;
+        int[] zona = new int[9];
+        int n = 0;
+        for (int f = -1; f <= 1; f++) {
+            for (int c = -1; c <= 1; c++) {
+                if (f >> BITS_LADO == filaTrozo && c >> BITS_LADO == columnaTrozo) zona[n++] = local(f, c);
+            }
+        }
+        zona = Arrays.copyOf(zona, n);
+        Arrays.sort(zona);
+        return zona;
+    }
+
+    // Estado de la celda con su número ya calculado
+    private int estadoContado(int fila, int columna) throws IOException {
+        Trozo trozo = trozo(fila, columna);
+        if (!trozo.contado) contar(fila >> BITS_LADO, columna >> BITS_LADO, trozo);
+        return trozo.celdas[local(fila, columna)];
+    }
+
+    /**
+     * Calcula los números de todo el trozo: copia sus minas y el anillo de celdas de los 8
+     * trozos vecinos a 'relleno' (un byte 0/1 por celda, con borde) y suma cada ventana de 3x3.
+     */
+    private void contar(int filaTrozo, int columnaTrozo, Trozo trozo) {
+        final int ancho = LADO_TROZO + 2;
+        Arrays.fill(relleno, (byte) 0);
+        for (int df = -1; df <= 1; df++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                long ft = (long) filaTrozo + df;
+                long ct = (long) columnaTrozo + dc;
+                // Más allá del rango de int no hay celdas
+                if (ft != (int) ft || ct != (int) ct) continue;
+                byte[] minas = df == 0 && dc == 0 ? trozo.celdas : minasDe((int) ft, (int) ct);
+                // Rango de filas/columnas locales del vecino que caen en el anillo
+                int fDesde = df < 0 ? LADO_TROZO - 1 : 0, fHasta = df > 0 ? 0 : LADO_TROZO - 1;
+                int cDesde = dc < 0 ? LADO_TROZO - 1 : 0, cHasta = dc > 0 ? 0 : LADO_TROZO - 1;
+                for (int f = fDesde; f <= fHasta; f++) {
+                    int destinoFila = (f + 1 + df * LADO_TROZO) * ancho;
+                    for (int c = cDesde; c <= cHasta; c++) {
+                        relleno[destinoFila + c + 1 + dc * LADO_TROZO] =
+                                (byte) ((minas[f << BITS_LADO | c] >> Tablero.DESPLAZAMIENTO_MINA) & 1);
+                    }
+                }
+            }
+        }
+        byte[] celdas = trozo.celdas;
+        for (int f = 0; f < LADO_TROZO; f++) {
+            int arriba = f * ancho, medio = arriba + ancho, abajo = medio + ancho;
+            for (int c = 0; c < LADO_TROZO; c++) {
+                int minas = relleno[arriba + c] + relleno[arriba + c + 1] + relleno[arriba + c + 2]
+                        + relleno[medio + c] + relleno[medio + c + 2]
+                        + relleno[abajo + c] + relleno[abajo + c + 1] + relleno[abajo + c + 2];
+                int i = f << BITS_LADO | c;
+                celdas[i] = (byte) ((celdas[i] & ~Tablero.MASCARA_NUMERO) | minas | Tablero.BIT_CONTADO);
+            }
+        }
+        trozo.contado = true;
+    }
+
+    // Celdas (al menos los bits de mina) de un trozo: de memoria si está, si no regeneradas
+    private byte[] minasDe(int filaTrozo, int columnaTrozo) {
+        Trozo cargado = trozos.get(posicion(filaTrozo, columnaTrozo));
+        if (cargado != null) return cargado.celdas;
+        generarMinas(filaTrozo, columnaTrozo, vecino);
+        return vecino;
+    }
+}
@@ -0,0 +1,21 @@
+package ec.edu.ups.buscaminas.modelo.legado;
+
+import java.io.Serializable;
+
+/**
+ * Réplica de la Casilla serializada por las versiones antiguas del juego.
+ * Solo sirve para leer archivos .dat guardados con ObjectOutputStream; conserva
+ * los mismos campos y serialVersionUID que la clase original.
+ */
+public abstract class Casilla implements Serializable {
+    private static final long serialVersionUID = -1794967571488063119L;
+
+    protected boolean descubierta;
+    protected boolean tieneBandera;
+    protected int minasAlrededor;
+
+    public boolean isDescubierta() { return descubierta; }
+    public boolean isTieneBandera() { return tieneBandera; }
+
+    public abstract boolean esMina();
+}
@@ -0,0 +1,13 @@
+package ec.edu.ups.buscaminas.modelo.legado;
+
+/**
+ * Réplica de la CasillaMina de los archivos .dat antiguos.
+ */
+public class CasillaMina extends Casilla {
+    private static final long serialVersionUID = 5186345165113960500L;
+
+    @Override
+    public boolean esMina() {
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package ec.edu.ups.buscaminas.modelo.legado;
+
+/**
+ * Réplica de la CasillaVacia de los archivos .dat antiguos.
+ */
+public class CasillaVacia extends Casilla {
+    private static final long serialVersionUID = 8148988006997718691L;
+
+    @Override
+    public boolean esMina() {
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package ec.edu.ups.buscaminas.modelo.legado;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Map;
+
+/**
+ * Lector de partidas guardadas con la serialización de Java (formato anterior al binario).
+ * Las clases del archivo (ec.edu.ups.buscaminas.modelo.*) se redirigen a las réplicas de
+ * este paquete, y un filtro rechaza cualquier otra clase para evitar deserializar objetos
+ * arbitrarios desde un archivo manipulado. El filtro también limita la profundidad, el largo
+ * de los arreglos, la cantidad de objetos y los bytes leídos, para que un archivo manipulado
+ * no pueda agotar la memoria con clases permitidas.
+ */
+public final class LectorLegado extends ObjectInputStream {
+    private static final String PAQUETE_ORIGINAL = "ec.edu.ups.buscaminas.modelo.";
+    private static final String ARREGLO_ORIGINAL = "[[L" + PAQUETE_ORIGINAL + "Casilla;";
+
+    // Las versiones que serializaban con ObjectOutputStream usaban siempre un tablero de 10x10
+    private static final int LADO_LEGADO = 10;
+    private static final int MAX_PROFUNDIDAD = 8;
+    // Tablero, matriz, filas y casillas, más los descriptores de clase
+    private static final long MAX_REFERENCIAS = LADO_LEGADO * LADO_LEGADO + LADO_LEGADO + 32;
+    // Una partida de 10x10 ocupa menos de 2 KB
+    private static final long MAX_BYTES = 16 * 1024;
+
+    private static final Map<String, Class<?>> REEMPLAZOS = Map.of(
+            PAQUETE_ORIGINAL + "Tablero", Tablero.class,
+            PAQUETE_ORIGINAL + "Casilla", Casilla.class,
+            PAQUETE_ORIGINAL + "CasillaMina", CasillaMina.class,
+            PAQUETE_ORIGINAL + "CasillaVacia", CasillaVacia.class,
+            "[L" + PAQUETE_ORIGINAL + "Casilla;", Casilla[].class,
+            ARREGLO_ORIGINAL, Casilla[][].class);
+
+    private LectorLegado(InputStream in) throws IOException {
+        super(in);
+        setObjectInputFilter(info -> {
+            Class<?> clase = info.serialClass();
+            if (info.depth() > MAX_PROFUNDIDAD || info.arrayLength() > LADO_LEGADO
+                    || info.references() > MAX_REFERENCIAS || info.streamBytes() > MAX_BYTES)
+                return ObjectInputFilter.Status.REJECTED;
+            if (clase == null) return ObjectInputFilter.Status.UNDECIDED;
+            return REEMPLAZOS.containsValue(clase) ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+        });
+    }
+
+    /**
+     * Lee un Tablero del formato antiguo desde el flujo (debe comenzar con la cabecera 0xACED).
+     */
+    public static Tablero leer(InputStream in) throws IOException, ClassNotFoundException {
+        try (LectorLegado lector = new LectorLegado(in)) {
+            Object leido = lector.readObject();
+            if (!(leido instanceof Tablero))
+                throw new InvalidClassException("El archivo no contiene un Tablero.");
+            return (Tablero) leido;
+        }
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        Class<?> reemplazo = REEMPLAZOS.get(desc.getName());
+        if (reemplazo == null)
+            throw new InvalidClassException(desc.getName(), "Clase no permitida en una partida guardada.");
+        return reemplazo;
+    }
+}
@@ -0,0 +1,21 @@
+package ec.edu.ups.buscaminas.modelo.legado;
+
+import java.io.Serializable;
+
+/**
+ * Réplica del Tablero serializado por las versiones antiguas (matriz de objetos Casilla).
+ * Los nombres de los campos coinciden con los del archivo para que la deserialización los asigne.
+ */
+public class Tablero implements Serializable {
+    private static final long serialVersionUID = 4240901728501813760L;
+
+    private Casilla[][] casillas;
+    private int FILAS;
+    private int COLUMNAS;
+    private int TOTAL_MINAS;
+
+    public Casilla[][] getCasillas() { return casillas; }
+    public int getFilas() { return FILAS; }
+    public int getColumnas() { return COLUMNAS; }
+    public int getTotalMinas() { return TOTAL_MINAS; }
+}
@@ -0,0 +1,38 @@
+package ec.edu.ups.buscaminas.servidor;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Estado de un cliente conectado. El hilo de red llena 'lineas' y vacía 'salida'; las líneas
+ * se procesan en los hilos de trabajo, de a un hilo por conexión a la vez ('programada'),
+ * así las respuestas salen en el mismo orden que los comandos.
+ */
+final class Conexion {
+    // Marca en 'salida': al llegar a ella el hilo de red cierra la conexión
+    static final ByteBuffer FIN = ByteBuffer.allocate(0);
+
+    final SocketChannel canal;
+    final ByteBuffer entrada = ByteBuffer.allocate(1024);
+    final byte[] linea;
+    int largoLinea;
+    boolean lineaDemasiadoLarga;
+
+    final Queue<String> lineas = new ConcurrentLinkedQueue<>();
+    final Queue<ByteBuffer> salida = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean programada = new AtomicBoolean();
+    final StringBuilder respuesta = new StringBuilder(64);
+
+    // Solo los usa el hilo que atiende la conexión
+    Sesion sesion;
+    int sesionesCreadas;
+    boolean salir;
+
+    Conexion(SocketChannel canal, int maxLinea) {
+        this.canal = canal;
+        this.linea = new byte[maxLinea];
+    }
+}
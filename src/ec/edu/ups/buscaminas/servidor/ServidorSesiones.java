@@ -0,0 +1,486 @@
+package ec.edu.ups.buscaminas.servidor;
+
+import ec.edu.ups.buscaminas.modelo.Juego;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.ResultadoJugada;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Servidor de partidas: muchas sesiones de Juego en una sola JVM detrás de un protocolo de
+ * líneas de texto sobre NIO. Un único hilo de red atiende todos los sockets con un Selector;
+ * los comandos se ejecutan en un ForkJoinPool en modo FIFO, de a un hilo por conexión a la vez.
+ * Las sesiones inactivas se guardan en el formato de guardado y salen de memoria; al volver a
+ * usarlas se cargan de nuevo. Al cerrar el servidor se guardan todas.
+ * <pre>
+ * NUEVA filas columnas minas [semilla]  -&gt; OK id
+ * USAR id                               -&gt; OK id
+ * D fila columna   (descubrir)          -&gt; código segurasPorDescubrir celdas   (ej. "0 52 3 40:O 41:1 50:1")
+ * B fila columna   (bandera)
+ * A fila columna   (acorde)
+ * E                (estado)             -&gt; ESTADO filas columnas minas seguras terminado glifos
+ * SALIR                                 -&gt; ADIOS
+ * </pre>
+ * Filas y columnas empiezan en 0. El código es el de ResultadoJugada y cada celda cambiada va
+ * como índice:glifo con los glifos de la consola. Los errores responden "ERROR mensaje".
+ * Las líneas se leen y escriben en UTF-8 (los mensajes de error llevan tildes).
+ * NUEVA responde ERROR si el tablero supera MAX_CELDAS_SESION o la conexión ya creó
+ * MAX_SESIONES_CONEXION sesiones.
+ */
+public class ServidorSesiones implements Closeable {
+    private static final int MAX_LINEA = 256;
+    // Límites para que un cliente no pueda llenar la memoria del servidor
+    public static final int MAX_CELDAS_SESION = 1_000_000;
+    public static final int MAX_SESIONES_CONEXION = 16;
+    // Cada cuánto el hilo de red revisa las sesiones inactivas
+    private static final long REVISION_MILLIS = 1000;
+
+    private final Path directorio;
+    private final long inactividadNanos;
+    private final ConcurrentHashMap<Long, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final AtomicLong siguienteId;
+    private final ForkJoinPool trabajadores;
+    private final Selector selector;
+    private final ServerSocketChannel servidor;
+    private final Queue<Conexion> porEscribir = new ConcurrentLinkedQueue<>();
+    private final Thread hiloRed;
+    private volatile boolean activo = true;
+
+    /**
+     * @param direccion dirección de escucha (puerto 0 = uno libre).
+     * @param directorio carpeta donde se guardan las sesiones inactivas.
+     * @param inactividadMillis tiempo sin jugadas tras el cual una sesión se guarda y sale de memoria.
+     * @param hilos hilos de trabajo (0 = todos los núcleos).
+     */
+    public ServidorSesiones(InetSocketAddress direccion, Path directorio, long inactividadMillis, int hilos)
+            throws IOException {
+        this.directorio = Files.createDirectories(directorio);
+        this.inactividadNanos = TimeUnit.MILLISECONDS.toNanos(inactividadMillis);
+        this.siguienteId = new AtomicLong(mayorIdGuardado(directorio) + 1);
+        this.trabajadores = new ForkJoinPool(hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.selector = Selector.open();
+        this.servidor = ServerSocketChannel.open();
+        servidor.bind(direccion);
+        servidor.configureBlocking(false);
+        servidor.register(selector, SelectionKey.OP_ACCEPT);
+        this.hiloRed = new Thread(this::atenderRed, "buscaminas-red");
+    }
+
+    /**
+     * Empieza a aceptar conexiones en un hilo propio.
+     */
+    public void iniciar() {
+        hiloRed.start();
+    }
+
+    public int getPuerto() {
+        return servidor.socket().getLocalPort();
+    }
+
+    /**
+     * Sesiones cargadas en memoria.
+     */
+    public int getSesionesActivas() {
+        return sesiones.size();
+    }
+
+    /**
+     * Guarda en disco y saca de memoria las sesiones sin jugadas desde hace más del tiempo de
+     * inactividad. El hilo de red lo llama periódicamente.
+     * @return cantidad de sesiones expulsadas.
+     */
+    public int expulsarInactivas() {
+        long limite = System.nanoTime() - inactividadNanos;
+        int expulsadas = 0;
+        for (Sesion sesion : sesiones.values()) {
+            if (sesion.ultimoUso - limite > 0) continue;
+            synchronized (sesion) {
+                if (sesion.expulsada || sesion.ultimoUso - limite > 0) continue;
+                try {
+                    guardar(sesion);
+                } catch (IOException e) {
+                    // Se reintenta en la próxima revisión; mientras tanto sigue en memoria
+                    continue;
+                }
+                sesion.expulsada = true;
+                sesiones.remove(sesion.id, sesion);
+                expulsadas++;
+            }
+        }
+        return expulsadas;
+    }
+
+    /**
+     * Deja de atender, espera los comandos en curso y guarda en disco todas las sesiones en memoria.
+     * Si alguna no se pudo guardar, lanza el primer error después de intentar con las demás.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!activo) return;
+        activo = false;
+        selector.wakeup();
+        try {
+            hiloRed.join();
+            trabajadores.shutdown();
+            trabajadores.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException error = null;
+        for (Sesion sesion : sesiones.values()) {
+            synchronized (sesion) {
+                if (sesion.expulsada) continue;
+                try {
+                    guardar(sesion);
+                    sesion.expulsada = true;
+                    sesiones.remove(sesion.id, sesion);
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+            }
+        }
+        for (SelectionKey llave : selector.keys()) llave.channel().close();
+        selector.close();
+        if (error != null) throw error;
+    }
+
+    // ---------------------------------------------------------------- hilo de red
+
+    private void atenderRed() {
+        long proximaRevision = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REVISION_MILLIS);
+        try {
+            while (activo) {
+                selector.select(REVISION_MILLIS);
+                for (SelectionKey llave : selector.selectedKeys()) {
+                    if (!llave.isValid()) continue;
+                    if (llave.isAcceptable()) {
+                        try {
+                            aceptar();
+                        } catch (IOException e) {
+                            // Ej. sin descriptores libres: se sigue atendiendo a los que ya están conectados
+                            System.err.println("No se pudo aceptar una conexión: " + e.getMessage());
+                        }
+                    } else {
+                        Conexion conexion = (Conexion) llave.attachment();
+                        if (llave.isReadable()) leer(llave, conexion);
+                        if (llave.isValid() && llave.isWritable()) escribir(llave, conexion);
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                Conexion conexion;
+                while ((conexion = porEscribir.poll()) != null) {
+                    SelectionKey llave = conexion.canal.keyFor(selector);
+                    if (llave != null && llave.isValid()) escribir(llave, conexion);
+                }
+                if (System.nanoTime() - proximaRevision >= 0) {
+                    trabajadores.execute(this::expulsarInactivas);
+                    proximaRevision = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REVISION_MILLIS);
+                }
+            }
+        } catch (IOException e) {
+            if (activo) throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private void aceptar() throws IOException {
+        SocketChannel canal;
+        while ((canal = servidor.accept()) != null) {
+            try {
+                canal.configureBlocking(false);
+                canal.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+                canal.register(selector, SelectionKey.OP_READ, new Conexion(canal, MAX_LINEA));
+            } catch (IOException e) {
+                canal.close();
+                throw e;
+            }
+        }
+    }
+
+    // Separa lo recibido en líneas y programa la conexión si llegó alguna completa
+    private void leer(SelectionKey llave, Conexion conexion) {
+        int leidos;
+        try {
+            leidos = conexion.canal.read(conexion.entrada);
+        } catch (IOException e) {
+            leidos = -1;
+        }
+        if (leidos < 0) {
+            cerrar(llave);
+            return;
+        }
+        ByteBuffer entrada = conexion.entrada;
+        entrada.flip();
+        boolean nuevas = false;
+        while (entrada.hasRemaining()) {
+            byte b = entrada.get();
+            if (b == '\n') {
+                conexion.lineas.add(conexion.lineaDemasiadoLarga ? ""
+                        : new String(conexion.linea, 0, conexion.largoLinea, StandardCharsets.UTF_8));
+                conexion.largoLinea = 0;
+                conexion.lineaDemasiadoLarga = false;
+                nuevas = true;
+            } else if (b != '\r') {
+                if (conexion.largoLinea == conexion.linea.length) conexion.lineaDemasiadoLarga = true;
+                else conexion.linea[conexion.largoLinea++] = b;
+            }
+        }
+        entrada.clear();
+        if (nuevas) programar(conexion);
+    }
+
+    private void escribir(SelectionKey llave, Conexion conexion) {
+        try {
+            ByteBuffer buffer;
+            while ((buffer = conexion.salida.peek()) != null) {
+                if (buffer == Conexion.FIN) {
+                    cerrar(llave);
+                    return;
+                }
+                conexion.canal.write(buffer);
+                if (buffer.hasRemaining()) {
+                    // El socket está lleno: se sigue cuando vuelva a aceptar datos
+                    llave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                conexion.salida.poll();
+            }
+            llave.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            cerrar(llave);
+        }
+    }
+
+    private void cerrar(SelectionKey llave) {
+        llave.cancel();
+        try {
+            llave.channel().close();
+        } catch (IOException e) {
+            // Ya estaba cerrada
+        }
+    }
+
+    // ---------------------------------------------------------------- hilos de trabajo
+
+    private void programar(Conexion conexion) {
+        if (conexion.programada.compareAndSet(false, true)) {
+            trabajadores.execute(() -> atender(conexion));
+        }
+    }
+
+    // Procesa todas las líneas pendientes y entrega las respuestas juntas al hilo de red
+    private void atender(Conexion conexion) {
+        StringBuilder respuesta = conexion.respuesta;
+        String linea;
+        while (!conexion.salir && (linea = conexion.lineas.poll()) != null) {
+            procesar(conexion, linea, respuesta);
+            respuesta.append('\n');
+        }
+        // Lo que llega después de SALIR no se atiende
+        if (conexion.salir) conexion.lineas.clear();
+        if (respuesta.length() > 0) {
+            conexion.salida.add(ByteBuffer.wrap(respuesta.toString().getBytes(StandardCharsets.UTF_8)));
+            respuesta.setLength(0);
+            // La marca de cierre va detrás de ADIOS: el hilo de red cierra recién al llegar a ella
+            if (conexion.salir) conexion.salida.add(Conexion.FIN);
+            porEscribir.add(conexion);
+            selector.wakeup();
+        }
+        conexion.programada.set(false);
+        // Una línea que llegó entre el último poll y el set(false) no debe quedar esperando
+        if (!conexion.lineas.isEmpty()) programar(conexion);
+    }
+
+    private void procesar(Conexion conexion, String linea, StringBuilder respuesta) {
+        String[] partes = linea.trim().split(" +");
+        try {
+            switch (partes[0].toUpperCase()) {
+                case "NUEVA": {
+                    int filas = Integer.parseInt(partes[1]);
+                    int columnas = Integer.parseInt(partes[2]);
+                    int minas = Integer.parseInt(partes[3]);
+                    long semilla = partes.length > 4 ? Long.parseLong(partes[4]) : System.nanoTime();
+                    if (filas > 0 && columnas > 0 && (long) filas * columnas > MAX_CELDAS_SESION) {
+                        respuesta.append("ERROR El tablero supera las ").append(MAX_CELDAS_SESION).append(" celdas por sesión.");
+                        return;
+                    }
+                    if (conexion.sesionesCreadas == MAX_SESIONES_CONEXION) {
+                        respuesta.append("ERROR La conexión ya creó ").append(MAX_SESIONES_CONEXION).append(" sesiones.");
+                        return;
+                    }
+                    Sesion sesion = new Sesion(siguienteId.getAndIncrement(), new Juego(filas, columnas, minas, semilla));
+                    sesiones.put(sesion.id, sesion);
+                    conexion.sesion = sesion;
+                    conexion.sesionesCreadas++;
+                    respuesta.append("OK ").append(sesion.id);
+                    return;
+                }
+                case "USAR": {
+                    Sesion sesion = buscar(Long.parseLong(partes[1]));
+                    if (sesion == null) {
+                        respuesta.append("ERROR La sesión no existe.");
+                        return;
+                    }
+                    sesion.ultimoUso = System.nanoTime();
+                    conexion.sesion = sesion;
+                    respuesta.append("OK ").append(sesion.id);
+                    return;
+                }
+                case "D":
+                    jugar(conexion, MotorJuego.DESCUBRIR, partes, respuesta);
+                    return;
+                case "B":
+                    jugar(conexion, MotorJuego.BANDERA, partes, respuesta);
+                    return;
+                case "A":
+                    jugar(conexion, MotorJuego.ACORDE, partes, respuesta);
+                    return;
+                case "E":
+                    estado(conexion, respuesta);
+                    return;
+                case "SALIR":
+                    respuesta.append("ADIOS");
+                    conexion.salir = true;
+                    return;
+                default:
+                    respuesta.append(partes[0].isEmpty() ? "ERROR Línea vacía o demasiado larga." : "ERROR Comando desconocido.");
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            respuesta.append("ERROR Faltan argumentos o no son números.");
+        } catch (IllegalArgumentException e) {
+            respuesta.append("ERROR ").append(e.getMessage());
+        } catch (IOException | ClassNotFoundException e) {
+            respuesta.append("ERROR No se pudo cargar la sesión: ").append(e.getMessage());
+        }
+    }
+
+    private void jugar(Conexion conexion, byte tipo, String[] partes, StringBuilder respuesta)
+            throws IOException, ClassNotFoundException {
+        int fila = Integer.parseInt(partes[1]);
+        int columna = Integer.parseInt(partes[2]);
+        while (conexion.sesion != null) {
+            Sesion sesion = conexion.sesion;
+            synchronized (sesion) {
+                if (!sesion.expulsada) {
+                    sesion.ultimoUso = System.nanoTime();
+                    int resultado = sesion.motor.aplicar(tipo, fila, columna, sesion.delta);
+                    respuesta.append(resultado).append(' ').append(sesion.delta.getSegurasPorDescubrir())
+                            .append(' ').append(sesion.delta.getCantidadCeldas());
+                    agregarCeldas(sesion, respuesta);
+                    return;
+                }
+            }
+            // Se guardó en disco mientras tanto: se vuelve a cargar
+            conexion.sesion = buscar(sesion.id);
+        }
+        respuesta.append("ERROR No hay sesión: use NUEVA o USAR.");
+    }
+
+    private void agregarCeldas(Sesion sesion, StringBuilder respuesta) {
+        Tablero tablero = sesion.juego.getTablero();
+        int columnas = tablero.getColumnas();
+        boolean perdio = sesion.juego.isJuegoTerminado();
+        byte[] glifo = new byte[1];
+        for (int i = 0; i < sesion.delta.getCantidadCeldas(); i++) {
+            int celda = sesion.delta.getCelda(i);
+            tablero.escribirGlifos(celda / columnas, celda % columnas, celda % columnas + 1, perdio, glifo, 0, 1);
+            respuesta.append(' ').append(celda).append(':').append((char) glifo[0]);
+        }
+    }
+
+    private void estado(Conexion conexion, StringBuilder respuesta) throws IOException, ClassNotFoundException {
+        while (conexion.sesion != null) {
+            Sesion sesion = conexion.sesion;
+            synchronized (sesion) {
+                if (!sesion.expulsada) {
+                    sesion.ultimoUso = System.nanoTime();
+                    Tablero tablero = sesion.juego.getTablero();
+                    boolean terminado = sesion.juego.isJuegoTerminado();
+                    respuesta.append("ESTADO ").append(tablero.getFilas()).append(' ').append(tablero.getColumnas())
+                            .append(' ').append(tablero.getTotalMinas()).append(' ')
+                            .append(tablero.getSegurasPorDescubrir()).append(' ').append(terminado ? 1 : 0).append(' ');
+                    byte[] fila = new byte[tablero.getColumnas()];
+                    for (int f = 0; f < tablero.getFilas(); f++) {
+                        tablero.escribirGlifos(f, 0, fila.length, terminado, fila, 0, 1);
+                        respuesta.append(new String(fila, StandardCharsets.US_ASCII));
+                    }
+                    return;
+                }
+            }
+            conexion.sesion = buscar(sesion.id);
+        }
+        respuesta.append("ERROR No hay sesión: use NUEVA o USAR.");
+    }
+
+    // Sesión en memoria o, si fue expulsada, cargada desde su archivo; null si no existe
+    private Sesion buscar(long id) throws IOException, ClassNotFoundException {
+        Sesion sesion = sesiones.get(id);
+        if (sesion != null) return sesion;
+        Path archivo = archivo(id);
+        if (!Files.exists(archivo)) return null;
+        Path semilla = archivoSemilla(id);
+        Juego juego = Files.exists(semilla)
+                ? Juego.abrir(archivo.toString(), Long.parseLong(Files.readString(semilla).trim()))
+                : Juego.abrir(archivo.toString());
+        Sesion cargada = new Sesion(id, juego);
+        Sesion anterior = sesiones.putIfAbsent(id, cargada);
+        return anterior != null ? anterior : cargada;
+    }
+
+    /**
+     * Guarda la sesión en su archivo. Si todavía no tiene minas (nadie descubrió nada) se guarda
+     * sin ellas y con su semilla al lado, así al cargarla el primer descubrir sigue sin ser mina.
+     * La semilla se escribe antes: una semilla que sobra junto a un tablero con minas no se usa.
+     */
+    private void guardar(Sesion sesion) throws IOException {
+        Path semilla = archivoSemilla(sesion.id);
+        if (sesion.juego.getTablero().isMinasColocadas() || sesion.juego.getSemilla() == null) {
+            sesion.juego.guardarJuego(archivo(sesion.id).toString());
+            Files.deleteIfExists(semilla);
+        } else {
+            Files.writeString(semilla, Long.toString(sesion.juego.getSemilla()));
+            sesion.juego.guardarDiferido(archivo(sesion.id).toString());
+        }
+    }
+
+    private Path archivo(long id) {
+        return directorio.resolve("sesion-" + id + ".dat");
+    }
+
+    private Path archivoSemilla(long id) {
+        return directorio.resolve("sesion-" + id + ".semilla");
+    }
+
+    private static long mayorIdGuardado(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("sesion-") && n.endsWith(".dat"))
+                    .mapToLong(n -> {
+                        try {
+                            return Long.parseLong(n.substring(7, n.length() - 4));
+                        } catch (NumberFormatException e) {
+                            return 0;
+                        }
+                    })
+                    .max().orElse(0);
+        }
+    }
+}
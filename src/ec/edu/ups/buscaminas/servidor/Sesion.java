@@ -0,0 +1,27 @@
+package ec.edu.ups.buscaminas.servidor;
+
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.Juego;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+
+/**
+ * Una partida alojada en el servidor. Solo guarda el Juego, su motor y un delta reutilizable:
+ * un tablero de 9x9 ocupa unos cientos de bytes más las celdas (un byte cada una).
+ * Las jugadas de una sesión se aplican con su monitor tomado.
+ */
+final class Sesion {
+    final long id;
+    final Juego juego;
+    final MotorJuego motor;
+    final DeltaJugadas delta = new DeltaJugadas();
+    volatile long ultimoUso;
+    // true cuando se guardó en disco y salió del mapa: hay que volver a buscarla por id
+    boolean expulsada;
+
+    Sesion(long id, Juego juego) {
+        this.id = id;
+        this.juego = juego;
+        this.motor = new MotorJuego(juego);
+        this.ultimoUso = System.nanoTime();
+    }
+}
@@ -0,0 +1,43 @@
+package ec.edu.ups.buscaminas.simulacion;
+
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.SplittableRandom;
+
+/**
+ * Estrategia de referencia: descubre primero el centro (que el simulador deja sin minas)
+ * y luego casillas ocultas en un orden aleatorio. Sirve como línea base para comparar solvers.
+ * Recorre una permutación de las celdas, así que una partida cuesta O(celdas) en total.
+ */
+public class EstrategiaAleatoria implements EstrategiaJugada {
+    private final SplittableRandom random;
+    private int[] orden;
+    private int siguiente;
+
+    public EstrategiaAleatoria(long semilla) {
+        this.random = new SplittableRandom(semilla);
+    }
+
+    @Override
+    public int siguienteJugada(Tablero tablero, DeltaJugadas ultimo) {
+        int total = tablero.getFilas() * tablero.getColumnas();
+        if (orden == null) {
+            orden = new int[total];
+            for (int i = 0; i < total; i++) orden[i] = i;
+            return MotorJuego.jugada(MotorJuego.DESCUBRIR,
+                    tablero.indiceDe(tablero.getFilas() / 2, tablero.getColumnas() / 2));
+        }
+        // Fisher-Yates perezoso: se baraja solo lo que se va usando
+        while (siguiente < total) {
+            int j = siguiente + random.nextInt(total - siguiente);
+            int celda = orden[j];
+            orden[j] = orden[siguiente];
+            orden[siguiente++] = celda;
+            if (!tablero.estaDescubierta(celda) && !tablero.tieneBandera(celda)) {
+                return MotorJuego.jugada(MotorJuego.DESCUBRIR, celda);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,19 @@
+package ec.edu.ups.buscaminas.simulacion;
+
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+
+/**
+ * Estrategia que decide la siguiente jugada de una partida simulada.
+ * Cada partida recibe su propia instancia, así que puede guardar estado entre jugadas.
+ */
+@FunctionalInterface
+public interface EstrategiaJugada {
+
+    /**
+     * @param tablero estado actual (solo lectura por convención).
+     * @param ultimo resultado de la jugada anterior (vacío en la primera jugada).
+     * @return la jugada codificada con MotorJuego.jugada, o -1 para abandonar la partida.
+     */
+    int siguienteJugada(Tablero tablero, DeltaJugadas ultimo);
+}
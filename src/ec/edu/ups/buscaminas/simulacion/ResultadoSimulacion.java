@@ -0,0 +1,46 @@
+package ec.edu.ups.buscaminas.simulacion;
+
+/**
+ * Totales de una simulación: partidas, victorias, jugadas y tiempo de reloj.
+ */
+public final class ResultadoSimulacion {
+    private final long partidas;
+    private final long ganadas;
+    private final long jugadas;
+    private final long nanos;
+
+    ResultadoSimulacion(long partidas, long ganadas, long jugadas, long nanos) {
+        this.partidas = partidas;
+        this.ganadas = ganadas;
+        this.jugadas = jugadas;
+        this.nanos = nanos;
+    }
+
+    public long getPartidas() { return partidas; }
+    public long getGanadas() { return ganadas; }
+    public long getJugadas() { return jugadas; }
+    public long getNanos() { return nanos; }
+
+    public double getTasaVictoria() {
+        return partidas == 0 ? 0 : (double) ganadas / partidas;
+    }
+
+    public double getJugadasPorPartida() {
+        return partidas == 0 ? 0 : (double) jugadas / partidas;
+    }
+
+    public double getPartidasPorSegundo() {
+        return nanos == 0 ? 0 : partidas * 1e9 / nanos;
+    }
+
+    public double getJugadasPorSegundo() {
+        return nanos == 0 ? 0 : jugadas * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d partidas, %.2f%% ganadas, %.1f jugadas/partida, %.0f partidas/s, %.0f jugadas/s",
+                partidas, getTasaVictoria() * 100, getJugadasPorPartida(),
+                getPartidasPorSegundo(), getJugadasPorSegundo());
+    }
+}
@@ -0,0 +1,160 @@
+package ec.edu.ups.buscaminas.simulacion;
+
+import ec.edu.ups.buscaminas.clasificacion.RegistroPartidas;
+import ec.edu.ups.buscaminas.clasificacion.ResultadoPartida;
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.Juego;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.Semillas;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import ec.edu.ups.buscaminas.solver.GeneradorSinAdivinar;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Ejecuta muchas partidas independientes en paralelo sobre un ForkJoinPool.
+ * La partida i usa una semilla derivada de (semillaBase, i) tanto para el tablero como para
+ * su estrategia, así que el resultado es el mismo con 1 hilo o con todos los núcleos.
+ * Cada tablero deja sin minas la zona 3x3 del centro para que la primera jugada sea justa;
+ * con 'sinAdivinar' además se resuelve sin adivinar desde el centro (ver GeneradorSinAdivinar),
+ * así la tasa de victoria mide la estrategia y no la suerte.
+ */
+public class SimuladorPartidas {
+    // Por debajo de esta cantidad de partidas una tarea ya no se divide
+    private static final int PARTIDAS_POR_TAREA = 16;
+
+    private final int filas;
+    private final int columnas;
+    private final int minas;
+    private final LongFunction<EstrategiaJugada> fabrica;
+    private final GeneradorSinAdivinar generador;
+
+    /**
+     * @param fabrica crea la estrategia de cada partida a partir de su semilla.
+     */
+    public SimuladorPartidas(int filas, int columnas, int minas, LongFunction<EstrategiaJugada> fabrica) {
+        this(filas, columnas, minas, fabrica, false);
+    }
+
+    /**
+     * @param sinAdivinar true para jugar solo tableros que se resuelven sin adivinar.
+     */
+    public SimuladorPartidas(int filas, int columnas, int minas, LongFunction<EstrategiaJugada> fabrica,
+                             boolean sinAdivinar) {
+        Tablero.validarDimensiones(filas, columnas, minas);
+        this.filas = filas;
+        this.columnas = columnas;
+        this.minas = minas;
+        this.fabrica = fabrica;
+        this.generador = sinAdivinar ? new GeneradorSinAdivinar(filas, columnas, minas, filas / 2, columnas / 2) : null;
+    }
+
+    /**
+     * Juega 'partidas' partidas usando 'hilos' hilos (0 = todos los núcleos).
+     */
+    public ResultadoSimulacion ejecutar(long semillaBase, int partidas, int hilos) {
+        return ejecutar(semillaBase, partidas, hilos, null);
+    }
+
+    /**
+     * Igual que ejecutar(semillaBase, partidas, hilos), y además registra cada partida en
+     * 'registro' (si no es null) a nombre de "bot-" y el nombre de la estrategia.
+     */
+    public ResultadoSimulacion ejecutar(long semillaBase, int partidas, int hilos, RegistroPartidas registro) {
+        int paralelismo = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            long inicio = System.nanoTime();
+            long[] totales = pool.invoke(new Tramo(semillaBase, 0, partidas, registro));
+            return new ResultadoSimulacion(partidas, totales[0], totales[1], System.nanoTime() - inicio);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Juega una partida completa y, si hay registro, la agrega al historial.
+     * @return {1 si se ganó, jugadas realizadas}.
+     */
+    long[] jugarPartida(long semilla, RegistroPartidas registro) throws IOException {
+        long inicio = System.nanoTime();
+        SplittableRandom semillas = new SplittableRandom(semilla);
+        SplittableRandom azarTablero = semillas.split();
+        // Cada partida ya corre en su propio hilo: el tablero sin adivinanzas se genera con uno solo
+        Tablero tablero = generador != null
+                ? generador.generar(azarTablero.nextLong(), 1).construir()
+                : new Tablero(filas, columnas, minas, azarTablero, filas / 2, columnas / 2);
+        Juego juego = new Juego(tablero);
+        MotorJuego motor = new MotorJuego(juego);
+        EstrategiaJugada estrategia = fabrica.apply(semillas.nextLong());
+        DeltaJugadas delta = new DeltaJugadas();
+        int[] jugada = new int[1];
+
+        long jugadas = 0;
+        // Cota de seguridad por si una estrategia repite jugadas sin efecto
+        long maximo = 2L * filas * columnas;
+        while (!juego.isJuegoTerminado() && !tablero.verificarVictoria() && jugadas < maximo) {
+            int siguiente = estrategia.siguienteJugada(tablero, delta);
+            if (siguiente < 0) break;
+            jugada[0] = siguiente;
+            motor.aplicar(jugada, 0, 1, delta);
+            jugadas++;
+        }
+        boolean ganada = tablero.verificarVictoria() && !juego.isJuegoTerminado();
+        if (registro != null) {
+            registro.registrar(new ResultadoPartida("bot-" + estrategia.getClass().getSimpleName(), semilla, filas,
+                    columnas, minas, (System.nanoTime() - inicio) / 1000, (int) jugadas, ganada, System.currentTimeMillis()));
+        }
+        return new long[]{ganada ? 1 : 0, jugadas};
+    }
+
+    /**
+     * Rango de partidas [desde, hasta) que se divide a la mitad hasta ser pequeño.
+     * Devuelve {ganadas, jugadas}.
+     */
+    private final class Tramo extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long semillaBase;
+        private final int desde;
+        private final int hasta;
+        private final RegistroPartidas registro;
+
+        Tramo(long semillaBase, int desde, int hasta, RegistroPartidas registro) {
+            this.semillaBase = semillaBase;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.registro = registro;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hasta - desde > PARTIDAS_POR_TAREA) {
+                int mitad = (desde + hasta) >>> 1;
+                Tramo izquierda = new Tramo(semillaBase, desde, mitad, registro);
+                izquierda.fork();
+                long[] derecha = new Tramo(semillaBase, mitad, hasta, registro).compute();
+                long[] resultado = izquierda.join();
+                resultado[0] += derecha[0];
+                resultado[1] += derecha[1];
+                return resultado;
+            }
+            long[] totales = new long[2];
+            try {
+                for (int i = desde; i < hasta; i++) {
+                    long[] partida = jugarPartida(Semillas.derivar(semillaBase, i), registro);
+                    totales[0] += partida[0];
+                    totales[1] += partida[1];
+                }
+            } catch (IOException e) {
+                // Las partidas simuladas no tienen bitácora: solo puede fallar el registro
+                throw new UncheckedIOException(e);
+            }
+            return totales;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ec.edu.ups.buscaminas.solver;
+
+import java.util.Arrays;
+
+/**
+ * Cola FIFO de enteros sobre un arreglo que crece, sin objetos por elemento.
+ */
+final class ColaEnteros {
+    private int[] datos = new int[64];
+    private int cabeza;
+    private int fin;
+
+    boolean vacia() {
+        return cabeza == fin;
+    }
+
+    int tamano() {
+        return fin - cabeza;
+    }
+
+    void agregar(int valor) {
+        if (fin == datos.length) {
+            // Primero se reutiliza el espacio ya consumido; si no alcanza, se duplica
+            if (cabeza > datos.length / 2) {
+                System.arraycopy(datos, cabeza, datos, 0, fin - cabeza);
+            } else {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+                System.arraycopy(datos, cabeza, datos, 0, fin - cabeza);
+            }
+            fin -= cabeza;
+            cabeza = 0;
+        }
+        datos[fin++] = valor;
+    }
+
+    int primero() {
+        return datos[cabeza];
+    }
+
+    int sacar() {
+        return datos[cabeza++];
+    }
+
+    int obtener(int i) {
+        return datos[cabeza + i];
+    }
+}
@@ -0,0 +1,164 @@
+package ec.edu.ups.buscaminas.solver;
+
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.Juego;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.Semillas;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Genera tableros que se resuelven sin adivinar desde un primer clic dado.
+ * Cada candidato es un tablero aleatorio (con la zona 3x3 del primer clic libre de minas) que
+ * el Solucionador intenta resolver solo con jugadas seguras. Si se atasca, se repara: una mina
+ * de la frontera que no se pudo deducir se mueve al interior (lejos de lo descubierto) y se
+ * vuelve a intentar. Si tras varias reparaciones sigue sin resolverse, se pasa al siguiente candidato.
+ *
+ * Los candidatos se prueban en paralelo por oleadas y se acepta el de menor número que funcione,
+ * así que la misma semilla da el mismo tablero con cualquier cantidad de hilos.
+ */
+public class GeneradorSinAdivinar {
+    // Reparaciones por candidato antes de descartarlo
+    private static final int MAX_REPARACIONES = 64;
+    // Candidatos antes de rendirse (ej. densidades imposibles)
+    private static final int MAX_CANDIDATOS = 10_000;
+
+    private final int filas;
+    private final int columnas;
+    private final int minas;
+    private final int filaInicial;
+    private final int columnaInicial;
+
+    public GeneradorSinAdivinar(int filas, int columnas, int minas, int filaInicial, int columnaInicial) {
+        if (filaInicial < 0 || filaInicial >= filas || columnaInicial < 0 || columnaInicial >= columnas)
+            throw new IllegalArgumentException("El primer clic está fuera del tablero.");
+        if (minas > filas * columnas - 9)
+            throw new IllegalArgumentException("Demasiadas minas para dejar libre el primer clic.");
+        this.filas = filas;
+        this.columnas = columnas;
+        this.minas = minas;
+        this.filaInicial = filaInicial;
+        this.columnaInicial = columnaInicial;
+    }
+
+    /**
+     * Genera la receta del tablero para 'semilla' usando 'hilos' hilos (0 = todos los núcleos).
+     * @throws IllegalStateException si ningún candidato se pudo resolver.
+     */
+    public RecetaTablero generar(long semilla, int hilos) {
+        int paralelismo = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        if (paralelismo == 1) {
+            for (int i = 0; i < MAX_CANDIDATOS; i++) {
+                RecetaTablero receta = probar(Semillas.derivar(semilla, i), () -> false);
+                if (receta != null) return receta;
+            }
+            throw new IllegalStateException("No se encontró un tablero sin adivinanzas para esa densidad.");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            RecetaTablero[] oleada = new RecetaTablero[paralelismo];
+            for (int base = 0; base < MAX_CANDIDATOS; base += paralelismo) {
+                // Menor candidato aceptado en esta oleada: los mayores pueden abandonar antes
+                AtomicInteger aceptado = new AtomicInteger(Integer.MAX_VALUE);
+                List<ForkJoinTask<?>> tareas = new ArrayList<>(paralelismo);
+                for (int k = 0; k < paralelismo; k++) {
+                    int n = k;
+                    long semillaCandidato = Semillas.derivar(semilla, base + k);
+                    tareas.add(pool.submit(() -> {
+                        oleada[n] = probar(semillaCandidato, () -> aceptado.get() < n);
+                        if (oleada[n] != null) aceptado.accumulateAndGet(n, Math::min);
+                    }));
+                }
+                for (ForkJoinTask<?> tarea : tareas) tarea.join();
+                for (RecetaTablero receta : oleada) {
+                    if (receta != null) return receta;
+                }
+            }
+            throw new IllegalStateException("No se encontró un tablero sin adivinanzas para esa densidad.");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prueba un candidato y lo repara hasta que el solver lo resuelva.
+     * @param abandonar se consulta entre intentos; si devuelve true el candidato ya no interesa.
+     * @return la receta, o null si no se pudo reparar.
+     */
+    RecetaTablero probar(long semillaCandidato, BooleanSupplier abandonar) {
+        SplittableRandom azar = new SplittableRandom(semillaCandidato ^ 0x5DEECE66DL);
+        int[] movimientos = new int[2 * MAX_REPARACIONES];
+        int cantidad = 0;
+        int[] candidatos = new int[filas * columnas];
+        try {
+            for (int intento = 0; intento <= MAX_REPARACIONES; intento++) {
+                if (abandonar.getAsBoolean()) return null;
+                // Se reconstruye desde cero: mover una mina cambia números ya descubiertos
+                Tablero tablero = RecetaTablero.construir(filas, columnas, minas, filaInicial, columnaInicial,
+                        semillaCandidato, movimientos, cantidad);
+                Solucionador solucionador = resolver(tablero);
+                if (tablero.verificarVictoria()) {
+                    return new RecetaTablero(filas, columnas, minas, filaInicial, columnaInicial,
+                            semillaCandidato, Arrays.copyOf(movimientos, cantidad));
+                }
+                if (intento == MAX_REPARACIONES) break;
+
+                // Origen: una mina oculta de la frontera que el solver no pudo deducir
+                int n = 0;
+                for (int i = 0; i < candidatos.length; i++) {
+                    if (!tablero.estaDescubierta(i) && !solucionador.estaDeducida(i)
+                            && tablero.tieneMina(i) && tieneVecinaDescubierta(tablero, i)) candidatos[n++] = i;
+                }
+                if (n == 0) return null;
+                int origen = candidatos[azar.nextInt(n)];
+                // Destino: una casilla oculta sin mina y sin vecinas descubiertas
+                n = 0;
+                for (int i = 0; i < candidatos.length; i++) {
+                    if (!tablero.estaDescubierta(i) && !tablero.tieneMina(i)
+                            && !tieneVecinaDescubierta(tablero, i)) candidatos[n++] = i;
+                }
+                if (n == 0) return null;
+                movimientos[cantidad++] = origen;
+                movimientos[cantidad++] = candidatos[azar.nextInt(n)];
+            }
+            return null;
+        } catch (IOException e) {
+            // Las partidas de prueba no tienen bitácora: no debería ocurrir
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Descubre el primer clic y aplica solo jugadas seguras hasta atascarse o ganar
+    private Solucionador resolver(Tablero tablero) throws IOException {
+        Juego juego = new Juego(tablero);
+        MotorJuego motor = new MotorJuego(juego);
+        DeltaJugadas delta = new DeltaJugadas();
+        Solucionador solucionador = new Solucionador(tablero);
+        motor.aplicar(MotorJuego.DESCUBRIR, filaInicial, columnaInicial, delta);
+        solucionador.actualizar(delta);
+        solucionador.resolver(motor, false, Integer.MAX_VALUE);
+        return solucionador;
+    }
+
+    private static boolean tieneVecinaDescubierta(Tablero tablero, int indice) {
+        int columnas = tablero.getColumnas();
+        int fila = indice / columnas;
+        int col = indice % columnas;
+        for (int f = Math.max(0, fila - 1); f <= Math.min(tablero.getFilas() - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                if (tablero.estaDescubierta(f * columnas + c)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package ec.edu.ups.buscaminas.solver;
+
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+
+/**
+ * Jugada sugerida por el Solucionador.
+ * Si es segura, la probabilidad de mina es 0 (descubrir) o 1 (poner bandera);
+ * si no, es la estimación de la casilla menos arriesgada.
+ */
+public final class Pista {
+    private final byte tipo;
+    private final int indice;
+    private final double probabilidadMina;
+    private final boolean segura;
+
+    Pista(byte tipo, int indice, double probabilidadMina, boolean segura) {
+        this.tipo = tipo;
+        this.indice = indice;
+        this.probabilidadMina = probabilidadMina;
+        this.segura = segura;
+    }
+
+    /** MotorJuego.DESCUBRIR o MotorJuego.BANDERA. */
+    public byte getTipo() { return tipo; }
+    public int getIndice() { return indice; }
+    public double getProbabilidadMina() { return probabilidadMina; }
+    /** true si la jugada está demostrada; false si es una adivinanza. */
+    public boolean isSegura() { return segura; }
+
+    /**
+     * La pista como jugada codificada para MotorJuego.
+     */
+    public int comoJugada() {
+        return MotorJuego.jugada(tipo, indice);
+    }
+}
@@ -0,0 +1,60 @@
+package ec.edu.ups.buscaminas.solver;
+
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.SplittableRandom;
+
+/**
+ * Forma compacta de un tablero sin adivinanzas: la semilla del candidato que se aceptó más
+ * las minas que se movieron para repararlo. Reconstruir el tablero es generar con esa
+ * semilla y repetir los movimientos, así que guardar recetas cuesta unos pocos bytes
+ * por tablero sin importar su tamaño.
+ */
+public final class RecetaTablero {
+    private final int filas;
+    private final int columnas;
+    private final int minas;
+    private final int filaInicial;
+    private final int columnaInicial;
+    private final long semilla;
+    // Pares (origen, destino) de índices de celda, en el orden en que se aplicaron
+    private final int[] movimientos;
+
+    RecetaTablero(int filas, int columnas, int minas, int filaInicial, int columnaInicial,
+                  long semilla, int[] movimientos) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.minas = minas;
+        this.filaInicial = filaInicial;
+        this.columnaInicial = columnaInicial;
+        this.semilla = semilla;
+        this.movimientos = movimientos;
+    }
+
+    /**
+     * Construye un tablero nuevo (sin nada descubierto). Cada llamada devuelve una copia independiente.
+     */
+    public Tablero construir() {
+        return construir(filas, columnas, minas, filaInicial, columnaInicial, semilla, movimientos, movimientos.length);
+    }
+
+    static Tablero construir(int filas, int columnas, int minas, int filaInicial, int columnaInicial,
+                             long semilla, int[] movimientos, int cantidad) {
+        Tablero tablero = new Tablero(filas, columnas, minas, new SplittableRandom(semilla), filaInicial, columnaInicial);
+        for (int i = 0; i < cantidad; i += 2) {
+            int origen = movimientos[i];
+            int destino = movimientos[i + 1];
+            tablero.moverMina(origen / columnas, origen % columnas, destino / columnas, destino % columnas);
+        }
+        return tablero;
+    }
+
+    public int getFilas() { return filas; }
+    public int getColumnas() { return columnas; }
+    public int getMinas() { return minas; }
+    /** Primer clic desde el que el tablero se resuelve sin adivinar. */
+    public int getFilaInicial() { return filaInicial; }
+    public int getColumnaInicial() { return columnaInicial; }
+    public long getSemilla() { return semilla; }
+    /** Cantidad de minas que hubo que mover para reparar el candidato. */
+    public int getReparaciones() { return movimientos.length / 2; }
+}
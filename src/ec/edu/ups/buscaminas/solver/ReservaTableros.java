@@ -0,0 +1,131 @@
+package ec.edu.ups.buscaminas.solver;
+
+import ec.edu.ups.buscaminas.modelo.Semillas;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Reserva de tableros sin adivinanzas para no pagar la generación en el momento de jugar.
+ * <ul>
+ *   <li>Caché: recuerda la receta generada para (tamaño, minas, primer clic, semilla); pedir
+ *       otra vez la misma combinación solo reconstruye el tablero. Se descartan las menos usadas.</li>
+ *   <li>Reserva: por cada (tamaño, minas, primer clic) guarda recetas generadas de antemano
+ *       con precalentar(), que se entregan una sola vez con tomar().</li>
+ * </ul>
+ * Se guardan recetas y no tableros: ocupan unos bytes y cada entrega es un tablero nuevo.
+ */
+public class ReservaTableros {
+    private final int capacidadCache;
+    private final Map<Clave, RecetaTablero> cache;
+    private final Map<Clave, Queue<RecetaTablero>> reserva = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacidadCache cantidad máxima de recetas en la caché.
+     */
+    public ReservaTableros(int capacidadCache) {
+        this.capacidadCache = capacidadCache;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, RecetaTablero> mayor) {
+                return size() > ReservaTableros.this.capacidadCache;
+            }
+        };
+    }
+
+    /**
+     * Tablero sin adivinanzas para esa semilla: siempre el mismo, generado una sola vez.
+     * @param hilos hilos para generarlo si no está en caché (0 = todos los núcleos).
+     */
+    public Tablero obtener(int filas, int columnas, int minas, int filaInicial, int columnaInicial,
+                           long semilla, int hilos) {
+        Clave clave = new Clave(filas, columnas, minas, filaInicial, columnaInicial, semilla);
+        RecetaTablero receta;
+        synchronized (cache) {
+            receta = cache.get(clave);
+        }
+        if (receta == null) {
+            // Se genera fuera del candado; si dos hilos piden la misma clave obtienen la misma receta
+            receta = new GeneradorSinAdivinar(filas, columnas, minas, filaInicial, columnaInicial).generar(semilla, hilos);
+            synchronized (cache) {
+                cache.put(clave, receta);
+            }
+        }
+        return receta.construir();
+    }
+
+    /**
+     * Genera 'cantidad' recetas en paralelo (una por tarea) y las agrega a la reserva de esa
+     * configuración. Las semillas se derivan de 'semillaBase'.
+     */
+    public void precalentar(int filas, int columnas, int minas, int filaInicial, int columnaInicial,
+                            int cantidad, long semillaBase, int hilos) {
+        GeneradorSinAdivinar generador = new GeneradorSinAdivinar(filas, columnas, minas, filaInicial, columnaInicial);
+        Queue<RecetaTablero> cola = reserva.computeIfAbsent(
+                new Clave(filas, columnas, minas, filaInicial, columnaInicial, 0), k -> new ConcurrentLinkedQueue<>());
+        ForkJoinPool pool = new ForkJoinPool(hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors());
+        try {
+            // Con varios tableros por generar conviene un tablero por hilo y no dividir cada uno
+            pool.submit(() -> IntStream.range(0, cantidad).parallel()
+                    .mapToObj(i -> generador.generar(Semillas.derivar(semillaBase, i), 1))
+                    .forEachOrdered(cola::add)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Entrega un tablero de la reserva, o null si no quedan para esa configuración.
+     */
+    public Tablero tomar(int filas, int columnas, int minas, int filaInicial, int columnaInicial) {
+        Queue<RecetaTablero> cola = reserva.get(new Clave(filas, columnas, minas, filaInicial, columnaInicial, 0));
+        RecetaTablero receta = cola != null ? cola.poll() : null;
+        return receta != null ? receta.construir() : null;
+    }
+
+    /**
+     * Tableros que quedan en la reserva para esa configuración.
+     */
+    public int disponibles(int filas, int columnas, int minas, int filaInicial, int columnaInicial) {
+        Queue<RecetaTablero> cola = reserva.get(new Clave(filas, columnas, minas, filaInicial, columnaInicial, 0));
+        return cola != null ? cola.size() : 0;
+    }
+
+    private static final class Clave {
+        private final int filas;
+        private final int columnas;
+        private final int minas;
+        private final int filaInicial;
+        private final int columnaInicial;
+        private final long semilla;
+
+        Clave(int filas, int columnas, int minas, int filaInicial, int columnaInicial, long semilla) {
+            this.filas = filas;
+            this.columnas = columnas;
+            this.minas = minas;
+            this.filaInicial = filaInicial;
+            this.columnaInicial = columnaInicial;
+            this.semilla = semilla;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) return false;
+            Clave otra = (Clave) o;
+            return filas == otra.filas && columnas == otra.columnas && minas == otra.minas
+                    && filaInicial == otra.filaInicial && columnaInicial == otra.columnaInicial
+                    && semilla == otra.semilla;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filas, columnas, minas, filaInicial, columnaInicial, semilla);
+        }
+    }
+}
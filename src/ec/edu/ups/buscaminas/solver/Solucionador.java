@@ -0,0 +1,410 @@
+package ec.edu.ups.buscaminas.solver;
+
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Solver por propagación de restricciones sobre el estado visible de un Tablero.
+ * Cada número descubierto es una restricción: entre sus vecinas desconocidas hay tantas
+ * minas como su número menos las minas ya deducidas. Se razona en tres niveles:
+ * <ol>
+ *   <li>Regla simple: si no faltan minas, todas las desconocidas son seguras; si faltan
+ *       tantas como desconocidas hay, todas son minas.</li>
+ *   <li>Pares de restricciones cercanas: las vecinas desconocidas de ambas se representan
+ *       como bits de un long (ventana de 7x7) y se aplican las reglas de subconjuntos.</li>
+ *   <li>Si no queda nada seguro, se estima la probabilidad de mina y se elige la casilla
+ *       menos arriesgada.</li>
+ * </ol>
+ * El trabajo es incremental: actualizar() recibe el DeltaJugadas de cada jugada y solo se
+ * vuelven a revisar las restricciones cercanas a las celdas que cambiaron. El tablero se
+ * recorre completo una única vez, al construir el solver.
+ * Las banderas del jugador no se usan como hechos: el solver solo confía en lo que deduce.
+ */
+public class Solucionador {
+    // Marcas por celda
+    private static final byte SEGURA = 1;
+    private static final byte MINA = 2;
+    private static final byte EN_COLA = 4;
+    private static final byte EN_PARES = 8;
+    private static final byte EN_FRONTERA = 16;
+
+    // Ventana de 7x7 centrada en una restricción: cubre las vecinas de cualquier número a distancia 2
+    private static final int LADO_VENTANA = 7;
+    private static final int CENTRO_VENTANA = 3;
+
+    private final Tablero tablero;
+    private final int filas;
+    private final int columnas;
+    private final byte[] marcas;
+
+    private final ColaEnteros cola = new ColaEnteros();      // restricciones por revisar con la regla simple
+    private final ColaEnteros pares = new ColaEnteros();     // restricciones por comparar de a pares
+    private final ColaEnteros seguras = new ColaEnteros();   // seguras deducidas (pueden estar ya descubiertas)
+    private final ColaEnteros minas = new ColaEnteros();     // minas deducidas
+    private final ColaEnteros frontera = new ColaEnteros();  // restricciones con desconocidas (borrado perezoso)
+    private final DeltaJugadas delta = new DeltaJugadas();
+    private int minasDeducidas;
+    private int cursorInterior;
+    private int adivinanzas;
+
+    public Solucionador(Tablero tablero) {
+        this.tablero = tablero;
+        this.filas = tablero.getFilas();
+        this.columnas = tablero.getColumnas();
+        this.marcas = new byte[filas * columnas];
+        for (int i = 0; i < marcas.length; i++) {
+            if (tablero.estaDescubierta(i) && tablero.getMinasAlrededor(i) > 0) encolar(i);
+        }
+    }
+
+    public Tablero getTablero() { return tablero; }
+
+    /** Adivinanzas hechas por resolver(). */
+    public int getAdivinanzas() { return adivinanzas; }
+
+    /**
+     * Incorpora las celdas que cambió una jugada (o un lote) del MotorJuego.
+     */
+    public void actualizar(DeltaJugadas cambios) {
+        for (int i = 0; i < cambios.getCantidadCeldas(); i++) {
+            int celda = cambios.getCelda(i);
+            if (tablero.estaDescubierta(celda)) conocer(celda);
+        }
+    }
+
+    /**
+     * Incorpora una celda recién descubierta: es una restricción nueva y reduce las
+     * desconocidas de los números vecinos.
+     */
+    public void conocer(int celda) {
+        int fila = celda / columnas;
+        int col = celda - fila * columnas;
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                int vecina = f * columnas + c;
+                if (tablero.estaDescubierta(vecina) && tablero.getMinasAlrededor(vecina) > 0) encolar(vecina);
+            }
+        }
+    }
+
+    /**
+     * Sugiere una jugada: primero una casilla segura, luego una mina deducida sin bandera
+     * y, si no hay nada seguro, la casilla con menor probabilidad estimada de mina.
+     * @return la pista, o null si la partida ya terminó.
+     */
+    public Pista pista() {
+        int segura = siguienteSegura();
+        if (segura >= 0) return new Pista(MotorJuego.DESCUBRIR, segura, 0, true);
+        while (!minas.vacia()) {
+            int mina = minas.primero();
+            if (!tablero.tieneBandera(mina)) return new Pista(MotorJuego.BANDERA, mina, 1, true);
+            minas.sacar();
+        }
+        return adivinar();
+    }
+
+    /**
+     * Próxima casilla demostrada como segura y aún oculta, o -1 si no hay.
+     */
+    public int siguienteSegura() {
+        propagar();
+        while (!seguras.vacia()) {
+            int celda = seguras.primero();
+            if (!tablero.estaDescubierta(celda) && !tablero.tieneBandera(celda)) return celda;
+            seguras.sacar();
+        }
+        return -1;
+    }
+
+    /**
+     * Juega con el motor hasta ganar, perder, agotar 'maxJugadas' o quedarse sin jugadas seguras
+     * (si 'adivinar' es false). Todas las seguras conocidas se envían en un solo lote.
+     * @return cantidad de jugadas aplicadas.
+     */
+    public int resolver(MotorJuego motor, boolean adivinar, int maxJugadas) throws IOException {
+        int[] lote = new int[64];
+        int jugadas = 0;
+        while (jugadas < maxJugadas && !motor.getJuego().isJuegoTerminado() && !tablero.verificarVictoria()) {
+            propagar();
+            int n = 0;
+            // Solo salen de la cola las seguras que entran al lote; las demás quedan para después
+            while (!seguras.vacia() && jugadas + n < maxJugadas) {
+                int celda = seguras.sacar();
+                if (tablero.estaDescubierta(celda) || tablero.tieneBandera(celda)) continue;
+                if (n == lote.length) lote = Arrays.copyOf(lote, n * 2);
+                lote[n++] = MotorJuego.jugada(MotorJuego.DESCUBRIR, celda);
+            }
+            if (n == 0) {
+                if (!adivinar) break;
+                Pista pista = adivinar();
+                if (pista == null) break;
+                lote[n++] = pista.comoJugada();
+                adivinanzas++;
+            }
+            motor.aplicar(lote, 0, n, delta);
+            actualizar(delta);
+            jugadas += n;
+        }
+        return jugadas;
+    }
+
+    /**
+     * Aplica la regla simple y la de pares hasta que no se deduzca nada más.
+     */
+    private void propagar() {
+        while (!cola.vacia() || !pares.vacia()) {
+            while (!cola.vacia()) revisar(cola.sacar());
+            // Los pares solo se comparan cuando la regla simple ya no avanza
+            while (!pares.vacia() && cola.vacia()) compararPares(pares.sacar());
+        }
+    }
+
+    private void encolar(int celda) {
+        if ((marcas[celda] & EN_COLA) == 0) {
+            marcas[celda] |= EN_COLA;
+            cola.agregar(celda);
+        }
+    }
+
+    // Regla simple sobre la restricción 'a'
+    private void revisar(int a) {
+        marcas[a] &= ~EN_COLA;
+        int fila = a / columnas;
+        int col = a - fila * columnas;
+        int desconocidas = 0;
+        int faltantes = tablero.getMinasAlrededor(a);
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                int vecina = f * columnas + c;
+                if ((marcas[vecina] & MINA) != 0) faltantes--;
+                else if (esDesconocida(vecina)) desconocidas++;
+            }
+        }
+        if (desconocidas == 0) {
+            marcas[a] &= ~EN_FRONTERA;
+            return;
+        }
+        if (faltantes == 0 || faltantes == desconocidas) {
+            byte marca = faltantes == 0 ? SEGURA : MINA;
+            for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                    int vecina = f * columnas + c;
+                    if (esDesconocida(vecina)) marcar(vecina, marca);
+                }
+            }
+            marcas[a] &= ~EN_FRONTERA;
+            return;
+        }
+        if ((marcas[a] & EN_FRONTERA) == 0) {
+            marcas[a] |= EN_FRONTERA;
+            frontera.agregar(a);
+        }
+        if ((marcas[a] & EN_PARES) == 0) {
+            marcas[a] |= EN_PARES;
+            pares.agregar(a);
+        }
+    }
+
+    /**
+     * Compara la restricción 'a' con cada número a distancia 2 o menos. Con A y B como
+     * conjuntos de desconocidas y rA, rB como minas faltantes: si |A \ B| == rA - rB,
+     * entonces A \ B son todas minas y B \ A son todas seguras.
+     */
+    private void compararPares(int a) {
+        marcas[a] &= ~EN_PARES;
+        if ((marcas[a] & EN_FRONTERA) == 0) return;
+        int fila = a / columnas;
+        int col = a - fila * columnas;
+        long mascaraA = mascara(a, fila, col);
+        int faltanA = faltantes(a);
+        if (mascaraA == 0) return;
+
+        for (int f = Math.max(0, fila - 2); f <= Math.min(filas - 1, fila + 2); f++) {
+            for (int c = Math.max(0, col - 2); c <= Math.min(columnas - 1, col + 2); c++) {
+                int b = f * columnas + c;
+                if (b == a || !tablero.estaDescubierta(b) || tablero.getMinasAlrededor(b) == 0) continue;
+                long mascaraB = mascara(b, fila, col);
+                if (mascaraB == 0 || (mascaraA & mascaraB) == 0) continue;
+                int faltanB = faltantes(b);
+                long soloA = mascaraA & ~mascaraB;
+                long soloB = mascaraB & ~mascaraA;
+                if (Long.bitCount(soloA) == faltanA - faltanB && (soloA | soloB) != 0) {
+                    marcarMascara(soloA, MINA, fila, col);
+                    marcarMascara(soloB, SEGURA, fila, col);
+                    return;
+                }
+                if (Long.bitCount(soloB) == faltanB - faltanA && (soloA | soloB) != 0) {
+                    marcarMascara(soloB, MINA, fila, col);
+                    marcarMascara(soloA, SEGURA, fila, col);
+                    return;
+                }
+            }
+        }
+    }
+
+    // Desconocidas vecinas de 'x' como bits de la ventana de 7x7 centrada en (filaCentro, colCentro)
+    private long mascara(int x, int filaCentro, int colCentro) {
+        int fila = x / columnas;
+        int col = x - fila * columnas;
+        long mascara = 0;
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                if (esDesconocida(f * columnas + c)) {
+                    int bit = (f - filaCentro + CENTRO_VENTANA) * LADO_VENTANA + (c - colCentro + CENTRO_VENTANA);
+                    mascara |= 1L << bit;
+                }
+            }
+        }
+        return mascara;
+    }
+
+    private void marcarMascara(long mascara, byte marca, int filaCentro, int colCentro) {
+        while (mascara != 0) {
+            int bit = Long.numberOfTrailingZeros(mascara);
+            mascara &= mascara - 1;
+            int f = filaCentro + bit / LADO_VENTANA - CENTRO_VENTANA;
+            int c = colCentro + bit % LADO_VENTANA - CENTRO_VENTANA;
+            int celda = f * columnas + c;
+            if (esDesconocida(celda)) marcar(celda, marca);
+        }
+    }
+
+    // Minas que le faltan al número 'x' descontando las ya deducidas
+    private int faltantes(int x) {
+        int fila = x / columnas;
+        int col = x - fila * columnas;
+        int faltan = tablero.getMinasAlrededor(x);
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                if ((marcas[f * columnas + c] & MINA) != 0) faltan--;
+            }
+        }
+        return faltan;
+    }
+
+    /**
+     * true si la celda ya se dedujo como segura o como mina.
+     */
+    boolean estaDeducida(int celda) {
+        return (marcas[celda] & (SEGURA | MINA)) != 0;
+    }
+
+    private boolean esDesconocida(int celda) {
+        return (marcas[celda] & (SEGURA | MINA)) == 0 && !tablero.estaDescubierta(celda);
+    }
+
+    // Registra una deducción y reencola los números vecinos, cuyas desconocidas cambiaron
+    private void marcar(int celda, byte marca) {
+        marcas[celda] |= marca;
+        if (marca == SEGURA) {
+            seguras.agregar(celda);
+        } else {
+            minas.agregar(celda);
+            minasDeducidas++;
+        }
+        conocer(celda);
+    }
+
+    /**
+     * Estimación cuando no hay nada seguro. Cada desconocida de la frontera toma la mayor
+     * proporción faltantes/desconocidas de sus números; las casillas interiores (sin números
+     * vecinos) toman la densidad de las minas que quedan sin deducir. Se elige la menor.
+     */
+    private Pista adivinar() {
+        if (tablero.verificarVictoria()) return null;
+        int total = filas * columnas;
+        int descubiertas = total - tablero.getTotalMinas() - tablero.getSegurasPorDescubrir();
+        int desconocidas = total - descubiertas - minasDeducidas;
+        if (desconocidas <= 0) return null;
+        double densidad = (double) (tablero.getTotalMinas() - minasDeducidas) / desconocidas;
+
+        int mejor = -1;
+        double mejorProbabilidad = 2;
+        int vivas = 0;
+        for (int i = 0; i < frontera.tamano(); i++) {
+            int a = frontera.obtener(i);
+            if ((marcas[a] & EN_FRONTERA) == 0) continue;
+            vivas++;
+            int fila = a / columnas;
+            int col = a - fila * columnas;
+            for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                    int celda = f * columnas + c;
+                    if (!esDesconocida(celda) || tablero.tieneBandera(celda)) continue;
+                    double p = probabilidadLocal(celda);
+                    if (p < mejorProbabilidad) {
+                        mejorProbabilidad = p;
+                        mejor = celda;
+                    }
+                }
+            }
+        }
+        compactarFrontera(vivas);
+
+        int interior = siguienteInterior();
+        if (interior >= 0 && (mejor < 0 || densidad < mejorProbabilidad)) {
+            return new Pista(MotorJuego.DESCUBRIR, interior, densidad, false);
+        }
+        if (mejor < 0) return null;
+        return new Pista(MotorJuego.DESCUBRIR, mejor, mejorProbabilidad, false);
+    }
+
+    // Mayor faltantes/desconocidas entre los números que rodean a 'celda'
+    private double probabilidadLocal(int celda) {
+        int fila = celda / columnas;
+        int col = celda - fila * columnas;
+        double p = 0;
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                int numero = f * columnas + c;
+                if (!tablero.estaDescubierta(numero) || tablero.getMinasAlrededor(numero) == 0) continue;
+                int desconocidas = Long.bitCount(mascara(numero, f, c));
+                if (desconocidas > 0) p = Math.max(p, (double) faltantes(numero) / desconocidas);
+            }
+        }
+        return p;
+    }
+
+    // Quita de la lista las restricciones que ya salieron de la frontera
+    private void compactarFrontera(int vivas) {
+        if (vivas * 2 > frontera.tamano()) return;
+        int n = frontera.tamano();
+        for (int i = 0; i < n; i++) {
+            int a = frontera.sacar();
+            if ((marcas[a] & EN_FRONTERA) != 0) frontera.agregar(a);
+        }
+    }
+
+    /**
+     * Siguiente casilla desconocida sin vecinas descubiertas. El cursor solo avanza: una
+     * casilla que deja de ser interior no vuelve a serlo.
+     */
+    private int siguienteInterior() {
+        int total = filas * columnas;
+        // Sin nada descubierto, el centro es la mejor apertura
+        if (tablero.getSegurasPorDescubrir() == total - tablero.getTotalMinas()) {
+            int centro = (filas / 2) * columnas + columnas / 2;
+            if (esDesconocida(centro) && !tablero.tieneBandera(centro)) return centro;
+        }
+        while (cursorInterior < total) {
+            int celda = cursorInterior;
+            if (esDesconocida(celda) && !tablero.tieneBandera(celda) && !tieneVecinaDescubierta(celda)) return celda;
+            cursorInterior++;
+        }
+        return -1;
+    }
+
+    private boolean tieneVecinaDescubierta(int celda) {
+        int fila = celda / columnas;
+        int col = celda - fila * columnas;
+        for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                if (tablero.estaDescubierta(f * columnas + c)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,19 +1,73 @@
 package ec.edu.ups.buscaminas.test;
 
 import ec.edu.ups.buscaminas.modelo.Casilla;
+import ec.edu.ups.buscaminas.modelo.DeltaJugadas;
+import ec.edu.ups.buscaminas.modelo.MotorJuego;
+import ec.edu.ups.buscaminas.modelo.ResultadoJugada;
 import ec.edu.ups.buscaminas.modelo.Juego;
 import ec.edu.ups.buscaminas.modelo.Tablero;
+import ec.edu.ups.buscaminas.modelo.TableroCompartido;
+import ec.edu.ups.buscaminas.modelo.TableroInfinito;
+import ec.edu.ups.buscaminas.modelo.legado.LectorLegado;
 import ec.edu.ups.buscaminas.excepciones.CasillaYaDescubiertaException;
 import ec.edu.ups.buscaminas.excepciones.CoordenadaInvalidaException;
+import ec.edu.ups.buscaminas.clasificacion.EstadisticasJugador;
+import ec.edu.ups.buscaminas.clasificacion.RegistroPartidas;
+import ec.edu.ups.buscaminas.clasificacion.ResultadoPartida;
+import ec.edu.ups.buscaminas.metricas.ExportadorMetricas;
+import ec.edu.ups.buscaminas.metricas.Histograma;
+import ec.edu.ups.buscaminas.metricas.Metricas;
+import ec.edu.ups.buscaminas.servidor.ServidorSesiones;
+import ec.edu.ups.buscaminas.simulacion.EstrategiaAleatoria;
+import ec.edu.ups.buscaminas.simulacion.ResultadoSimulacion;
+import ec.edu.ups.buscaminas.simulacion.SimuladorPartidas;
+import ec.edu.ups.buscaminas.solver.GeneradorSinAdivinar;
+import ec.edu.ups.buscaminas.solver.Pista;
+import ec.edu.ups.buscaminas.solver.RecetaTablero;
+import ec.edu.ups.buscaminas.solver.ReservaTableros;
+import ec.edu.ups.buscaminas.solver.Solucionador;
+import ec.edu.ups.buscaminas.vista.Coordenadas;
+import ec.edu.ups.buscaminas.vista.RenderizadorTablero;
+import ec.edu.ups.buscaminas.vista.Ventana;
 
 // Importaciones de JUnit 5
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.sun.management.ThreadMXBean;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Clase de Pruebas Unitarias usando JUnit 5.
@@ -159,4 +213,1304 @@ public class BuscaminasTest {
         // Aserción: El método debe retornar true (indicando explosión)
         assertTrue(resultado, "Descubrir una mina debe retornar true (Juego Terminado).");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("La Casilla es una vista: los cambios se reflejan en el tablero")
+    public void testCasillaEsVistaDelTablero() {
+        Casilla vista = tablero.getCasilla(3, 3);
+        vista.setTieneBandera(true);
+
+        // Una nueva vista de la misma celda debe ver el cambio
+        assertTrue(tablero.getCasilla(3, 3).isTieneBandera());
+        assertEquals(vista.esMina(), tablero.getCasilla(3, 3).esMina());
+
+        vista.setTieneBandera(false);
+        assertFalse(tablero.getCasilla(3, 3).isTieneBandera());
+    }
+
+    @Test
+    @DisplayName("Debe respetar dimensiones y cantidad de minas personalizadas")
+    public void testTableroPersonalizado() {
+        Tablero grande = new Tablero(30, 45, 200);
+        assertEquals(30, grande.getFilas());
+        assertEquals(45, grande.getColumnas());
+
+        int contadorMinas = 0;
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 45; j++) {
+                if (grande.getCasilla(i, j).esMina()) contadorMinas++;
+            }
+        }
+        assertEquals(200, contadorMinas);
+
+        assertThrows(IllegalArgumentException.class, () -> new Tablero(0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Tablero(5, 5, 25));
+    }
+
+    @Test
+    @DisplayName("Las etiquetas de fila de varias letras deben ser reversibles")
+    public void testEtiquetasDeFila() {
+        assertEquals("A", Coordenadas.etiquetaFila(0));
+        assertEquals("Z", Coordenadas.etiquetaFila(25));
+        assertEquals("AA", Coordenadas.etiquetaFila(26));
+        assertEquals("NTP", Coordenadas.etiquetaFila(9999));
+        for (int fila = 0; fila < 10_000; fila += 37) {
+            assertEquals(fila, Coordenadas.indiceFila(Coordenadas.etiquetaFila(fila)));
+        }
+        assertEquals(-1, Coordenadas.indiceFila("A1"));
+    }
+
+    @Test
+    @DisplayName("El flood fill debe abrir regiones enormes sin desbordar la pila")
+    public void testFloodFillIterativo() throws Exception {
+        // Sin minas, un solo clic abre todo el tablero: el peor caso para la recursión
+        Tablero vacio = new Tablero(4096, 4096, 0);
+        assertFalse(vacio.descubrirCasilla(2048, 2048));
+        assertEquals(4096 * 4096, vacio.getUltimasAbiertas());
+        assertTrue(vacio.verificarVictoria());
+
+        // Las celdas abiertas reportadas deben ser distintas y estar descubiertas
+        Tablero normal = new Tablero(50, 50, 100);
+        int f = 0, c = 0;
+        while (normal.getCasilla(f, c).esMina()) c++;
+        normal.descubrirCasilla(f, c);
+        int[] abiertas = new int[normal.getUltimasAbiertas()];
+        assertEquals(abiertas.length, normal.copiarUltimasAbiertas(abiertas));
+        Set<Integer> distintas = new HashSet<>();
+        for (int indice : abiertas) {
+            assertTrue(distintas.add(indice));
+            assertTrue(normal.getCasilla(indice / 50, indice % 50).isDescubierta());
+            assertFalse(normal.getCasilla(indice / 50, indice % 50).esMina());
+        }
+    }
+
+    @Test
+    @DisplayName("Los contadores de seguras y banderas deben seguir cada jugada")
+    public void testContadoresIncrementales() throws Exception {
+        assertEquals(90, tablero.getSegurasPorDescubrir());
+        assertEquals(0, tablero.getBanderasColocadas());
+
+        int f = 0, c = 0;
+        while (tablero.getCasilla(f, c).esMina()) c++;
+        tablero.descubrirCasilla(f, c);
+        assertEquals(90 - tablero.getUltimasAbiertas(), tablero.getSegurasPorDescubrir());
+
+        // Contamos a mano para comparar con el contador
+        int ocultas = 0;
+        int primeraOculta = -1;
+        for (int i = 0; i < 100; i++) {
+            Casilla casilla = tablero.getCasilla(i / 10, i % 10);
+            if (!casilla.esMina() && !casilla.isDescubierta()) ocultas++;
+            if (!casilla.isDescubierta() && primeraOculta < 0) primeraOculta = i;
+        }
+        assertEquals(ocultas, tablero.getSegurasPorDescubrir());
+
+        tablero.alternarBandera(primeraOculta / 10, primeraOculta % 10);
+        assertEquals(1, tablero.getBanderasColocadas());
+        assertEquals(9, tablero.getMinasRestantes());
+
+        // Los contadores se restauran al cargar una partida
+        Juego juego = new Juego();
+        juego.getTablero().alternarBandera(0, 0);
+        String archivoTest = "test_junit_contadores.dat";
+        juego.guardarJuego(archivoTest);
+        Juego cargado = new Juego();
+        cargado.cargarJuego(archivoTest);
+        new File(archivoTest).delete();
+        assertEquals(1, cargado.getTablero().getBanderasColocadas());
+        assertEquals(90, cargado.getTablero().getSegurasPorDescubrir());
+    }
+
+    @Test
+    @DisplayName("La colocación de minas debe ser exacta, reproducible y respetar la zona segura")
+    public void testColocacionDeMinas() {
+        // Densidades baja, media y casi total (recorren los tres caminos del colocador)
+        for (int minas : new int[]{5, 200, 1_590, 1_599}) {
+            Tablero t = new Tablero(40, 40, minas, new SplittableRandom(minas));
+            int contador = 0;
+            for (int i = 0; i < 40; i++) {
+                for (int j = 0; j < 40; j++) {
+                    if (t.getCasilla(i, j).esMina()) contador++;
+                }
+            }
+            assertEquals(minas, contador);
+        }
+
+        // Misma semilla, mismo tablero
+        Tablero a = new Tablero(30, 30, 150, new SplittableRandom(7));
+        Tablero b = new Tablero(30, 30, 150, new SplittableRandom(7));
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 30; j++) {
+                assertEquals(a.getCasilla(i, j).esMina(), b.getCasilla(i, j).esMina());
+            }
+        }
+
+        // Primer clic seguro: la casilla y sus vecinas no tienen minas, aun con 90% de densidad
+        Tablero seguro = new Tablero(20, 20, 360, new SplittableRandom(3), 10, 10);
+        for (int i = 9; i <= 11; i++) {
+            for (int j = 9; j <= 11; j++) {
+                assertFalse(seguro.getCasilla(i, j).esMina());
+            }
+        }
+        assertEquals(0, seguro.getCasilla(10, 10).getMinasAlrededor());
+    }
+
+    @Test
+    @DisplayName("Los números deben coincidir con un conteo directo, también tras mover minas")
+    public void testCalculoDeNumeros() throws Exception {
+        Tablero t = new Tablero(23, 31, 180, new SplittableRandom(11));
+        verificarNumeros(t);
+
+        // Movemos minas y comprobamos que la actualización incremental sea exacta
+        SplittableRandom random = new SplittableRandom(5);
+        for (int movimientos = 0; movimientos < 50; movimientos++) {
+            int origen, destino;
+            do { origen = random.nextInt(23 * 31); } while (!t.getCasilla(origen / 31, origen % 31).esMina());
+            do { destino = random.nextInt(23 * 31); } while (t.getCasilla(destino / 31, destino % 31).esMina());
+            t.moverMina(origen / 31, origen % 31, destino / 31, destino % 31);
+        }
+        verificarNumeros(t);
+
+        // El primer clic sobre una mina la reubica y deja la casilla segura
+        int mina = 0;
+        while (!t.getCasilla(mina / 31, mina % 31).esMina()) mina++;
+        assertTrue(t.asegurarCasilla(mina / 31, mina % 31));
+        assertFalse(t.getCasilla(mina / 31, mina % 31).esMina());
+        verificarNumeros(t);
+    }
+
+    private void verificarNumeros(Tablero t) {
+        for (int i = 0; i < t.getFilas(); i++) {
+            for (int j = 0; j < t.getColumnas(); j++) {
+                int esperado = 0;
+                for (int f = i - 1; f <= i + 1; f++) {
+                    for (int c = j - 1; c <= j + 1; c++) {
+                        if ((f != i || c != j) && f >= 0 && c >= 0 && f < t.getFilas() && c < t.getColumnas()
+                                && t.getCasilla(f, c).esMina()) esperado++;
+                    }
+                }
+                assertEquals(esperado, t.getCasilla(i, j).getMinasAlrededor(), "Número incorrecto en " + i + "," + j);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("El formato binario debe conservar el tablero y ocupar unos 3 bits por casilla")
+    public void testFormatoBinario() throws Exception {
+        Juego juego = new Juego(120, 80, 900);
+        Tablero original = juego.getTablero();
+        int f = 0, c = 0;
+        while (original.getCasilla(f, c).esMina()) c++;
+        original.descubrirCasilla(f, c);
+        original.alternarBandera(119, 79);
+
+        String archivoTest = "test_junit_binario.dat";
+        juego.guardarJuego(archivoTest);
+        long tamano = new File(archivoTest).length();
+        assertEquals(20 + 3 * (120 * 80 / 8), tamano);
+
+        Juego cargado = new Juego();
+        cargado.cargarJuego(archivoTest);
+        new File(archivoTest).delete();
+
+        Tablero copia = cargado.getTablero();
+        assertEquals(120, copia.getFilas());
+        assertEquals(80, copia.getColumnas());
+        assertEquals(original.getSegurasPorDescubrir(), copia.getSegurasPorDescubrir());
+        for (int i = 0; i < 120; i++) {
+            for (int j = 0; j < 80; j++) {
+                Casilla a = original.getCasilla(i, j);
+                Casilla b = copia.getCasilla(i, j);
+                assertEquals(a.esMina(), b.esMina());
+                assertEquals(a.isDescubierta(), b.isDescubierta());
+                assertEquals(a.isTieneBandera(), b.isTieneBandera());
+                assertEquals(a.getMinasAlrededor(), b.getMinasAlrededor());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Debe migrar partidas guardadas con la serialización de Java")
+    public void testMigracionPartidaAntigua() throws Exception {
+        // buscaminas.dat de la raíz del proyecto fue guardado por la versión con ObjectOutputStream
+        File antiguo = new File("buscaminas.dat");
+        Assumptions.assumeTrue(antiguo.exists(), "Se ejecuta desde la raíz del proyecto");
+
+        Juego juego = new Juego();
+        juego.cargarJuego(antiguo.getPath());
+        Tablero t = juego.getTablero();
+        assertEquals(10, t.getFilas());
+        assertEquals(10, t.getColumnas());
+        int minas = 0;
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                if (t.getCasilla(i, j).esMina()) minas++;
+            }
+        }
+        assertEquals(10, minas);
+
+        // Una casilla sin objeto (archivo truncado o editado a mano) es un IOException, no un NPE
+        ec.edu.ups.buscaminas.modelo.legado.Tablero legado;
+        try (InputStream entrada = Files.newInputStream(antiguo.toPath())) {
+            legado = LectorLegado.leer(entrada);
+        }
+        legado.getCasillas()[3][4] = null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(legado);
+        }
+        String archivo = "test_junit_antiguo.dat";
+        try {
+            Files.write(Path.of(archivo), comoClasesOriginales(bytes.toByteArray()));
+            IOException error = assertThrows(IOException.class, () -> juego.cargarJuego(archivo));
+            assertEquals("Partida antigua dañada.", error.getMessage());
+
+            // Un arreglo más largo que cualquier tablero antiguo se rechaza antes de reservarlo
+            bytes.reset();
+            try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+                salida.writeObject(new ec.edu.ups.buscaminas.modelo.legado.Casilla[1_000_000]);
+            }
+            Files.write(Path.of(archivo), comoClasesOriginales(bytes.toByteArray()));
+            error = assertThrows(InvalidClassException.class, () -> juego.cargarJuego(archivo));
+            assertTrue(error.getMessage().contains("REJECTED"), error.getMessage());
+        } finally {
+            new File(archivo).delete();
+        }
+    }
+
+    /**
+     * Renombra las réplicas del paquete legado a las clases originales en un flujo serializado:
+     * cada nombre es un UTF con su largo (2 bytes) delante, opcionalmente con prefijo "[L" o "[[L".
+     */
+    private static byte[] comoClasesOriginales(byte[] datos) {
+        byte[] buscado = "ec.edu.ups.buscaminas.modelo.legado.".getBytes(StandardCharsets.US_ASCII);
+        int quitar = "legado.".length();
+        int posicion;
+        while ((posicion = indiceDe(datos, buscado)) >= 0) {
+            int inicio = posicion;
+            while (datos[inicio - 1] == '[' || datos[inicio - 1] == 'L') inicio--;
+            int largo = ((datos[inicio - 2] & 0xFF) << 8 | (datos[inicio - 1] & 0xFF)) - quitar;
+            datos[inicio - 2] = (byte) (largo >> 8);
+            datos[inicio - 1] = (byte) largo;
+            int corte = posicion + buscado.length - quitar;
+            byte[] nuevos = new byte[datos.length - quitar];
+            System.arraycopy(datos, 0, nuevos, 0, corte);
+            System.arraycopy(datos, corte + quitar, nuevos, corte, datos.length - corte - quitar);
+            datos = nuevos;
+        }
+        return datos;
+    }
+
+    private static int indiceDe(byte[] datos, byte[] buscado) {
+        for (int i = 0; i + buscado.length <= datos.length; i++) {
+            int k = 0;
+            while (k < buscado.length && datos[i + k] == buscado[k]) k++;
+            if (k == buscado.length) return i;
+        }
+        return -1;
+    }
+
+    @Test
+    @DisplayName("Un tablero proyectado debe persistir sus jugadas en el archivo")
+    public void testTableroProyectado() throws Exception {
+        Path archivo = Path.of("test_junit_mapeado.bin");
+        Tablero t = Tablero.crearMapeado(archivo, 200, 300, 5_000, new SplittableRandom(9));
+        assertTrue(t.isMapeado());
+        int f = 0, c = 0;
+        while (t.getCasilla(f, c).esMina()) c++;
+        t.descubrirCasilla(f, c);
+        t.alternarBandera(199, 299);
+        int seguras = t.getSegurasPorDescubrir();
+
+        // Guardar sobre el mismo archivo solo sincroniza
+        Juego juego = new Juego(t);
+        juego.guardarJuego(archivo.toString());
+        juego.cerrar();
+
+        Juego reabierto = new Juego();
+        reabierto.cargarJuego(archivo.toString());
+        Tablero copia = reabierto.getTablero();
+        assertTrue(copia.isMapeado());
+        assertEquals(seguras, copia.getSegurasPorDescubrir());
+        assertEquals(1, copia.getBanderasColocadas());
+        assertTrue(copia.getCasilla(f, c).isDescubierta());
+        assertTrue(copia.getCasilla(199, 299).isTieneBandera());
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 300; j++) {
+                assertEquals(t.getCasilla(i, j).esMina(), copia.getCasilla(i, j).esMina());
+            }
+        }
+
+        // Cargar otra partida cierra el tablero proyectado: la cabecera queda sincronizada
+        String otra = "test_junit_otra.dat";
+        new Juego(5, 5, 3, 1L).guardarJuego(otra);
+        copia.alternarBandera(0, 299);
+        reabierto.cargarJuego(otra);
+        assertEquals(1, ByteBuffer.wrap(Files.readAllBytes(archivo), 0, 8).getShort(6));
+
+        // Seguir jugando sobre el tablero cerrado vuelve a marcar el archivo "en uso"
+        copia.alternarBandera(1, 299);
+        assertEquals(0, ByteBuffer.wrap(Files.readAllBytes(archivo), 0, 8).getShort(6));
+        assertEquals(3, Tablero.abrirMapeado(archivo).getBanderasColocadas());
+        Files.deleteIfExists(archivo);
+        Files.deleteIfExists(Path.of(otra));
+    }
+
+    @Test
+    @DisplayName("Un tablero proyectado puede ser más grande que el heap")
+    public void testTableroProyectadoMayorQueHeap(@TempDir Path directorio) throws Exception {
+        // Crea un archivo de unos 2 GB: solo se ejecuta con -Dbuscaminas.pruebasGrandes=true
+        Assumptions.assumeTrue(Boolean.getBoolean("buscaminas.pruebasGrandes"), "Pruebas grandes desactivadas");
+        int lado = 46_340;
+        long celdas = (long) lado * lado;
+        assertTrue(celdas <= Tablero.MAX_CELDAS_MAPEADO);
+        Assumptions.assumeTrue(celdas > Runtime.getRuntime().maxMemory(), "El heap de la prueba supera el tablero");
+        Path archivo = directorio.resolve("mapeado_grande.bin");
+        Tablero t = Tablero.crearMapeado(archivo, lado, lado, 1_000, new SplittableRandom(5));
+        MotorJuego motor = new MotorJuego(new Juego(t));
+        DeltaJugadas delta = new DeltaJugadas();
+        int f = lado - 1, c = lado - 1;
+        assertTrue(t.indiceDe(f, c) >= MotorJuego.MAX_INDICE_LOTE);
+        assertThrows(IllegalArgumentException.class, () -> motor.jugada(MotorJuego.DESCUBRIR, f, c));
+
+        // Con banderas alrededor de la esquina, descubrirla abre una sola celda
+        assertEquals(ResultadoJugada.OK, motor.aplicar(MotorJuego.BANDERA, f - 1, c, delta));
+        assertEquals(ResultadoJugada.OK, motor.aplicar(MotorJuego.BANDERA, f, c - 1, delta));
+        assertEquals(ResultadoJugada.OK, motor.aplicar(MotorJuego.BANDERA, f - 1, c - 1, delta));
+        assertEquals(ResultadoJugada.OK, motor.aplicar(MotorJuego.DESCUBRIR, f, c, delta));
+        assertEquals(ResultadoJugada.FUERA_DE_RANGO, motor.aplicar(MotorJuego.DESCUBRIR, lado, 0, delta));
+        assertEquals(celdas - 1_000 - 1, t.getSegurasPorDescubrir());
+        t.cerrar();
+
+        Tablero copia = Tablero.abrirMapeado(archivo);
+        assertTrue(copia.getCasilla(f, c).isDescubierta());
+        assertTrue(copia.getCasilla(f - 1, c - 1).isTieneBandera());
+        assertEquals(3, copia.getBanderasColocadas());
+        assertEquals(celdas - 1_000 - 1, copia.getSegurasPorDescubrir());
+        copia.cerrar();
+    }
+
+    @Test
+    @DisplayName("La bitácora debe recuperar la partida y reproducir cualquier prefijo de jugadas")
+    public void testBitacoraDeJugadas() throws Exception {
+        String archivo = "test_junit.bitacora";
+        Juego juego = new Juego(30, 30, 60, 1234L);
+        juego.activarBitacora(archivo, 1);
+        Tablero t = juego.getTablero();
+
+        // Jugadas: banderas en la primera fila y descubrir casillas seguras de la diagonal
+        List<String> estados = new ArrayList<>();
+        estados.add(estado(t));
+        for (int i = 0; i < 30 && !juego.isJuegoTerminado(); i++) {
+            juego.alternarBandera(0, i);
+            estados.add(estado(t));
+            if (!t.getCasilla(i, 29 - i).esMina() && !t.getCasilla(i, 29 - i).isDescubierta()
+                    && !t.getCasilla(i, 29 - i).isTieneBandera()) {
+                juego.descubrirCasilla(i, 29 - i);
+                estados.add(estado(t));
+            }
+        }
+
+        // Sin cerrar (como tras una caída): la recuperación reproduce todas las jugadas
+        Juego recuperado = Juego.recuperar(archivo, 1);
+        assertEquals(estados.get(estados.size() - 1), estado(recuperado.getTablero()));
+        assertEquals(Long.valueOf(1234L), recuperado.getSemilla());
+        assertEquals(t.getSegurasPorDescubrir(), recuperado.getTablero().getSegurasPorDescubrir());
+
+        // Cualquier prefijo de la bitácora reproduce el estado de ese momento
+        for (int k : new int[]{0, 1, 5, estados.size() / 2}) {
+            assertEquals(estados.get(k), estado(Juego.reproducir(archivo, k).getTablero()), "jugada " + k);
+        }
+        juego.cerrar();
+        recuperado.cerrar();
+        Files.deleteIfExists(Path.of(archivo));
+        Files.deleteIfExists(Path.of(archivo + ".base"));
+        Files.deleteIfExists(Path.of(archivo + ".snap"));
+    }
+
+    // Minas, descubiertas y banderas de todo el tablero, para comparar estados
+    private String estado(Tablero t) {
+        StringBuilder sb = new StringBuilder();
+        for (int f = 0; f < t.getFilas(); f++) {
+            for (int c = 0; c < t.getColumnas(); c++) {
+                Casilla casilla = t.getCasilla(f, c);
+                sb.append(casilla.esMina() ? 'M' : '.')
+                  .append(casilla.isDescubierta() ? 'D' : '.')
+                  .append(casilla.isTieneBandera() ? 'B' : '.');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("El renderizador debe dibujar el mismo cuadro que los símbolos de cada casilla")
+    public void testRenderizadorTablero() throws Exception {
+        Tablero t = new Tablero(30, 12, 40, new SplittableRandom(5), 15, 6);
+        t.descubrirCasilla(15, 6);
+        t.alternarBandera(0, 0);
+
+        // El cuadro debe ser idéntico al que arma cada casilla con obtenerSimbolo
+        String salto = System.lineSeparator();
+        for (boolean mostrarMinas : new boolean[]{false, true}) {
+            StringBuilder esperado = new StringBuilder(salto + "************** JUEGO DE BUSCAMINAS **************" + salto);
+            esperado.append("    ");
+            for (int j = 1; j <= 12; j++) esperado.append(String.format("%2d ", j));
+            esperado.append(salto);
+            for (int i = 0; i < 30; i++) {
+                esperado.append(String.format("%2s  ", Coordenadas.etiquetaFila(i)));
+                for (int j = 0; j < 12; j++) {
+                    esperado.append(String.format("%2s ", t.getCasilla(i, j).obtenerSimbolo(mostrarMinas)));
+                }
+                esperado.append(salto);
+            }
+            esperado.append("*************************************************").append(salto);
+
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            new RenderizadorTablero(salida).dibujar(t, mostrarMinas);
+            assertEquals(esperado.toString(), salida.toString());
+        }
+
+        // Modo diferencial: tras el primer cuadro solo se reescribe la fila que cambió
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        RenderizadorTablero renderizador = new RenderizadorTablero(salida);
+        renderizador.setDiferencial(true);
+        renderizador.dibujar(t, false);
+        salida.reset();
+        renderizador.dibujar(t, false);
+        assertFalse(salida.toString().contains("-"), "Sin cambios no se redibuja ninguna fila");
+        salida.reset();
+        t.alternarBandera(29, 11);
+        renderizador.dibujar(t, false);
+        String parcial = salida.toString();
+        assertTrue(parcial.contains("\033[33;1H"), "Se posiciona en la fila AD (línea 4 + 29)");
+        assertTrue(parcial.contains("AD  "));
+        assertFalse(parcial.contains("AC  "));
+    }
+
+    @Test
+    @DisplayName("La ventana y el minimapa deben recortarse a los bordes de un tablero grande")
+    public void testVentanaYMinimapa() throws Exception {
+        Tablero t = new Tablero(500, 400, 0, new SplittableRandom(1));
+        t.alternarBandera(499, 399);
+        t.alternarBandera(0, 0);
+        t.descubrirCasilla(250, 200); // Sin minas: se abre todo menos las banderas
+
+        // La ventana se recorta a los bordes del tablero
+        Ventana ventana = new Ventana(20, 30);
+        ventana.ajustar(t.getFilas(), t.getColumnas());
+        ventana.centrar(499, 399);
+        assertEquals(480, ventana.getFila());
+        assertEquals(370, ventana.getColumna());
+        ventana.desplazar(-1000, 5);
+        assertEquals(0, ventana.getFila());
+        assertEquals(370, ventana.getColumna());
+        assertFalse(ventana.cubreTodo());
+
+        // Solo se dibuja la porción visible, con las etiquetas y columnas reales
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        new RenderizadorTablero(salida).dibujar(t, false, 480, 370, 20, 30);
+        String[] lineas = salida.toString().split(System.lineSeparator());
+        assertEquals(2 + 1 + 20 + 1, lineas.length); // salto, título, columnas, filas, pie
+        assertTrue(lineas[2].trim().startsWith("371 "));
+        assertTrue(lineas[2].trim().endsWith("400"));
+        assertTrue(lineas[3].startsWith("RM  "), "Fila 481 = RM");
+        assertTrue(lineas[22].endsWith("X "), "Bandera en la última celda visible");
+
+        // Conteo por bloques para el minimapa
+        int[] descubiertas = new int[4];
+        int[] banderas = new int[4];
+        t.contarPorBloques(250, 200, descubiertas, banderas);
+        assertArrayEquals(new int[]{250 * 200 - 1, 250 * 200, 250 * 200, 250 * 200 - 1}, descubiertas);
+        assertArrayEquals(new int[]{1, 0, 0, 1}, banderas);
+    }
+
+    @Test
+    @DisplayName("El motor debe aplicar lotes de jugadas sin excepciones y devolver un código por jugada")
+    public void testMotorJuegoPorLotes() throws Exception {
+        Juego juego = new Juego(40, 40, 200, 77L);
+        Tablero t = juego.getTablero();
+        MotorJuego motor = new MotorJuego(juego);
+
+        // Una mina conocida y una casilla segura con número, para bandera y acorde
+        int mina = -1, numero = -1;
+        for (int i = 0; i < 1600 && (mina < 0 || numero < 0); i++) {
+            Casilla casilla = t.getCasilla(i / 40, i % 40);
+            if (casilla.esMina() && mina < 0) mina = i;
+            if (!casilla.esMina() && casilla.getMinasAlrededor() > 0 && numero < 0) numero = i;
+        }
+
+        int[] lote = {
+            MotorJuego.jugada(MotorJuego.DESCUBRIR, numero),
+            MotorJuego.jugada(MotorJuego.DESCUBRIR, numero),   // repetida
+            motor.jugada(MotorJuego.DESCUBRIR, 40, 0),         // fuera del tablero
+            MotorJuego.jugada(MotorJuego.BANDERA, mina),
+            MotorJuego.jugada(MotorJuego.DESCUBRIR, mina),     // con bandera: no explota
+            MotorJuego.jugada((byte) 5, mina),                 // tipo desconocido
+        };
+        DeltaJugadas delta = motor.aplicar(lote, 0, lote.length, new DeltaJugadas());
+        assertEquals(6, delta.getJugadas());
+        assertEquals(ResultadoJugada.OK, delta.getResultado(0));
+        assertEquals(ResultadoJugada.YA_DESCUBIERTA, delta.getResultado(1));
+        assertEquals(ResultadoJugada.FUERA_DE_RANGO, delta.getResultado(2));
+        assertEquals(ResultadoJugada.OK, delta.getResultado(3));
+        assertEquals(ResultadoJugada.CON_BANDERA, delta.getResultado(4));
+        assertEquals(ResultadoJugada.JUGADA_INVALIDA, delta.getResultado(5));
+        // El número abre solo su celda; la bandera cambia la suya
+        assertEquals(numero, delta.getCelda(delta.getInicioCeldas(0)));
+        assertEquals(1, delta.getFinCeldas(0) - delta.getInicioCeldas(0));
+        assertEquals(mina, delta.getCelda(delta.getInicioCeldas(3)));
+        assertEquals(2, delta.getCantidadCeldas());
+        assertEquals(1, delta.getBanderasColocadas());
+        assertEquals(t.getSegurasPorDescubrir(), delta.getSegurasPorDescubrir());
+        assertFalse(delta.isExploto());
+
+        // Acorde: con todas las banderas correctas alrededor del número abre las demás vecinas
+        int f = numero / 40, c = numero % 40;
+        for (int i = Math.max(0, f - 1); i <= Math.min(39, f + 1); i++) {
+            for (int j = Math.max(0, c - 1); j <= Math.min(39, c + 1); j++) {
+                if (t.getCasilla(i, j).esMina() && !t.getCasilla(i, j).isTieneBandera()) t.alternarBandera(i, j);
+            }
+        }
+        assertEquals(ResultadoJugada.OK, motor.aplicar(MotorJuego.ACORDE, f, c, delta));
+        for (int i = 0; i < delta.getCantidadCeldas(); i++) {
+            int celda = delta.getCelda(i);
+            assertTrue(t.getCasilla(celda / 40, celda % 40).isDescubierta());
+        }
+        for (int i = Math.max(0, f - 1); i <= Math.min(39, f + 1); i++) {
+            for (int j = Math.max(0, c - 1); j <= Math.min(39, c + 1); j++) {
+                assertTrue(t.getCasilla(i, j).esMina() || t.getCasilla(i, j).isDescubierta());
+            }
+        }
+
+        // Tras pisar una mina el resto del lote no se aplica
+        t.alternarBandera(mina / 40, mina % 40);
+        int[] perdedor = {MotorJuego.jugada(MotorJuego.DESCUBRIR, mina), MotorJuego.jugada(MotorJuego.BANDERA, 0)};
+        motor.aplicar(perdedor, 0, 2, delta);
+        assertEquals(ResultadoJugada.MINA, delta.getResultado(0));
+        assertEquals(ResultadoJugada.TERMINADO, delta.getResultado(1));
+        assertTrue(delta.isExploto());
+        assertTrue(juego.isJuegoTerminado());
+    }
+
+    @Test
+    @DisplayName("La simulación debe dar los mismos resultados con la misma semilla y cualquier cantidad de hilos")
+    public void testSimulacionReproducible() {
+        SimuladorPartidas simulador = new SimuladorPartidas(9, 9, 3, EstrategiaAleatoria::new);
+        ResultadoSimulacion unHilo = simulador.ejecutar(2024L, 300, 1);
+        ResultadoSimulacion variosHilos = simulador.ejecutar(2024L, 300, 4);
+
+        // La misma semilla da los mismos resultados sin importar los hilos
+        assertEquals(300, unHilo.getPartidas());
+        assertEquals(unHilo.getGanadas(), variosHilos.getGanadas());
+        assertEquals(unHilo.getJugadas(), variosHilos.getJugadas());
+        assertTrue(unHilo.getJugadas() >= 300, "Al menos una jugada por partida");
+        assertTrue(unHilo.getGanadas() > 0 && unHilo.getGanadas() < 300);
+
+        ResultadoSimulacion otraSemilla = simulador.ejecutar(7L, 300, 4);
+        assertNotEquals(unHilo.getJugadas(), otraSemilla.getJugadas());
+    }
+
+    @Test
+    @DisplayName("El solver debe jugar solo jugadas seguras y conservar las que no usó")
+    public void testSolucionador() throws Exception {
+        int ganadasSinAdivinar = 0;
+        int ganadasAdivinando = 0;
+        for (long semilla = 0; semilla < 200; semilla++) {
+            // Solo jugadas seguras: nunca debe pisar una mina
+            Juego juego = new Juego(new Tablero(16, 16, 40, new SplittableRandom(semilla), 8, 8));
+            MotorJuego motor = new MotorJuego(juego);
+            Solucionador solucionador = new Solucionador(juego.getTablero());
+            Pista apertura = solucionador.pista();
+            assertEquals(juego.getTablero().indiceDe(8, 8), apertura.getIndice(), "Sin información se abre el centro");
+
+            DeltaJugadas delta = new DeltaJugadas();
+            motor.aplicar(new int[]{apertura.comoJugada()}, 0, 1, delta);
+            solucionador.actualizar(delta);
+            solucionador.resolver(motor, false, Integer.MAX_VALUE);
+            assertFalse(juego.isJuegoTerminado(), "Una jugada segura pisó una mina (semilla " + semilla + ")");
+            if (juego.getTablero().verificarVictoria()) ganadasSinAdivinar++;
+
+            // Las pistas seguras que quedan son correctas
+            Pista pista = solucionador.pista();
+            if (pista != null && pista.isSegura()) {
+                Casilla casilla = juego.getTablero().getCasilla(pista.getIndice() / 16, pista.getIndice() % 16);
+                assertEquals(pista.getTipo() == MotorJuego.BANDERA, casilla.esMina());
+            }
+
+            // De a una jugada por llamada se llega al mismo tablero: las seguras no usadas se conservan
+            Juego pasoAPaso = new Juego(new Tablero(16, 16, 40, new SplittableRandom(semilla), 8, 8));
+            MotorJuego motorPasos = new MotorJuego(pasoAPaso);
+            Solucionador porPasos = new Solucionador(pasoAPaso.getTablero());
+            motorPasos.aplicar(new int[]{porPasos.pista().comoJugada()}, 0, 1, delta);
+            porPasos.actualizar(delta);
+            boolean primera = true;
+            while (porPasos.resolver(motorPasos, false, 1) == 1) {
+                if (primera && !pasoAPaso.getTablero().verificarVictoria()) {
+                    assertTrue(porPasos.pista().isSegura(), "Semilla " + semilla);
+                }
+                primera = false;
+            }
+            assertEquals(estado(juego.getTablero()), estado(pasoAPaso.getTablero()), "Semilla " + semilla);
+
+            // Adivinando cuando hace falta, en un tablero principiante se gana casi siempre
+            Juego principiante = new Juego(new Tablero(9, 9, 10, new SplittableRandom(semilla), 4, 4));
+            Solucionador otro = new Solucionador(principiante.getTablero());
+            otro.resolver(new MotorJuego(principiante), true, 1000);
+            if (principiante.getTablero().verificarVictoria()) ganadasAdivinando++;
+        }
+        assertTrue(ganadasSinAdivinar > 0);
+        assertTrue(ganadasAdivinando > 140, "Ganadas: " + ganadasAdivinando);
+    }
+
+    @Test
+    @DisplayName("El generador debe crear tableros que se ganan sin adivinar")
+    public void testGeneradorSinAdivinar() throws Exception {
+        GeneradorSinAdivinar generador = new GeneradorSinAdivinar(16, 16, 40, 8, 8);
+        RecetaTablero unHilo = generador.generar(99L, 1);
+        RecetaTablero variosHilos = generador.generar(99L, 4);
+        // La misma semilla da el mismo tablero sin importar los hilos
+        assertEquals(unHilo.getSemilla(), variosHilos.getSemilla());
+        assertEquals(estado(unHilo.construir()), estado(variosHilos.construir()));
+
+        for (long semilla = 0; semilla < 20; semilla++) {
+            Tablero generado = generador.generar(semilla, 1).construir();
+            int minas = 0;
+            for (int i = 0; i < 256; i++) if (generado.tieneMina(i)) minas++;
+            assertEquals(40, minas);
+
+            // Desde el primer clic el solver gana solo con jugadas seguras
+            Juego juego = new Juego(generado);
+            MotorJuego motor = new MotorJuego(juego);
+            DeltaJugadas delta = new DeltaJugadas();
+            Solucionador solucionador = new Solucionador(generado);
+            assertEquals(ResultadoJugada.OK, motor.aplicar(MotorJuego.DESCUBRIR, 8, 8, delta));
+            solucionador.actualizar(delta);
+            solucionador.resolver(motor, false, Integer.MAX_VALUE);
+            assertTrue(generado.verificarVictoria(), "Tablero que requiere adivinar (semilla " + semilla + ")");
+        }
+
+        // Caché: misma clave, mismo tablero (pero copias independientes); reserva: se entrega una vez
+        ReservaTableros reserva = new ReservaTableros(8);
+        Tablero primero = reserva.obtener(9, 9, 10, 4, 4, 5L, 1);
+        Tablero segundo = reserva.obtener(9, 9, 10, 4, 4, 5L, 1);
+        assertNotSame(primero, segundo);
+        assertEquals(estado(primero), estado(segundo));
+        reserva.precalentar(9, 9, 10, 4, 4, 3, 1L, 2);
+        assertEquals(3, reserva.disponibles(9, 9, 10, 4, 4));
+        for (int i = 0; i < 3; i++) assertNotNull(reserva.tomar(9, 9, 10, 4, 4));
+        assertNull(reserva.tomar(9, 9, 10, 4, 4));
+    }
+
+    @Test
+    @DisplayName("El acorde debe abrir las vecinas en una sola pasada")
+    public void testAcordeEnUnaPasada() throws Exception {
+        int acordes = 0;
+        for (long semilla = 0; semilla < 50; semilla++) {
+            Tablero acorde = new Tablero(12, 12, 20, new SplittableRandom(semilla), 6, 6);
+            Tablero manual = new Tablero(12, 12, 20, new SplittableRandom(semilla), 6, 6);
+            acorde.descubrirCasilla(6, 6);
+            manual.descubrirCasilla(6, 6);
+
+            for (int i = 0; i < 144; i++) {
+                if (!acorde.estaDescubierta(i) || acorde.getMinasAlrededor(i) == 0) continue;
+                int f = i / 12, c = i % 12;
+                boolean oculta = false;
+                for (int vf = Math.max(0, f - 1); vf <= Math.min(11, f + 1); vf++) {
+                    for (int vc = Math.max(0, c - 1); vc <= Math.min(11, c + 1); vc++) {
+                        int v = vf * 12 + vc;
+                        if (acorde.tieneMina(v) && !acorde.tieneBandera(v)) {
+                            acorde.alternarBandera(vf, vc);
+                            manual.alternarBandera(vf, vc);
+                        }
+                        oculta |= !acorde.estaDescubierta(v) && !acorde.tieneMina(v);
+                    }
+                }
+                if (!oculta) continue;
+
+                // Un acorde equivale a descubrir una por una las vecinas ocultas sin bandera
+                int segurasAntes = acorde.getSegurasPorDescubrir();
+                assertFalse(acorde.acordeCasilla(f, c));
+                for (int vf = Math.max(0, f - 1); vf <= Math.min(11, f + 1); vf++) {
+                    for (int vc = Math.max(0, c - 1); vc <= Math.min(11, c + 1); vc++) {
+                        int v = vf * 12 + vc;
+                        if (!manual.estaDescubierta(v) && !manual.tieneBandera(v)) manual.descubrirCasilla(vf, vc);
+                    }
+                }
+                assertEquals(estado(manual), estado(acorde));
+                assertEquals(manual.getSegurasPorDescubrir(), acorde.getSegurasPorDescubrir());
+                assertEquals(segurasAntes - acorde.getSegurasPorDescubrir(), acorde.getUltimasAbiertas());
+                acordes++;
+            }
+        }
+        assertTrue(acordes > 0);
+
+        // Sin las banderas no hace nada; con banderas mal puestas pisa una mina
+        Tablero tablero = new Tablero(12, 12, 30, new SplittableRandom(3), 6, 6);
+        tablero.descubrirCasilla(6, 6);
+        boolean probado = false;
+        for (int i = 0; i < 144 && !probado; i++) {
+            if (!tablero.estaDescubierta(i) || tablero.getMinasAlrededor(i) == 0) continue;
+            int f = i / 12, c = i % 12;
+            int[] seguras = new int[8];
+            int cantidad = 0;
+            for (int vf = Math.max(0, f - 1); vf <= Math.min(11, f + 1); vf++) {
+                for (int vc = Math.max(0, c - 1); vc <= Math.min(11, c + 1); vc++) {
+                    int v = vf * 12 + vc;
+                    if (!tablero.estaDescubierta(v) && !tablero.tieneMina(v)) seguras[cantidad++] = v;
+                }
+            }
+            if (cantidad <= tablero.getMinasAlrededor(i)) continue;
+            assertFalse(tablero.acordeCasilla(f, c));
+            assertEquals(0, tablero.getUltimasAbiertas());
+            for (int k = 0; k < tablero.getMinasAlrededor(i); k++) tablero.alternarBandera(seguras[k] / 12, seguras[k] % 12);
+            assertTrue(tablero.acordeCasilla(f, c));
+            probado = true;
+        }
+        assertTrue(probado);
+        assertThrows(CoordenadaInvalidaException.class, () -> tablero.acordeCasilla(12, 0));
+    }
+
+    @Test
+    @DisplayName("Las jugadas inválidas deben resolverse sin el costo de una excepción")
+    public void testDescubrirSinExcepciones() throws Exception {
+        Tablero t = new Tablero(10, 10, 10, new SplittableRandom(8), 5, 5);
+        int mina = -1;
+        for (int i = 0; i < 100 && mina < 0; i++) if (t.tieneMina(i)) mina = i;
+
+        assertEquals(ResultadoJugada.FUERA_DE_RANGO, t.intentarDescubrir(10, 0));
+        assertEquals(ResultadoJugada.FUERA_DE_RANGO, t.intentarDescubrir(0, -1));
+        assertEquals(ResultadoJugada.OK, t.intentarDescubrir(5, 5));
+        assertEquals(ResultadoJugada.YA_DESCUBIERTA, t.intentarDescubrir(5, 5));
+        t.alternarBandera(mina / 10, mina % 10);
+        assertEquals(ResultadoJugada.CON_BANDERA, t.intentarDescubrir(mina / 10, mina % 10));
+        t.alternarBandera(mina / 10, mina % 10);
+        assertEquals(ResultadoJugada.MINA, t.intentarDescubrir(mina / 10, mina % 10));
+
+        // La API con excepciones se mantiene, pero las excepciones no llevan traza de pila
+        CasillaYaDescubiertaException repetida =
+                assertThrows(CasillaYaDescubiertaException.class, () -> t.descubrirCasilla(5, 5));
+        CoordenadaInvalidaException fuera =
+                assertThrows(CoordenadaInvalidaException.class, () -> t.descubrirCasilla(-1, 0));
+        assertEquals(0, repetida.getStackTrace().length);
+        assertEquals(0, fuera.getStackTrace().length);
+        assertEquals("Esta casilla ya fue descubierta.", repetida.getMessage());
+    }
+
+    @Test
+    @DisplayName("Deshacer y rehacer deben recorrer los estados de la partida en ambos sentidos")
+    public void testDeshacerRehacer() throws Exception {
+        String derrame = "test_junit.historial";
+        Juego juego = new Juego(20, 20, 40, 31L);
+        // Memoria mínima para que casi todo el historial pase por el archivo
+        juego.activarHistorial(64, derrame);
+        Tablero t = juego.getTablero();
+        MotorJuego motor = new MotorJuego(juego);
+        DeltaJugadas delta = new DeltaJugadas();
+
+        List<String> estados = new ArrayList<>();
+        List<Integer> seguras = new ArrayList<>();
+        estados.add(estado(t));
+        seguras.add(t.getSegurasPorDescubrir());
+        SplittableRandom azar = new SplittableRandom(5);
+        while (!juego.isJuegoTerminado() && !t.verificarVictoria()) {
+            int celda = azar.nextInt(400);
+            byte tipo = azar.nextInt(4) == 0 ? MotorJuego.BANDERA : MotorJuego.DESCUBRIR;
+            if (tipo == MotorJuego.DESCUBRIR && t.tieneMina(celda) && estados.size() < 30) continue;
+            motor.aplicar(new int[]{MotorJuego.jugada(tipo, celda)}, 0, 1, delta);
+            if (delta.getCantidadCeldas() == 0) continue;
+            estados.add(estado(t));
+            seguras.add(t.getSegurasPorDescubrir());
+        }
+        assertTrue(juego.getHistorial().getJugadasEnDisco() > 0);
+
+        // Deshacer hasta el comienzo pasa por todos los estados en orden inverso
+        for (int k = estados.size() - 2; k >= 0; k--) {
+            assertEquals(ResultadoJugada.OK, motor.deshacer(delta));
+            assertEquals(estados.get(k), estado(t), "deshacer hasta " + k);
+            assertEquals((int) seguras.get(k), t.getSegurasPorDescubrir());
+            assertFalse(juego.isJuegoTerminado());
+        }
+        assertEquals(ResultadoJugada.SIN_EFECTO, motor.deshacer(delta));
+
+        // Y rehacer vuelve a recorrerlos hacia adelante
+        for (int k = 1; k < estados.size(); k++) {
+            int resultado = motor.rehacer(delta);
+            assertTrue(resultado == ResultadoJugada.OK || resultado == ResultadoJugada.MINA);
+            assertEquals(estados.get(k), estado(t), "rehacer hasta " + k);
+        }
+        assertEquals(ResultadoJugada.SIN_EFECTO, juego.rehacer());
+
+        // Una jugada nueva descarta lo que quedaba por rehacer
+        juego.deshacer();
+        juego.deshacer();
+        int oculta = 0;
+        while (t.estaDescubierta(oculta) || t.tieneBandera(oculta)) oculta++;
+        juego.alternarBandera(oculta / 20, oculta % 20);
+        assertEquals(ResultadoJugada.SIN_EFECTO, juego.rehacer());
+        juego.cerrar();
+        assertFalse(new File(derrame).exists());
+
+        // Sin archivo de derrame la memoria está acotada: las jugadas más antiguas se pierden
+        Juego acotado = new Juego(20, 20, 0, 1L);
+        acotado.activarHistorial(16, null);
+        for (int c = 0; c < 20; c++) acotado.alternarBandera(0, c);
+        assertTrue(acotado.getHistorial().getEnterosEnMemoria() <= 16);
+        int deshechas = 0;
+        while (acotado.deshacer() == ResultadoJugada.OK) deshechas++;
+        assertEquals(5, deshechas);
+        assertEquals(15, acotado.getTablero().getBanderasColocadas());
+
+        // Con bitácora, deshacer y rehacer son registros: no reescriben el tablero y se reproducen
+        String bitacora = "test_junit_deshacer.bitacora";
+        Path instantanea = Path.of(bitacora + ".snap");
+        Juego registrado = new Juego(20, 20, 40, 31L);
+        registrado.activarHistorial(1 << 16, null);
+        registrado.descubrirCasilla(0, 0);
+        registrado.activarBitacora(bitacora, 1);
+        Tablero tr = registrado.getTablero();
+        int jugadas = 0;
+        for (int celda = 0; celda < 400 && jugadas < 12; celda++) {
+            if (tr.estaDescubierta(celda)) continue;
+            if (tr.tieneMina(celda)) registrado.alternarBandera(celda / 20, celda % 20);
+            else registrado.descubrirCasilla(celda / 20, celda % 20);
+            jugadas++;
+        }
+        for (int i = 0; i < 4; i++) registrado.deshacer();
+        registrado.rehacer();
+        registrado.alternarBandera(19, 19);
+        registrado.deshacer();
+        assertFalse(Files.exists(instantanea));
+        assertEquals(12 + 4 + 1 + 1 + 1, Files.size(Path.of(bitacora)) / 8 - 4);
+        assertEquals(estado(tr), estado(Juego.reproducir(bitacora, Long.MAX_VALUE).getTablero()));
+
+        // Deshacer más allá de la última instantánea: la reproducción parte de la base
+        int libre = 0;
+        while (tr.estaDescubierta(libre)) libre++;
+        while (!Files.exists(instantanea)) registrado.alternarBandera(libre / 20, libre % 20);
+        for (int i = 0; i < 3; i++) registrado.deshacer();
+        registrado.alternarBandera(libre / 20, libre % 20);
+        registrado.deshacer();
+        assertEquals(estado(tr), estado(Juego.reproducir(bitacora, Long.MAX_VALUE).getTablero()));
+
+        // Deshacer la jugada anterior a la bitácora la reinicia desde el tablero actual
+        while (registrado.deshacer() == ResultadoJugada.OK) { }
+        assertFalse(tr.estaDescubierta(0));
+        assertEquals(estado(tr), estado(Juego.reproducir(bitacora, Long.MAX_VALUE).getTablero()));
+        registrado.cerrar();
+        for (String sufijo : new String[]{"", ".base", ".snap"}) Files.deleteIfExists(Path.of(bitacora + sufijo));
+    }
+
+    @Test
+    @DisplayName("El servidor debe atender varias sesiones y guardarlas en disco")
+    public void testServidorSesiones() throws Exception {
+        Path directorio = Files.createTempDirectory("sesiones");
+        // Inactividad 0: cualquier sesión se puede expulsar en cuanto se pida
+        ServidorSesiones servidor = new ServidorSesiones(new InetSocketAddress("localhost", 0), directorio, 0, 2);
+        servidor.iniciar();
+        try (servidor; Socket socket = new Socket("localhost", servidor.getPuerto())) {
+            BufferedReader entrada = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer salida = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+            // Varios comandos en un solo envío: las respuestas llegan en el mismo orden
+            salida.write("NUEVA 9 9 10 7\nB 0 0\nB 0 0\nX\nD 99 0\n");
+            salida.flush();
+            String creada = entrada.readLine();
+            assertTrue(creada.startsWith("OK "));
+            long id = Long.parseLong(creada.substring(3));
+            assertEquals("0 71 1 0:X", entrada.readLine());
+            assertEquals("0 71 1 0:-", entrada.readLine());
+            assertEquals("ERROR Comando desconocido.", entrada.readLine());
+            assertEquals(ResultadoJugada.FUERA_DE_RANGO + " 71 0", entrada.readLine());
+
+            // La misma partida jugada localmente da las mismas celdas (el primer clic nunca es mina)
+            Juego local = new Juego(9, 9, 10, 7L);
+            DeltaJugadas delta = new DeltaJugadas();
+            new MotorJuego(local).aplicar(MotorJuego.DESCUBRIR, 4, 4, delta);
+            salida.write("D 4 4\n");
+            salida.flush();
+            String[] partes = entrada.readLine().split(" ");
+            assertEquals(String.valueOf(ResultadoJugada.OK), partes[0]);
+            assertEquals(delta.getSegurasPorDescubrir(), Integer.parseInt(partes[1]));
+            assertEquals(delta.getCantidadCeldas(), Integer.parseInt(partes[2]));
+
+            salida.write("E\n");
+            salida.flush();
+            String estado = entrada.readLine();
+
+            // Expulsada a disco, sale de memoria y vuelve igual al usarla
+            assertEquals(1, servidor.expulsarInactivas());
+            assertEquals(0, servidor.getSesionesActivas());
+            assertTrue(Files.exists(directorio.resolve("sesion-" + id + ".dat")));
+            salida.write("USAR " + id + "\nE\nUSAR 999\nSALIR\nE\n");
+            salida.flush();
+            assertEquals("OK " + id, entrada.readLine());
+            assertEquals(estado, entrada.readLine());
+            assertEquals("ERROR La sesión no existe.", entrada.readLine());
+            assertEquals("ADIOS", entrada.readLine());
+            assertNull(entrada.readLine());
+            assertEquals(1, servidor.getSesionesActivas());
+
+            try (Socket otro = new Socket("localhost", servidor.getPuerto())) {
+                entrada = new BufferedReader(
+                        new InputStreamReader(otro.getInputStream(), StandardCharsets.UTF_8));
+                salida = new OutputStreamWriter(otro.getOutputStream(), StandardCharsets.UTF_8);
+
+                // Una sesión expulsada antes del primer descubrir conserva su semilla y sus banderas
+                salida.write("NUEVA 2000 2000 10\nNUEVA 9 9 10 7\nB 8 8\n");
+                salida.flush();
+                assertEquals("ERROR El tablero supera las " + ServidorSesiones.MAX_CELDAS_SESION + " celdas por sesión.", entrada.readLine());
+                long diferida = Long.parseLong(entrada.readLine().substring(3));
+                entrada.readLine();
+                assertEquals(2, servidor.expulsarInactivas());
+                assertTrue(Files.exists(directorio.resolve("sesion-" + diferida + ".semilla")));
+                Juego esperado = new Juego(9, 9, 10, 7L);
+                esperado.alternarBandera(8, 8);
+                new MotorJuego(esperado).aplicar(MotorJuego.DESCUBRIR, 4, 4, delta);
+                salida.write("USAR " + diferida + "\nD 4 4\n");
+                salida.flush();
+                assertEquals("OK " + diferida, entrada.readLine());
+                partes = entrada.readLine().split(" ");
+                assertEquals(String.valueOf(ResultadoJugada.OK), partes[0]);
+                assertEquals(delta.getSegurasPorDescubrir(), Integer.parseInt(partes[1]));
+                assertEquals(delta.getCantidadCeldas(), Integer.parseInt(partes[2]));
+
+                // Cada conexión crea a lo sumo MAX_SESIONES_CONEXION sesiones
+                for (int i = 1; i < ServidorSesiones.MAX_SESIONES_CONEXION; i++) salida.write("NUEVA 5 5 3\n");
+                salida.write("NUEVA 5 5 3\n");
+                salida.flush();
+                for (int i = 1; i < ServidorSesiones.MAX_SESIONES_CONEXION; i++) assertTrue(entrada.readLine().startsWith("OK "));
+                assertEquals("ERROR La conexión ya creó " + ServidorSesiones.MAX_SESIONES_CONEXION + " sesiones.", entrada.readLine());
+            }
+
+            // Al cerrar se guardan todas las sesiones que quedaban en memoria
+            assertEquals(ServidorSesiones.MAX_SESIONES_CONEXION, servidor.getSesionesActivas());
+            servidor.close();
+            assertEquals(0, servidor.getSesionesActivas());
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                assertEquals(ServidorSesiones.MAX_SESIONES_CONEXION + 1,
+                        archivos.filter(p -> p.toString().endsWith(".dat")).count());
+            }
+        } finally {
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                for (Path p : (Iterable<Path>) archivos::iterator) Files.delete(p);
+            }
+            Files.delete(directorio);
+        }
+    }
+
+    @Test
+    @DisplayName("Las métricas deben medir sin crear objetos cuando están desactivadas")
+    public void testMetricas() throws Exception {
+        // Histograma: el percentil queda dentro del error de sus cubetas (< 6,25%)
+        Histograma histograma = new Histograma();
+        for (int v = 1; v <= 10000; v++) histograma.registrar(v);
+        assertEquals(10000, histograma.getCantidad());
+        assertEquals(10000, histograma.getMaximo());
+        assertEquals(5000.5, histograma.getMedia(), 1e-9);
+        assertEquals(5000, histograma.percentil(0.5), 5000 * 0.0625);
+        assertEquals(9900, histograma.percentil(0.99), 9900 * 0.0625);
+
+        String archivo = "test_junit.metricas";
+        Metricas.reiniciar();
+        try {
+            // Desactivadas no registran nada ni crean objetos en las jugadas
+            Juego juego = new Juego(100, 100, 0, 1L);
+            MotorJuego motor = new MotorJuego(juego);
+            DeltaJugadas delta = new DeltaJugadas();
+            ThreadMXBean hilos =
+                    (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long asignado = Long.MAX_VALUE;
+            for (int vuelta = 0; vuelta < 5; vuelta++) {
+                long antes = hilos.getThreadAllocatedBytes(Thread.currentThread().getId());
+                for (int i = 0; i < 10000; i++) {
+                    motor.aplicar(MotorJuego.BANDERA, i / 100, i % 100, delta);
+                    juego.getTablero().verificarVictoria();
+                }
+                // Cargar clases o recompilar puede asignar en alguna vuelta; una asignación por
+                // jugada aparecería en todas, así que cuenta la menor
+                asignado = Math.min(asignado, hilos.getThreadAllocatedBytes(Thread.currentThread().getId()) - antes);
+            }
+            assertEquals(0, asignado);
+            assertEquals(0, Metricas.getLatencias(Metricas.BANDERA).getCantidad());
+
+            // Activadas: llamadas por operación y celdas abiertas por jugada
+            Metricas.activar(true);
+            Tablero t = new Tablero(10, 10, 0);
+            assertFalse(t.descubrirCasilla(0, 0));
+            assertThrows(CasillaYaDescubiertaException.class, () -> t.descubrirCasilla(0, 0));
+            t.verificarVictoria();
+            juego.guardarJuego(archivo);
+            juego.cargarJuego(archivo);
+            assertEquals(2, Metricas.getLatencias(Metricas.DESCUBRIR).getCantidad());
+            assertEquals(100, Metricas.getCeldas(Metricas.DESCUBRIR).getMaximo());
+            assertEquals(1, Metricas.getLatencias(Metricas.VICTORIA).getCantidad());
+            assertEquals(1, Metricas.getLatencias(Metricas.GUARDAR).getCantidad());
+            assertEquals(1, Metricas.getLatencias(Metricas.CARGAR).getCantidad());
+            assertTrue(Metricas.resumen().contains("descubrir"));
+
+            try (ExportadorMetricas exportador = new ExportadorMetricas(Path.of(archivo + ".txt"), 60_000)) {
+                exportador.exportar();
+            }
+            assertTrue(Files.readString(Path.of(archivo + ".txt")).contains("cargar"));
+        } finally {
+            Metricas.activar(false);
+            Metricas.reiniciar();
+            new File(archivo).delete();
+            new File(archivo + ".txt").delete();
+        }
+    }
+
+    @Test
+    @DisplayName("Un tablero diferido debe colocar las minas en el primer descubrir")
+    public void testTableroDiferido() throws Exception {
+        // Crear la partida no coloca minas; el primer descubrir las coloca lejos del clic
+        Juego juego = new Juego(70, 70, 1500, 9L);
+        Tablero t = juego.getTablero();
+        assertFalse(t.isMinasColocadas());
+        juego.alternarBandera(0, 0);
+        assertFalse(t.isMinasColocadas());
+        assertFalse(juego.descubrirCasilla(35, 35));
+        assertTrue(t.isMinasColocadas());
+        for (int f = 34; f <= 36; f++) {
+            for (int c = 34; c <= 36; c++) assertFalse(t.tieneMina(t.indiceDe(f, c)));
+        }
+        assertTrue(t.tieneBandera(0));
+        assertEquals(1, t.getBanderasColocadas());
+        assertEquals(70 * 70 - 1500 - t.getUltimasAbiertas(), t.getSegurasPorDescubrir());
+
+        // Misma semilla y mismo primer clic: mismo tablero
+        Juego otro = new Juego(70, 70, 1500, 9L);
+        otro.descubrirCasilla(35, 35);
+        for (int i = 0; i < 70 * 70; i++) assertEquals(t.tieneMina(i), otro.getTablero().tieneMina(i));
+
+        // Los números se calculan por regiones al leerlos; también después de mover minas
+        int origen = 0;
+        while (!t.tieneMina(origen) || t.estaDescubierta(origen)) origen++;
+        int destino = 70 * 70 - 1;
+        while (t.tieneMina(destino) || t.estaDescubierta(destino)) destino--;
+        t.moverMina(origen / 70, origen % 70, destino / 70, destino % 70);
+        verificarNumeros(t);
+
+        // Guardar una partida sin jugar la guarda con sus minas; cargar encima no genera la anterior
+        String archivo = "test_junit_diferido.dat";
+        Juego sinJugar = new Juego(20, 20, 50, 3L);
+        sinJugar.guardarJuego(archivo);
+        Juego cargado = Juego.abrir(archivo);
+        int minas = 0;
+        for (int i = 0; i < 400; i++) if (cargado.getTablero().tieneMina(i)) minas++;
+        assertEquals(50, minas);
+        Juego reemplazado = new Juego(20, 20, 50, 4L);
+        Tablero descartado = reemplazado.getTablero();
+        reemplazado.cargarJuego(archivo);
+        assertFalse(descartado.isMinasColocadas());
+        new File(archivo).delete();
+    }
+
+    @Test
+    @DisplayName("El tablero infinito debe generar trozos deterministas y acotar la memoria")
+    public void testTableroInfinito() throws Exception {
+        String archivo = "test_junit.trozos";
+        int lado = TableroInfinito.LADO_TROZO;
+        try (TableroInfinito t = new TableroInfinito(11L, 600, 4, Path.of(archivo));
+             TableroInfinito otro = new TableroInfinito(11L, 600, 1000, Path.of(archivo + "2"))) {
+            // (0, 0) es la esquina de cuatro trozos y su zona 3x3 no tiene minas: la región abierta los cruza
+            assertEquals(ResultadoJugada.OK, t.descubrir(0, 0));
+            long[] abiertas = new long[t.getUltimasAbiertas()];
+            t.copiarUltimasAbiertas(abiertas);
+            Set<Long> trozosAbiertos = new HashSet<>();
+            for (long p : abiertas) {
+                assertTrue(t.estaDescubierta(TableroInfinito.filaDe(p), TableroInfinito.columnaDe(p)));
+                trozosAbiertos.add((long) (TableroInfinito.filaDe(p) >> 6) << 32 | (TableroInfinito.columnaDe(p) >> 6 & 0xFFFFFFFFL));
+            }
+            assertTrue(trozosAbiertos.size() >= 4);
+            assertEquals(abiertas.length, t.getDescubiertas());
+            assertEquals(ResultadoJugada.YA_DESCUBIERTA, t.descubrir(0, 0));
+
+            // Los números cruzan los bordes de los trozos y coinciden con contar las minas
+            for (int f = -lado - 2; f <= lado + 2; f += 3) {
+                for (int c = -lado - 2; c <= lado + 2; c++) {
+                    int minas = 0;
+                    for (int df = -1; df <= 1; df++) {
+                        for (int dc = -1; dc <= 1; dc++) {
+                            if ((df != 0 || dc != 0) && otro.tieneMina(f + df, c + dc)) minas++;
+                        }
+                    }
+                    assertEquals(minas, t.getMinasAlrededor(f, c));
+                }
+            }
+
+            // Lejos y en los extremos del rango: solo se guardan los trozos tocados
+            t.alternarBandera(2_000_000_000, -2_000_000_000);
+            t.descubrir(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            for (int i = 0; i < 40; i++) {
+                int f = i * 10 * lado, c = -i * 7 * lado;
+                if (!t.tieneMina(f, c)) t.descubrir(f, c);
+                assertTrue(t.getTrozosEnMemoria() <= 4);
+            }
+            assertTrue(t.getTrozosEnDisco() > 4);
+
+            // Lo jugado vuelve del disco igual y las minas se regeneran igual
+            assertTrue(t.estaDescubierta(0, 0));
+            assertTrue(t.tieneBandera(2_000_000_000, -2_000_000_000));
+            assertEquals(ResultadoJugada.YA_DESCUBIERTA, t.alternarBandera(0, 0));
+            for (long p : abiertas) assertTrue(t.estaDescubierta(TableroInfinito.filaDe(p), TableroInfinito.columnaDe(p)));
+            for (int f = 5000; f < 5010; f++) {
+                for (int c = -9000; c < -8900; c++) assertEquals(otro.tieneMina(f, c), t.tieneMina(f, c));
+            }
+            byte[] glifos = new byte[3];
+            t.escribirGlifos(0, -1, 2, false, glifos, 0);
+            assertEquals("OOO", new String(glifos, StandardCharsets.US_ASCII).replaceAll("[1-8]", "O"));
+        }
+        assertFalse(new File(archivo).exists());
+        assertThrows(IllegalArgumentException.class,
+                () -> new TableroInfinito(1L, 10, 4, Path.of(archivo)));
+    }
+
+    @Test
+    @DisplayName("El tablero compartido debe dar cada celda a un solo jugador")
+    public void testTableroCompartidoConcurrente() throws Exception {
+        final int lado = 150, jugadores = 8;
+        Tablero origen = new Tablero(lado, lado, 2700, new SplittableRandom(21), 0, 0);
+        TableroCompartido t = new TableroCompartido(origen, jugadores);
+        int seguras = lado * lado - 2700;
+
+        // Cada jugador intenta descubrir todas las seguras en su propio orden y alterna cada
+        // bandera de mina una vez: se pisan todo el tiempo
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(jugadores);
+        List<Future<Integer>> futuros = new ArrayList<>();
+        for (int j = 0; j < jugadores; j++) {
+            final int jugador = j;
+            futuros.add(hilos.submit(() -> {
+                int[] orden = new int[lado * lado];
+                for (int i = 0; i < orden.length; i++) orden[i] = i;
+                SplittableRandom random = new SplittableRandom(jugador);
+                for (int i = orden.length - 1; i > 0; i--) {
+                    int k = random.nextInt(i + 1);
+                    int tmp = orden[i]; orden[i] = orden[k]; orden[k] = tmp;
+                }
+                salida.await();
+                int aciertos = 0;
+                for (int indice : orden) {
+                    if (t.tieneMina(indice)) {
+                        assertEquals(ResultadoJugada.OK, t.alternarBandera(jugador, indice / lado, indice % lado));
+                    } else if (t.descubrir(jugador, indice / lado, indice % lado) == ResultadoJugada.OK) {
+                        aciertos++;
+                    }
+                }
+                return aciertos;
+            }));
+        }
+        salida.countDown();
+        for (Future<Integer> futuro : futuros) futuro.get(60, TimeUnit.SECONDS);
+        hilos.shutdown();
+
+        // Sin actualizaciones perdidas ni celdas abiertas dos veces: los puntajes suman justo las seguras
+        long total = 0;
+        for (int j = 0; j < jugadores; j++) {
+            assertFalse(t.isEliminado(j));
+            total += t.getPuntaje(j);
+        }
+        assertEquals(seguras, total);
+        assertTrue(t.isGanado());
+        assertEquals(0, t.getSegurasPorDescubrir());
+        for (int i = 0; i < lado * lado; i++) {
+            assertEquals(!t.tieneMina(i), t.estaDescubierta(i));
+            // Cada bandera se alternó una vez por jugador (cantidad par)
+            assertFalse(t.tieneBandera(i));
+            assertEquals(origen.getMinasAlrededor(i), t.getMinasAlrededor(i));
+        }
+        assertEquals(0, t.getBanderasColocadas());
+        assertEquals(ResultadoJugada.TERMINADO, t.descubrir(0, 0, 0));
+
+        // Una mina elimina solo a quien la pisa
+        TableroCompartido otro = new TableroCompartido(new Tablero(10, 10, 10, new SplittableRandom(2)), 2);
+        int mina = 0;
+        while (!otro.tieneMina(mina)) mina++;
+        assertEquals(ResultadoJugada.MINA, otro.descubrir(1, mina / 10, mina % 10));
+        assertTrue(otro.isEliminado(1));
+        assertEquals(ResultadoJugada.TERMINADO, otro.descubrir(1, 0, 0));
+        assertFalse(otro.isEliminado(0));
+        assertEquals(ResultadoJugada.FUERA_DE_RANGO, otro.descubrir(0, 10, 0));
+    }
+
+    @Test
+    @DisplayName("El registro de partidas debe mantener la clasificación y las estadísticas por jugador")
+    public void testRegistroPartidas() throws Exception {
+        Path archivo = Path.of("test_junit.partidas");
+        Path jugadores = Path.of("test_junit.partidas.jugadores");
+        Path indice = Path.of("test_junit.partidas.indice");
+        try {
+            try (RegistroPartidas registro = new RegistroPartidas(archivo, 3)) {
+                registro.registrar(new ResultadoPartida("ana", 1L, 9, 9, 10, 5_000_000, 20, true, 1));
+                registro.registrar(new ResultadoPartida("luis", 2L, 9, 9, 10, 3_000_000, 15, true, 2));
+                registro.registrar(new ResultadoPartida("ana", 3L, 9, 9, 10, 1_000_000, 8, false, 3));
+                registro.registrar(new ResultadoPartida("ana", 4L, 9, 9, 10, 3_000_000, 12, true, 4));
+                registro.registrar(new ResultadoPartida("luis", 5L, 9, 9, 10, 9_000_000, 30, true, 5));
+                registro.registrar(new ResultadoPartida("ana", 6L, 16, 16, 40, 60_000_000, 90, true, 6));
+
+                // Solo ganadas, por duración; a igual tiempo primero la más antigua; como mucho 3
+                List<ResultadoPartida> mejores = registro.mejores(9, 9, 10, 10);
+                assertEquals(3, mejores.size());
+                assertEquals(2L, mejores.get(0).getSemilla());
+                assertEquals(4L, mejores.get(1).getSemilla());
+                assertEquals(1L, mejores.get(2).getSemilla());
+                assertEquals(1, registro.mejores(16, 16, 40, 10).size());
+                assertTrue(registro.mejores(30, 16, 99, 10).isEmpty());
+
+                EstadisticasJugador ana = registro.estadisticas("ana");
+                assertEquals(4, ana.getPartidas());
+                assertEquals(3, ana.getGanadas());
+                assertEquals(130, ana.getJugadas());
+                assertEquals(3_000_000, ana.getMejorTiempoMicros());
+                assertNull(registro.estadisticas("nadie"));
+            }
+
+            // Al reabrir se usa la foto del índice: nada que reindexar
+            try (RegistroPartidas registro = new RegistroPartidas(archivo, 3)) {
+                assertEquals(0, registro.getReindexados());
+                assertEquals(6, registro.getCantidad());
+                assertEquals(2L, registro.mejores(9, 9, 10, 1).get(0).getSemilla());
+                assertEquals(2, registro.estadisticas("luis").getGanadas());
+                // Una partida nueva sin cerrar (cierre inesperado): queda fuera de la foto
+                registro.registrar(new ResultadoPartida("eva", 7L, 9, 9, 10, 500_000, 9, true, 7));
+                registro.sincronizar();
+                Files.copy(archivo, Path.of("test_junit.partidas.copia"));
+                Files.copy(jugadores, Path.of("test_junit.partidas.copia.jugadores"));
+                Files.copy(indice, Path.of("test_junit.partidas.copia.indice"));
+            }
+            Path copia = Path.of("test_junit.partidas.copia");
+            // Además un registro a medias al final, que se descarta
+            Files.write(copia, new byte[20], StandardOpenOption.APPEND);
+            try (RegistroPartidas registro = new RegistroPartidas(copia, 3)) {
+                assertEquals(1, registro.getReindexados());
+                assertEquals(7, registro.getCantidad());
+                assertEquals("eva", registro.mejores(9, 9, 10, 3).get(0).getJugador());
+                assertEquals(4, registro.estadisticas("ana").getPartidas());
+            }
+
+            // Sin foto (o dañada) se reconstruye todo desde el historial con el mismo resultado
+            Files.write(indice, new byte[]{1, 2, 3});
+            try (RegistroPartidas registro = new RegistroPartidas(archivo, 3)) {
+                assertEquals(7, registro.getReindexados());
+                assertEquals(500_000, registro.estadisticas("eva").getMejorTiempoMicros());
+                assertEquals(4L, registro.mejores(9, 9, 10, 3).get(2).getSemilla());
+            }
+
+            // Las partidas simuladas se registran a nombre del bot
+            try (RegistroPartidas registro = new RegistroPartidas(archivo, 3)) {
+                ResultadoSimulacion simulacion = new SimuladorPartidas(9, 9, 10, EstrategiaAleatoria::new)
+                        .ejecutar(5L, 50, 2, registro);
+                EstadisticasJugador bot = registro.estadisticas("bot-EstrategiaAleatoria");
+                assertEquals(50, bot.getPartidas());
+                assertEquals(simulacion.getGanadas(), bot.getGanadas());
+                assertEquals(simulacion.getJugadas(), bot.getJugadas());
+            }
+        } finally {
+            for (String sufijo : new String[]{"", ".jugadores", ".indice", ".copia", ".copia.jugadores", ".copia.indice"}) {
+                Files.deleteIfExists(Path.of("test_junit.partidas" + sufijo));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ec.edu.ups.buscaminas.vista;
+
+/**
+ * Utilidad para traducir índices de fila a etiquetas de letras y viceversa.
+ * Las filas se nombran como las columnas de una hoja de cálculo:
+ * A..Z, AA..AZ, BA..ZZ, AAA..., de modo que cualquier tamaño de tablero tiene etiqueta.
+ */
+public final class Coordenadas {
+
+    private Coordenadas() {
+    }
+
+    /**
+     * Convierte el índice de fila (0 = A) a su etiqueta de letras.
+     */
+    public static String etiquetaFila(int fila) {
+        StringBuilder sb = new StringBuilder(4);
+        int n = fila + 1;
+        while (n > 0) {
+            n--;
+            sb.append((char) ('A' + n % 26));
+            n /= 26;
+        }
+        return sb.reverse().toString();
+    }
+
+    /**
+     * Escribe la etiqueta de la fila en 'destino' alineada a la derecha, terminando justo antes
+     * de 'fin', sin crear objetos.
+     * @return la posición donde empieza la etiqueta.
+     */
+    public static int escribirEtiquetaFila(int fila, byte[] destino, int fin) {
+        int n = fila + 1;
+        while (n > 0) {
+            n--;
+            destino[--fin] = (byte) ('A' + n % 26);
+            n /= 26;
+        }
+        return fin;
+    }
+
+    /**
+     * Convierte una etiqueta de letras (A, Z, AA...) al índice de fila.
+     * @return el índice, o -1 si la etiqueta está vacía o contiene algo que no sea A-Z.
+     */
+    public static int indiceFila(CharSequence letras) {
+        if (letras.length() == 0) return -1;
+        long n = 0;
+        for (int i = 0; i < letras.length(); i++) {
+            char ch = letras.charAt(i);
+            if (ch < 'A' || ch > 'Z') return -1;
+            n = n * 26 + (ch - 'A' + 1);
+            if (n > Integer.MAX_VALUE) return -1;
+        }
+        return (int) (n - 1);
+    }
+
+    /**
+     * Cantidad de caracteres que ocupa la etiqueta más larga para 'filas' filas.
+     */
+    public static int anchoEtiquetaFila(int filas) {
+        return etiquetaFila(filas - 1).length();
+    }
+
+    /**
+     * Cantidad de cifras decimales del número de columna más alto.
+     */
+    public static int anchoNumeroColumna(int columnas) {
+        return String.valueOf(columnas).length();
+    }
+}
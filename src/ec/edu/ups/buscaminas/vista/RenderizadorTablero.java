@@ -0,0 +1,243 @@
+package ec.edu.ups.buscaminas.vista;
+
+import ec.edu.ups.buscaminas.modelo.Tablero;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dibuja el tablero en un buffer de bytes reutilizable y lo emite con una sola escritura.
+ * Las partes fijas del cuadro (título, números de columna, espacios) se preparan una vez por
+ * tamaño de tablero; en cada cuadro solo se escriben las etiquetas de fila y los símbolos de
+ * las celdas, que salen de la tabla de glifos del Tablero sin crear objetos.
+ *
+ * Se puede dibujar solo una ventana del tablero (filas y columnas consecutivas): el costo
+ * depende del tamaño de la ventana y no del tablero.
+ *
+ * En modo diferencial (para terminales ANSI) el primer cuadro limpia la pantalla y los
+ * siguientes solo reescriben las filas que cambiaron desde el cuadro anterior.
+ */
+public class RenderizadorTablero {
+    private static final byte[] SALTO = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TITULO = ascii(System.lineSeparator()
+            + "************** JUEGO DE BUSCAMINAS **************" + System.lineSeparator());
+    private static final byte[] PIE = ascii("*************************************************" + System.lineSeparator());
+    private static final byte[] LIMPIAR_PANTALLA = ascii("\033[H\033[2J");
+    private static final byte[] BORRAR_HASTA_EL_FINAL = ascii("\033[J");
+    // Líneas de pantalla antes de la primera fila: salto inicial, título y números de columna
+    private static final int LINEAS_ANTES_DE_FILAS = 3;
+    // Tamaño máximo del buffer de salida; los cuadros más grandes se emiten por bloques
+    private static final int MAX_BLOQUE = 1 << 20;
+
+    private final OutputStream salida;
+    private boolean diferencial;
+
+    // Disposición calculada para el tablero y la ventana actuales
+    private int filas = -1;
+    private int columnas = -1;
+    private int colInicio = -1;
+    private int alto = -1;
+    private int ancho = -1;
+    private int anchoFila;
+    private int paso;
+    private int anchoLinea;
+    private byte[] cabecera;
+    private byte[] plantillaFila;
+    private byte[] bloque;
+    private int usados;
+
+    // Símbolos del cuadro anterior, fila por fila (solo modo diferencial)
+    private byte[] anterior;
+    private byte[] actual;
+    private int filaInicioAnterior = -1;
+
+    public RenderizadorTablero(OutputStream salida) {
+        this.salida = salida;
+    }
+
+    public boolean isDiferencial() { return diferencial; }
+
+    /**
+     * Activa o desactiva el redibujo parcial; el siguiente cuadro siempre es completo.
+     */
+    public void setDiferencial(boolean diferencial) {
+        this.diferencial = diferencial;
+        this.anterior = null;
+    }
+
+    /**
+     * Obliga a que el siguiente cuadro diferencial sea completo (ej. si se escribió otra cosa encima).
+     */
+    public void invalidar() {
+        anterior = null;
+    }
+
+    /**
+     * Dibuja el tablero completo.
+     */
+    public void dibujar(Tablero tablero, boolean mostrarMinas) {
+        dibujar(tablero, mostrarMinas, 0, 0, tablero.getFilas(), tablero.getColumnas());
+    }
+
+    /**
+     * Dibuja solo las filas [filaInicio, filaInicio + alto) y las columnas
+     * [colInicio, colInicio + ancho), que deben estar dentro del tablero.
+     */
+    public void dibujar(Tablero tablero, boolean mostrarMinas, int filaInicio, int colInicio, int alto, int ancho) {
+        if (filaInicio < 0 || colInicio < 0 || alto <= 0 || ancho <= 0
+                || filaInicio + alto > tablero.getFilas() || colInicio + ancho > tablero.getColumnas())
+            throw new IllegalArgumentException("La ventana no está dentro del tablero.");
+
+        if (tablero.getFilas() != filas || tablero.getColumnas() != columnas
+                || colInicio != this.colInicio || alto != this.alto || ancho != this.ancho) {
+            preparar(tablero.getFilas(), tablero.getColumnas(), colInicio, alto, ancho);
+        }
+        try {
+            // Si la ventana se movió en vertical cambian todas las etiquetas: cuadro completo
+            if (diferencial && anterior != null && filaInicio == filaInicioAnterior) {
+                dibujarCambios(tablero, mostrarMinas, filaInicio);
+            } else {
+                dibujarCompleto(tablero, mostrarMinas, filaInicio);
+            }
+            vaciar();
+            salida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void dibujarCompleto(Tablero tablero, boolean mostrarMinas, int filaInicio) throws IOException {
+        if (diferencial && actual == null) actual = new byte[alto * ancho];
+        if (diferencial) agregar(LIMPIAR_PANTALLA, 0, LIMPIAR_PANTALLA.length);
+        agregar(TITULO, 0, TITULO.length);
+        agregar(cabecera, 0, cabecera.length);
+        for (int i = 0; i < alto; i++) {
+            int pos = reservar(anchoLinea);
+            armarFila(tablero, filaInicio + i, mostrarMinas, pos);
+            if (diferencial) guardarSimbolos(i, pos);
+        }
+        agregar(PIE, 0, PIE.length);
+        if (diferencial) {
+            agregar(BORRAR_HASTA_EL_FINAL, 0, BORRAR_HASTA_EL_FINAL.length);
+            byte[] intercambio = anterior;
+            anterior = actual;
+            actual = intercambio != null ? intercambio : new byte[actual.length];
+            filaInicioAnterior = filaInicio;
+        }
+    }
+
+    private void dibujarCambios(Tablero tablero, boolean mostrarMinas, int filaInicio) throws IOException {
+        for (int i = 0; i < alto; i++) {
+            // Los símbolos de la fila se escriben primero en 'actual' para compararlos
+            int inicio = i * ancho;
+            tablero.escribirGlifos(filaInicio + i, colInicio, colInicio + ancho, mostrarMinas, actual, inicio, 1);
+            if (Arrays.equals(actual, inicio, inicio + ancho, anterior, inicio, inicio + ancho)) continue;
+
+            moverCursor(LINEAS_ANTES_DE_FILAS + i + 1);
+            int pos = reservar(anchoLinea);
+            armarFila(tablero, filaInicio + i, mostrarMinas, pos);
+        }
+        // Se deja el cursor bajo el pie y se limpia lo que se escribió después del cuadro anterior
+        moverCursor(LINEAS_ANTES_DE_FILAS + alto + 2);
+        agregar(BORRAR_HASTA_EL_FINAL, 0, BORRAR_HASTA_EL_FINAL.length);
+        byte[] intercambio = anterior;
+        anterior = actual;
+        actual = intercambio;
+    }
+
+    // Copia la plantilla de la fila en 'pos' y completa la etiqueta y los símbolos
+    private void armarFila(Tablero tablero, int fila, boolean mostrarMinas, int pos) {
+        System.arraycopy(plantillaFila, 0, bloque, pos, anchoLinea);
+        Coordenadas.escribirEtiquetaFila(fila, bloque, pos + anchoFila);
+        tablero.escribirGlifos(fila, colInicio, colInicio + ancho, mostrarMinas, bloque, pos + anchoFila + paso, paso);
+    }
+
+    private void guardarSimbolos(int i, int pos) {
+        int origen = pos + anchoFila + paso;
+        int destino = i * ancho;
+        for (int c = 0; c < ancho; c++, origen += paso) {
+            actual[destino + c] = bloque[origen];
+        }
+    }
+
+    // Secuencia ANSI ESC[<linea>;1H escrita directamente en el bloque
+    private void moverCursor(int linea) throws IOException {
+        int cifras = 1;
+        for (int n = linea; n >= 10; n /= 10) cifras++;
+        int pos = reservar(cifras + 5);
+        bloque[pos] = 0x1B;
+        bloque[pos + 1] = '[';
+        for (int k = pos + 1 + cifras, n = linea; k > pos + 1; k--, n /= 10) {
+            bloque[k] = (byte) ('0' + n % 10);
+        }
+        bloque[pos + cifras + 2] = ';';
+        bloque[pos + cifras + 3] = '1';
+        bloque[pos + cifras + 4] = 'H';
+    }
+
+    /**
+     * Prepara la cabecera y la plantilla de fila para un tablero y una ventana nuevos.
+     * Los anchos dependen del tablero entero, así no cambian al mover la ventana.
+     */
+    private void preparar(int filas, int columnas, int colInicio, int alto, int ancho) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.colInicio = colInicio;
+        this.alto = alto;
+        this.ancho = ancho;
+        this.anchoFila = Coordenadas.anchoEtiquetaFila(filas);
+        int anchoColumna = Coordenadas.anchoNumeroColumna(columnas);
+        // Cada celda ocupa 'anchoColumna' caracteres alineados a la derecha más un espacio
+        this.paso = anchoColumna + 1;
+        this.anchoLinea = anchoFila + 2 + ancho * paso + SALTO.length;
+
+        StringBuilder sb = new StringBuilder(anchoLinea);
+        sb.append(" ".repeat(anchoFila + 2));
+        for (int j = colInicio + 1; j <= colInicio + ancho; j++) {
+            String numero = String.valueOf(j);
+            sb.append(" ".repeat(anchoColumna - numero.length())).append(numero).append(' ');
+        }
+        sb.append(System.lineSeparator());
+        cabecera = ascii(sb.toString());
+
+        plantillaFila = new byte[anchoLinea];
+        Arrays.fill(plantillaFila, (byte) ' ');
+        System.arraycopy(SALTO, 0, plantillaFila, anchoLinea - SALTO.length, SALTO.length);
+
+        long total = (long) TITULO.length + cabecera.length + (long) alto * anchoLinea + PIE.length
+                + LIMPIAR_PANTALLA.length + BORRAR_HASTA_EL_FINAL.length;
+        bloque = new byte[(int) Math.min(total, Math.max(MAX_BLOQUE, anchoLinea + cabecera.length))];
+        usados = 0;
+        anterior = null;
+        actual = null;
+    }
+
+    // Reserva 'n' bytes contiguos en el bloque, escribiéndolo antes si no caben
+    private int reservar(int n) throws IOException {
+        if (usados + n > bloque.length) vaciar();
+        int pos = usados;
+        usados += n;
+        return pos;
+    }
+
+    private void agregar(byte[] datos, int desde, int n) throws IOException {
+        if (n > bloque.length) {
+            vaciar();
+            salida.write(datos, desde, n);
+            return;
+        }
+        int pos = reservar(n);
+        System.arraycopy(datos, desde, bloque, pos, n);
+    }
+
+    private void vaciar() throws IOException {
+        if (usados > 0) salida.write(bloque, 0, usados);
+        usados = 0;
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,69 @@
+package ec.edu.ups.buscaminas.vista;
+
+/**
+ * Porción visible del tablero (viewport) para tableros más grandes que la terminal.
+ * Guarda la esquina superior izquierda y el tamaño máximo; al ajustarla a un tablero
+ * se recorta a sus bordes, así que moverla nunca la deja fuera.
+ */
+public class Ventana {
+    private final int altoMaximo;
+    private final int anchoMaximo;
+    private int fila;
+    private int columna;
+    private int alto;
+    private int ancho;
+    private int filasTablero;
+    private int columnasTablero;
+
+    public Ventana(int altoMaximo, int anchoMaximo) {
+        if (altoMaximo <= 0 || anchoMaximo <= 0)
+            throw new IllegalArgumentException("La ventana debe tener al menos una fila y una columna.");
+        this.altoMaximo = altoMaximo;
+        this.anchoMaximo = anchoMaximo;
+    }
+
+    /**
+     * Adapta la ventana a las dimensiones del tablero y la mantiene dentro de él.
+     */
+    public void ajustar(int filas, int columnas) {
+        filasTablero = filas;
+        columnasTablero = columnas;
+        alto = Math.min(altoMaximo, filas);
+        ancho = Math.min(anchoMaximo, columnas);
+        fila = Math.max(0, Math.min(fila, filas - alto));
+        columna = Math.max(0, Math.min(columna, columnas - ancho));
+    }
+
+    /**
+     * Desplaza la ventana 'df' filas y 'dc' columnas (negativo = arriba/izquierda).
+     */
+    public void desplazar(int df, int dc) {
+        fila = (int) Math.max(0, Math.min((long) fila + df, filasTablero - alto));
+        columna = (int) Math.max(0, Math.min((long) columna + dc, columnasTablero - ancho));
+    }
+
+    /**
+     * Mueve la ventana para que la celda (f, c) quede en el centro (o lo más cerca posible).
+     */
+    public void centrar(int f, int c) {
+        fila = 0;
+        columna = 0;
+        desplazar(f - alto / 2, c - ancho / 2);
+    }
+
+    public boolean contiene(int f, int c) {
+        return f >= fila && f < fila + alto && c >= columna && c < columna + ancho;
+    }
+
+    /**
+     * true si la ventana muestra el tablero entero.
+     */
+    public boolean cubreTodo() {
+        return alto == filasTablero && ancho == columnasTablero;
+    }
+
+    public int getFila() { return fila; }
+    public int getColumna() { return columna; }
+    public int getAlto() { return alto; }
+    public int getAncho() { return ancho; }
+}
@@ -1,5 +1,6 @@
 package ec.edu.ups.buscaminas.vista;
 
+import ec.edu.ups.buscaminas.metricas.Metricas;
 import ec.edu.ups.buscaminas.modelo.Tablero;
 import java.util.Scanner;
 
@@ -9,33 +10,136 @@ import java.util.Scanner;
  * No contiene lógica de negocio.
  */
 public class VistaConsola {
+    // Tamaño máximo de la porción visible; los tableros más grandes se recorren moviendo la vista
+    private static final int FILAS_VISIBLES = 20;
+    private static final int COLUMNAS_VISIBLES = 20;
+    // Tamaño máximo del minimapa (en bloques) y escala de densidad de menor a mayor
+    private static final int FILAS_MINIMAPA = 16;
+    private static final int COLUMNAS_MINIMAPA = 32;
+    private static final char[] ESCALA = {'.', ':', '+', '#'};
+
     private Scanner scanner;
+    private final RenderizadorTablero renderizador;
+    private final StringBuilder mensajesPendientes = new StringBuilder();
+    private final Ventana ventana = new Ventana(FILAS_VISIBLES, COLUMNAS_VISIBLES);
 
     public VistaConsola() {
         this.scanner = new Scanner(System.in);
+        this.renderizador = new RenderizadorTablero(System.out);
     }
 
     public void mostrarMensaje(String mensaje) {
         System.out.println(mensaje);
+        if (renderizador.isDiferencial()) {
+            mensajesPendientes.append(mensaje).append(System.lineSeparator());
+        }
     }
 
     /**
-     * Dibuja el tablero en consola iterando sobre la matriz.
-     * Utiliza el método polimórfico 'obtenerSimbolo' de las casillas.
+     * Dibuja en consola la porción visible del tablero con un RenderizadorTablero: el cuadro
+     * se arma en un buffer reutilizable y se escribe de una vez, con costo proporcional a la
+     * vista y no al tablero. Si el tablero no cabe, se indica qué parte se está viendo.
+     * En modo diferencial los mensajes mostrados desde el cuadro anterior se repiten debajo,
+     * porque el redibujo limpia lo que quedó bajo el tablero.
      */
     public void mostrarTablero(Tablero tablero, boolean mostrarMinas) {
-        System.out.println("\n************** JUEGO DE BUSCAMINAS **************");
-        System.out.println("   1 2 3 4 5 6 7 8 9 10"); // Cabecera de columnas
-        for (int i = 0; i < 10; i++) {
-            char letra = (char) ('A' + i); // Generación dinámica de letras A-J
-            System.out.print(letra + "  ");
-            for (int j = 0; j < 10; j++) {
-                // Delegamos a la casilla cómo debe dibujarse
-                System.out.print(tablero.getCasilla(i, j).obtenerSimbolo(mostrarMinas) + " ");
+        long inicio = Metricas.inicio();
+        ventana.ajustar(tablero.getFilas(), tablero.getColumnas());
+        renderizador.dibujar(tablero, mostrarMinas, ventana.getFila(), ventana.getColumna(),
+                ventana.getAlto(), ventana.getAncho());
+        if (!ventana.cubreTodo()) {
+            System.out.println("Vista: filas " + Coordenadas.etiquetaFila(ventana.getFila()) + "-"
+                    + Coordenadas.etiquetaFila(ventana.getFila() + ventana.getAlto() - 1)
+                    + ", columnas " + (ventana.getColumna() + 1) + "-" + (ventana.getColumna() + ventana.getAncho())
+                    + " de " + tablero.getFilas() + "x" + tablero.getColumnas()
+                    + " (7: mover vista, 8: ir a coordenada, 9: minimapa)");
+        }
+        if (renderizador.isDiferencial() && mensajesPendientes.length() > 0) {
+            System.out.print(mensajesPendientes);
+            mensajesPendientes.setLength(0);
+        }
+        Metricas.registrar(Metricas.DIBUJAR, inicio);
+    }
+
+    /**
+     * Desplaza la vista; 'df' y 'dc' pueden ser negativos.
+     */
+    public void desplazarVista(int df, int dc) {
+        ventana.desplazar(df, dc);
+    }
+
+    /**
+     * Centra la vista en la celda (f, c).
+     */
+    public void centrarVista(int f, int c) {
+        ventana.centrar(f, c);
+    }
+
+    /**
+     * Centra la vista en (f, c) solo si esa celda no se está viendo.
+     */
+    public void asegurarVisible(int f, int c) {
+        if (!ventana.contiene(f, c)) ventana.centrar(f, c);
+    }
+
+    public int getAltoVista() { return ventana.getAlto(); }
+    public int getAnchoVista() { return ventana.getAncho(); }
+
+    /**
+     * Muestra un resumen del tablero por bloques: la densidad de casillas descubiertas y la de
+     * banderas respecto de las minas esperadas en el bloque ('-' = nada, luego . : + #).
+     * La @ marca los bloques que cubre la vista actual.
+     */
+    public void mostrarMinimapa(Tablero tablero) {
+        int filas = tablero.getFilas();
+        int columnas = tablero.getColumnas();
+        int altoBloque = (filas + FILAS_MINIMAPA - 1) / FILAS_MINIMAPA;
+        int anchoBloque = (columnas + COLUMNAS_MINIMAPA - 1) / COLUMNAS_MINIMAPA;
+        int bloquesAlto = (filas + altoBloque - 1) / altoBloque;
+        int bloquesAncho = (columnas + anchoBloque - 1) / anchoBloque;
+        int[] descubiertas = new int[bloquesAlto * bloquesAncho];
+        int[] banderas = new int[descubiertas.length];
+        tablero.contarPorBloques(altoBloque, anchoBloque, descubiertas, banderas);
+        double densidadMinas = (double) tablero.getTotalMinas() / ((long) filas * columnas);
+
+        ventana.ajustar(filas, columnas);
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n--- Minimapa (bloques de ").append(altoBloque).append('x').append(anchoBloque).append(") ---\n");
+        sb.append(rellenarDerecha("Descubiertas", bloquesAncho + 4)).append("Banderas\n");
+        for (int bf = 0; bf < bloquesAlto; bf++) {
+            StringBuilder banderasFila = new StringBuilder(bloquesAncho);
+            for (int bc = 0; bc < bloquesAncho; bc++) {
+                int b = bf * bloquesAncho + bc;
+                int f0 = bf * altoBloque;
+                int c0 = bc * anchoBloque;
+                long celdas = (long) (Math.min(f0 + altoBloque, filas) - f0) * (Math.min(c0 + anchoBloque, columnas) - c0);
+                boolean enVista = f0 < ventana.getFila() + ventana.getAlto() && f0 + altoBloque > ventana.getFila()
+                        && c0 < ventana.getColumna() + ventana.getAncho() && c0 + anchoBloque > ventana.getColumna();
+                sb.append(enVista && !ventana.cubreTodo() ? '@' : nivel(descubiertas[b], celdas));
+                banderasFila.append(nivel(banderas[b], Math.max(1, Math.round(celdas * densidadMinas))));
             }
-            System.out.println();
+            sb.append("    ").append(banderasFila);
+            if (bf < bloquesAlto - 1) sb.append('\n');
         }
-        System.out.println("*************************************************");
+        mostrarMensaje(sb.toString());
+    }
+
+    // Símbolo de densidad para 'cantidad' sobre 'total'
+    private static char nivel(int cantidad, long total) {
+        if (cantidad == 0) return '-';
+        int i = (int) Math.min(ESCALA.length - 1, cantidad * ESCALA.length / total);
+        return ESCALA[i];
+    }
+
+    private static String rellenarDerecha(String texto, int ancho) {
+        return texto.length() >= ancho ? texto + " " : texto + " ".repeat(ancho - texto.length());
+    }
+
+    /**
+     * Activa el redibujo parcial: solo se reescriben las filas que cambiaron (terminal ANSI).
+     */
+    public void setRedibujoParcial(boolean activo) {
+        renderizador.setDiferencial(activo);
     }
 
     public int mostrarMenu() {
@@ -45,6 +149,17 @@ public class VistaConsola {
         System.out.println("3. Guardar partida actual");
         System.out.println("4. Cargar partida guardada");
         System.out.println("5. Salir");
+        System.out.println("6. Recuperar partida desde la bitácora");
+        System.out.println("7. Mover la vista (W/A/S/D)");
+        System.out.println("8. Ir a una coordenada");
+        System.out.println("9. Ver minimapa");
+        System.out.println("10. Pedir una pista");
+        System.out.println("11. Resolver automáticamente (solo casillas seguras)");
+        System.out.println("12. Acorde (descubrir las vecinas de un número con sus banderas)");
+        System.out.println("13. Deshacer la última jugada");
+        System.out.println("14. Rehacer");
+        System.out.println("15. Ver métricas de rendimiento");
+        System.out.println("16. Ver clasificación y estadísticas");
         System.out.print("Seleccione una opción: ");
         try {
             return Integer.parseInt(scanner.nextLine());
@@ -53,6 +168,14 @@ public class VistaConsola {
         }
     }
 
+    /**
+     * Pide una dirección (W/A/S/D) seguida opcionalmente de la cantidad de casillas, ej. "D" o "S15".
+     */
+    public String pedirDesplazamiento() {
+        System.out.print("Dirección W/A/S/D y casillas (ej. D, S15; sin número = una página): ");
+        return scanner.nextLine().trim().toUpperCase();
+    }
+
     public String pedirCoordenada() {
         System.out.print("Ingrese coordenada (ej. A5): ");
         return scanner.nextLine().toUpperCase();